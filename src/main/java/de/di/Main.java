@@ -1,5 +1,6 @@
 package de.di;
 
+import com.beust.jcommander.IStringConverter;
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
@@ -12,6 +13,11 @@ import de.di.duplicate_detection.RecordComparator;
 import de.di.duplicate_detection.SortedNeighborhood;
 import de.di.duplicate_detection.TransitiveClosure;
 import de.di.duplicate_detection.structures.Duplicate;
+import de.di.helper.ParallelCsvReader;
+import de.di.helper.RelationFolderLoader;
+import de.di.helper.RelationPrefetcher;
+import de.di.helper.RelationSampler;
+import de.di.helper.RelationSnapshot;
 import de.di.schema_matching.FirstLineSchemaMatcher;
 import de.di.schema_matching.SecondLineSchemaMatcher;
 import de.di.schema_matching.helper.AUCPR;
@@ -22,6 +28,7 @@ import de.di.similarity_measures.Jaccard;
 import de.di.similarity_measures.Levenshtein;
 import de.di.similarity_measures.LocalitySensitiveHashing;
 import de.di.similarity_measures.SimilarityMeasure;
+import de.di.similarity_measures.helper.NumericMinHash;
 import de.di.similarity_measures.helper.Tokenizer;
 
 import java.io.File;
@@ -31,6 +38,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -78,30 +86,39 @@ public class Main {
                     System.out.println(levenshtein.calculate(commandLevenshtein.string1, commandLevenshtein.string2));
                     break;
                 case CommandLocalitySensitiveHashing.COMMAND:
-                    SimilarityMeasure localitySensitiveHashing = new LocalitySensitiveHashing(new Tokenizer(commandLocalitySensitiveHashing.tokenSize, commandLocalitySensitiveHashing.usePadding), commandLocalitySensitiveHashing.numHashFunctions);
+                    Tokenizer lshTokenizer = new Tokenizer(commandLocalitySensitiveHashing.tokenSize, commandLocalitySensitiveHashing.usePadding);
+                    SimilarityMeasure localitySensitiveHashing = (commandLocalitySensitiveHashing.minHash == MinHashScheme.COMPARATOR) ?
+                            new LocalitySensitiveHashing(lshTokenizer, commandLocalitySensitiveHashing.numHashFunctions) :
+                            new LocalitySensitiveHashing(lshTokenizer, new NumericMinHash(commandLocalitySensitiveHashing.numHashFunctions, commandLocalitySensitiveHashing.minHash == MinHashScheme.ONE_PERMUTATION, 0));
                     System.out.println(localitySensitiveHashing.calculate(commandLocalitySensitiveHashing.string1, commandLocalitySensitiveHashing.string2));
                     break;
                 case CommandUCCProfiler.COMMAND:
                     UCCProfiler uccProfiler = new UCCProfiler();
                     List<UCC> uccResult = new ArrayList<>();
-                    for (Relation relation : Relation.readAllRelationsIn(commandUCCProfiler.inputPath, commandUCCProfiler.hasHeader, commandUCCProfiler.separator.charAt(0), StandardCharsets.UTF_8))
+                    RelationFolderLoader uccLoader = new RelationFolderLoader(new ParallelCsvReader(commandUCCProfiler.hasHeader, commandUCCProfiler.separator.charAt(0), StandardCharsets.UTF_8, Runtime.getRuntime().availableProcessors(), ParallelCsvReader.DEFAULT_CHUNK_SIZE, ParallelCsvReader.DEFAULT_CARDINALITY_CUTOFF, commandUCCProfiler.byteValues, commandUCCProfiler.offHeap), commandUCCProfiler.useSnapshots, commandUCCProfiler.parallelism, commandUCCProfiler.memoryBudget * 1024 * 1024);
+                    uccLoader = uccLoader.withSampler(samplerOf(commandUCCProfiler.sampleSize, commandUCCProfiler.sampleFraction, commandUCCProfiler.seed));
+                    for (Relation relation : uccLoader.loadAll(commandUCCProfiler.inputPath))
                         uccResult.addAll(uccProfiler.profile(relation));
+                    uccLoader.getFileLoads().forEach(System.out::println);
                     uccResult.forEach(System.out::println);
                     break;
                 case CommandINDProfiler.COMMAND:
                     INDProfiler indProfiler = new INDProfiler();
-                    List<Relation> relations = Relation.readAllRelationsIn(commandINDProfiler.inputPath, commandINDProfiler.hasHeader, commandINDProfiler.separator.charAt(0), StandardCharsets.UTF_8);
+                    RelationFolderLoader indLoader = new RelationFolderLoader(new ParallelCsvReader(commandINDProfiler.hasHeader, commandINDProfiler.separator.charAt(0), StandardCharsets.UTF_8, Runtime.getRuntime().availableProcessors(), ParallelCsvReader.DEFAULT_CHUNK_SIZE, ParallelCsvReader.DEFAULT_CARDINALITY_CUTOFF, commandINDProfiler.byteValues, commandINDProfiler.offHeap), commandINDProfiler.useSnapshots, commandINDProfiler.parallelism, commandINDProfiler.memoryBudget * 1024 * 1024);
+                    List<Relation> relations = indLoader.loadAll(commandINDProfiler.inputPath);
+                    indLoader.getFileLoads().forEach(System.out::println);
                     List<IND> indResult = indProfiler.profile(relations, commandINDProfiler.discoverNary);
                     indResult.forEach(System.out::println);
                     break;
                 case CommandFirstLineSchemaMatcher.COMMAND:
-                    runMatchingFor(commandFirstLineSchemaMatcher.scenarioPath, false);
+                    runMatchingFor(commandFirstLineSchemaMatcher.scenarioPath, false, commandFirstLineSchemaMatcher.useSnapshots,
+                            samplerOf(commandFirstLineSchemaMatcher.sampleSize, commandFirstLineSchemaMatcher.sampleFraction, commandFirstLineSchemaMatcher.seed));
                     break;
                 case CommandSecondLineSchemaMatcher.COMMAND:
-                    runMatchingFor(commandSecondLineSchemaMatcher.scenarioPath, true);
+                    runMatchingFor(commandSecondLineSchemaMatcher.scenarioPath, true, commandSecondLineSchemaMatcher.useSnapshots, null);
                     break;
                 case CommandDuplicateDetection.COMMAND:
-                    Relation relation = new Relation(commandDuplicateDetection.scenarioPath, commandDuplicateDetection.hasHeader, commandDuplicateDetection.separator.charAt(0), StandardCharsets.ISO_8859_1);
+                    Relation relation = new Relation(Path.of(commandDuplicateDetection.scenarioPath), commandDuplicateDetection.hasHeader, commandDuplicateDetection.separator.charAt(0), StandardCharsets.ISO_8859_1, commandDuplicateDetection.useSnapshots);
                     RecordComparator recordComparator = SortedNeighborhood.suggestRecordComparatorFor(relation);
                     SortedNeighborhood sortedNeighborhood = new SortedNeighborhood();
                     int[] sortingKeys = Arrays.stream(commandDuplicateDetection.sortingKeys.split(",")).mapToInt(Integer::parseInt).toArray();
@@ -178,6 +195,32 @@ public class Main {
 
         @Parameter(names = {"--numHashFunctions"}, description = "Specification of the number of minHash functions to be used", required = false, arity = 1)
         int numHashFunctions = 20;
+
+        @Parameter(names = {"--minHash"}, description = "MinHash scheme: comparator, universal (numeric hash functions), or onePermutation (numeric one permutation hashing)", required = false, arity = 1, converter = MinHashScheme.Converter.class)
+        MinHashScheme minHash = MinHashScheme.COMPARATOR;
+    }
+
+    private enum MinHashScheme {
+        COMPARATOR("comparator"), UNIVERSAL("universal"), ONE_PERMUTATION("onePermutation");
+
+        // The name of the scheme on the command line.
+        private final String name;
+
+        MinHashScheme(String name) {
+            this.name = name;
+        }
+
+        public static class Converter implements IStringConverter<MinHashScheme> {
+
+            @Override
+            public MinHashScheme convert(String value) {
+                for (MinHashScheme scheme : MinHashScheme.values())
+                    if (scheme.name.equals(value))
+                        return scheme;
+                throw new ParameterException("Unknown MinHash scheme " + value + "; use one of " +
+                        Arrays.stream(MinHashScheme.values()).map(scheme -> scheme.name).collect(Collectors.joining(", ")) + ".");
+            }
+        }
     }
 
     @Parameters(commandDescription = "Execute the UCCProfiler data profiling algorithm.")
@@ -193,6 +236,30 @@ public class Main {
 
         @Parameter(names = {"--separator"}, description = "File separator character", required = false, arity = 1)
         String separator = ";";
+
+        @Parameter(names = {"--useSnapshots"}, description = "Load relations from binary snapshots next to the input files and create them if missing or outdated", required = false, arity = 1)
+        boolean useSnapshots = false;
+
+        @Parameter(names = {"--parallelism"}, description = "Maximum number of files that are loaded concurrently", required = false, arity = 1)
+        int parallelism = Runtime.getRuntime().availableProcessors();
+
+        @Parameter(names = {"--memoryBudget"}, description = "Maximum heap memory in MB that files being loaded concurrently may need together", required = false, arity = 1)
+        long memoryBudget = Runtime.getRuntime().maxMemory() / 2 / 1024 / 1024;
+
+        @Parameter(names = {"--byteValues"}, description = "Keep values as encoded bytes instead of Strings to save memory", required = false, arity = 1)
+        boolean byteValues = false;
+
+        @Parameter(names = {"--offHeap"}, description = "Keep the encoded bytes of --byteValues off the Java heap", required = false, arity = 1)
+        boolean offHeap = false;
+
+        @Parameter(names = {"--sampleSize"}, description = "Profile a random sample of this many records per file; the found UCCs are then only candidates", required = false, arity = 1)
+        int sampleSize = -1;
+
+        @Parameter(names = {"--sampleFraction"}, description = "Profile a random sample of this fraction of records per file; the found UCCs are then only candidates", required = false, arity = 1)
+        double sampleFraction = 1;
+
+        @Parameter(names = {"--seed"}, description = "Seed of the random samples", required = false, arity = 1)
+        long seed = 42;
     }
 
     @Parameters(commandDescription = "Execute the INDProfiler data profiling algorithm.")
@@ -211,6 +278,21 @@ public class Main {
 
         @Parameter(names = {"--discoverNary"}, description = "Flag to indicate whether n-ary INDs should be discovered as well", required = false, arity = 1)
         boolean discoverNary = false;
+
+        @Parameter(names = {"--useSnapshots"}, description = "Load relations from binary snapshots next to the input files and create them if missing or outdated", required = false, arity = 1)
+        boolean useSnapshots = false;
+
+        @Parameter(names = {"--parallelism"}, description = "Maximum number of files that are loaded concurrently", required = false, arity = 1)
+        int parallelism = Runtime.getRuntime().availableProcessors();
+
+        @Parameter(names = {"--memoryBudget"}, description = "Maximum heap memory in MB that files being loaded concurrently may need together", required = false, arity = 1)
+        long memoryBudget = Runtime.getRuntime().maxMemory() / 2 / 1024 / 1024;
+
+        @Parameter(names = {"--byteValues"}, description = "Keep values as encoded bytes instead of Strings to save memory", required = false, arity = 1)
+        boolean byteValues = false;
+
+        @Parameter(names = {"--offHeap"}, description = "Keep the encoded bytes of --byteValues off the Java heap", required = false, arity = 1)
+        boolean offHeap = false;
     }
 
     @Parameters(commandDescription = "Execute the FirstLineSchemaMatcher algorithm.")
@@ -220,6 +302,18 @@ public class Main {
 
         @Parameter(names = {"--scenarioPath"}, description = "Path of the matching scenario", required = true, arity = 1)
         String scenarioPath;
+
+        @Parameter(names = {"--useSnapshots"}, description = "Load relations from binary snapshots next to the input files and create them if missing or outdated", required = false, arity = 1)
+        boolean useSnapshots = false;
+
+        @Parameter(names = {"--sampleSize"}, description = "Match random samples of this many records of the source and target relations", required = false, arity = 1)
+        int sampleSize = -1;
+
+        @Parameter(names = {"--sampleFraction"}, description = "Match random samples of this fraction of records of the source and target relations", required = false, arity = 1)
+        double sampleFraction = 1;
+
+        @Parameter(names = {"--seed"}, description = "Seed of the random samples", required = false, arity = 1)
+        long seed = 42;
     }
 
     @Parameters(commandDescription = "Execute the SecondLineSchemaMatcher algorithm.")
@@ -229,6 +323,9 @@ public class Main {
 
         @Parameter(names = {"--scenarioPath"}, description = "Path of the matching scenario", required = true, arity = 1)
         String scenarioPath;
+
+        @Parameter(names = {"--useSnapshots"}, description = "Load relations from binary snapshots next to the input files and create them if missing or outdated", required = false, arity = 1)
+        boolean useSnapshots = false;
     }
 
     @Parameters(commandDescription = "Execute the entire duplicate detection pipeline.")
@@ -250,26 +347,63 @@ public class Main {
 
         @Parameter(names = {"--windowSize"}, description = "Window size for the Sorted Neighborhood Method", required = false, arity = 1)
         int windowSize = 5;
+
+        @Parameter(names = {"--useSnapshots"}, description = "Load relations from binary snapshots next to the input files and create them if missing or outdated", required = false, arity = 1)
+        boolean useSnapshots = false;
+    }
+
+    private static RelationSampler samplerOf(int sampleSize, double sampleFraction, long seed) {
+        if (sampleSize >= 0)
+            return RelationSampler.ofSize(sampleSize, seed);
+        if (sampleFraction < 1)
+            return RelationSampler.ofFraction(sampleFraction, seed);
+        return null;
     }
 
-    private static void runMatchingFor(String scenarioPath, boolean withSecondLineMatcher) {
+    private static void runMatchingFor(String scenarioPath, boolean withSecondLineMatcher, boolean useSnapshots, RelationSampler sampler) {
         List<Path> sources = scanFiles(scenarioPath + File.separator + "source");
         List<Path> targets = scanFiles(scenarioPath + File.separator + "target");
 
         Collections.sort(sources);
         Collections.sort(targets);
 
+        // Collect the relation pairs that are supposed to match, i.e., the pairs with a ground truth file
+        List<Path[]> pairs = new ArrayList<>();
         for (Path source : sources) {
             for (Path target : targets) {
-                // Check if this relation pair is actually a pair that is supposed to match
                 Path groundTruth = Path.of(source.toString().replaceFirst("source", "ground_truth").replace(".csv", "___") + target.getFileName());
-                if (!groundTruth.toFile().exists())
-                    continue;
+                if (groundTruth.toFile().exists())
+                    pairs.add(new Path[]{source, target, groundTruth});
+            }
+        }
 
-                // Load the relations and ground truth data
-                Relation sourceRelation = new Relation(source.toString(), true, ',', StandardCharsets.UTF_8);
-                Relation targetRelation = new Relation(target.toString(), true, ',', StandardCharsets.UTF_8);
-                Relation groundRelation = new Relation(groundTruth.toString(), false, ',', StandardCharsets.UTF_8);
+        // Remember the last pair that needs each file, so that files are evicted from the cache after their last use
+        Map<Path, Integer> lastUses = new HashMap<>();
+        for (int i = 0; i < pairs.size(); i++)
+            for (Path file : pairs.get(i))
+                lastUses.put(file, i);
+
+        Function<Path, Relation> relationLoader = file -> (sampler != null) ? sampler.sample(file, true, ',', StandardCharsets.UTF_8) : new Relation(file, true, ',', StandardCharsets.UTF_8, useSnapshots);
+        Function<Path, Relation> groundTruthLoader = file -> new Relation(file, false, ',', StandardCharsets.UTF_8, useSnapshots);
+
+        try (RelationPrefetcher prefetcher = new RelationPrefetcher()) {
+            for (int i = 0; i < pairs.size(); i++) {
+                Path source = pairs.get(i)[0];
+                Path target = pairs.get(i)[1];
+                Path groundTruth = pairs.get(i)[2];
+
+                // Load the relations and ground truth data; the next pair's files are loaded in the background meanwhile
+                Relation sourceRelation = prefetcher.get(source, relationLoader);
+                Relation targetRelation = prefetcher.get(target, relationLoader);
+                Relation groundRelation = prefetcher.get(groundTruth, groundTruthLoader);
+                if (i + 1 < pairs.size()) {
+                    prefetcher.prefetch(pairs.get(i + 1)[0], relationLoader);
+                    prefetcher.prefetch(pairs.get(i + 1)[1], relationLoader);
+                    prefetcher.prefetch(pairs.get(i + 1)[2], groundTruthLoader);
+                }
+                for (Path file : pairs.get(i))
+                    if (lastUses.get(file) == i)
+                        prefetcher.evict(file);
 
                 // Calculate first-line matching
                 FirstLineSchemaMatcher firstMatcher = new FirstLineSchemaMatcher();
@@ -310,7 +444,7 @@ public class Main {
 
     private static List<Path> scanFiles(String folderPath) {
         try (Stream<Path> paths = Files.walk(Paths.get(folderPath))) {
-            return paths.filter(Files::isRegularFile).collect(Collectors.toList());
+            return paths.filter(Files::isRegularFile).filter(path -> !RelationSnapshot.isSnapshot(path)).collect(Collectors.toList());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,226 @@
+package de.di;
+
+import de.di.data_profiling.structures.AttributeList;
+import de.di.data_profiling.structures.PositionListIndex;
+import de.di.helper.ParallelCsvReader;
+import de.di.structures.ArenaColumn;
+import de.di.structures.DictionaryColumn;
+import de.di.structures.ValueAccessor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A PartitionedRelation is one logical relation that is stored as a list of row partitions, e.g., one per input shard
+ * file or per fixed-size chunk of records. Every partition is a Relation with the same schema; record indexes of the
+ * PartitionedRelation enumerate the partitions' records in partition order. The operators of this class are
+ * partition-parallel: they process all partitions independently on all cores and then merge the partial results.
+ */
+@Getter
+public class PartitionedRelation {
+
+    private final String name;
+    private final String[] attributes;
+    private final List<Relation> partitions;
+
+    // The index of every partition's first record in the whole relation; the last entry is the number of records.
+    private final int[] partitionStarts;
+
+    public PartitionedRelation(String name, String[] attributes, List<Relation> partitions) {
+        this.name = name;
+        this.attributes = attributes;
+        this.partitions = List.copyOf(partitions);
+        this.partitionStarts = new int[partitions.size() + 1];
+        for (int p = 0; p < partitions.size(); p++) {
+            if (partitions.get(p).getAttributes().length != attributes.length)
+                throw new IllegalArgumentException("Partition " + partitions.get(p).getName() + " has " + partitions.get(p).getAttributes().length + " instead of " + attributes.length + " attributes.");
+            this.partitionStarts[p + 1] = this.partitionStarts[p] + partitions.get(p).getNumRecords();
+        }
+    }
+
+    /**
+     * Splits the live records of the provided relation into partitions of (almost) equal size. The partitions are cut
+     * from the columnar store in its storage layout: dictionaries are compacted to the partition's values and
+     * byte-encoded columns share the relation's arena, so that no values are decoded.
+     * @param relation The relation to split.
+     * @param numPartitions The number of partitions.
+     * @return The partitioned relation.
+     */
+    public static PartitionedRelation split(Relation relation, int numPartitions) {
+        int[] liveRecords = relation.getLiveRecordIndexes();
+        int numRecords = liveRecords.length;
+        numPartitions = Math.max(1, Math.min(numPartitions, numRecords));
+        int numAttributes = relation.getAttributes().length;
+        ValueAccessor[] values = new ValueAccessor[numAttributes];
+        boolean arenaBacked = false;
+        for (int i = 0; i < numAttributes; i++) {
+            values[i] = relation.getValueAccessor(i);
+            arenaBacked |= values[i] instanceof ArenaColumn;
+        }
+
+        List<Relation> partitions = new ArrayList<>(numPartitions);
+        for (int p = 0; p < numPartitions; p++) {
+            int from = (int) ((long) numRecords * p / numPartitions);
+            int to = (int) ((long) numRecords * (p + 1) / numPartitions);
+            int[] recordIndexes = Arrays.copyOfRange(liveRecords, from, to);
+            DictionaryColumn[] dictionaryColumns = new DictionaryColumn[numAttributes];
+            ArenaColumn[] arenaColumns = new ArenaColumn[numAttributes];
+            String[][] columns = new String[numAttributes][];
+            for (int i = 0; i < numAttributes; i++) {
+                if (values[i] instanceof DictionaryColumn)
+                    dictionaryColumns[i] = ((DictionaryColumn) values[i]).select(recordIndexes);
+                else if (values[i] instanceof ArenaColumn)
+                    arenaColumns[i] = ((ArenaColumn) values[i]).select(recordIndexes);
+                else if (arenaBacked)
+                    dictionaryColumns[i] = DictionaryColumn.encode(values[i].select(recordIndexes).toArray());
+                else
+                    columns[i] = values[i].select(recordIndexes).toArray();
+            }
+            partitions.add(arenaBacked ?
+                    new Relation(relation.getName(), relation.getAttributes(), dictionaryColumns, arenaColumns) :
+                    new Relation(relation.getName(), relation.getAttributes(), dictionaryColumns, columns));
+        }
+        return new PartitionedRelation(relation.getName(), relation.getAttributes(), partitions);
+    }
+
+    /**
+     * Loads every shard file as one partition; the shards are loaded concurrently and must share the same schema.
+     * @param name The name of the partitioned relation.
+     * @param shardFiles The paths of the shard files in partition order.
+     * @param reader The reader that parses the shards; its parallelism is split among the shards.
+     * @return The partitioned relation.
+     */
+    public static PartitionedRelation load(String name, List<Path> shardFiles, ParallelCsvReader reader) {
+        if (shardFiles.isEmpty())
+            throw new IllegalArgumentException("A partitioned relation needs at least one shard file.");
+        ParallelCsvReader shardReader = reader.withParallelism(Math.max(1, reader.getParallelism() / shardFiles.size()));
+        List<Relation> partitions = shardFiles.parallelStream().map(shardReader::read).collect(Collectors.toList());
+
+        String[] attributes = partitions.get(0).getAttributes();
+        for (Relation partition : partitions)
+            if (!Arrays.equals(attributes, partition.getAttributes()))
+                throw new IllegalArgumentException("Shard " + partition.getName() + " has the schema " + Arrays.toString(partition.getAttributes()) + " instead of " + Arrays.toString(attributes) + ".");
+        return new PartitionedRelation(name, attributes, partitions);
+    }
+
+    public int getNumPartitions() {
+        return this.partitions.size();
+    }
+
+    public int getNumRecords() {
+        return this.partitionStarts[this.partitions.size()];
+    }
+
+    /**
+     * Finds the partition that holds the provided record.
+     * @param recordIndex The index of the record in the whole relation.
+     * @return The index of the record's partition.
+     */
+    public int partitionOf(int recordIndex) {
+        int position = Arrays.binarySearch(this.partitionStarts, recordIndex);
+        // Skip empty partitions that start at the same record index
+        if (position >= 0) {
+            while (position + 1 < this.partitionStarts.length && this.partitionStarts[position + 1] == recordIndex)
+                position++;
+            return position;
+        }
+        return -position - 2;
+    }
+
+    /**
+     * Returns one record of the relation.
+     * @param recordIndex The index of the record in the whole relation.
+     * @return The record.
+     */
+    public String[] getRecord(int recordIndex) {
+        int partition = this.partitionOf(recordIndex);
+        return this.partitions.get(partition).getRecord(recordIndex - this.partitionStarts[partition]);
+    }
+
+    /**
+     * Dictionary-encodes the provided attribute: the partitions are encoded in parallel and their dictionaries are then
+     * merged, which only touches every partition's distinct values once.
+     * @param attribute The index of the attribute.
+     * @return The dictionary-encoded column of the attribute over all partitions.
+     */
+    public DictionaryColumn getDictionaryColumn(int attribute) {
+        List<DictionaryColumn> parts = this.partitions.parallelStream()
+                .map(partition -> partition.getDictionaryColumn(attribute))
+                .collect(Collectors.toList());
+        return parts.isEmpty() ? new DictionaryColumn(new String[0], new int[0]) : DictionaryColumn.concat(parts);
+    }
+
+    /**
+     * Concatenates the partitions into one relation, e.g., to reference the whole relation in results.
+     * @return The relation with the records of all partitions.
+     */
+    public Relation toRelation() {
+        DictionaryColumn[] columns = new DictionaryColumn[this.attributes.length];
+        IntStream.range(0, columns.length).parallel().forEach(attribute -> columns[attribute] = this.getDictionaryColumn(attribute));
+        return new Relation(this.name, this.attributes, columns);
+    }
+
+    /**
+     * Builds the position list index of the provided attribute from the partitions' encodings.
+     * @param attribute The index of the attribute.
+     * @return The position list index of the attribute over all partitions.
+     */
+    public PositionListIndex getPositionListIndex(int attribute) {
+        return new PositionListIndex(new AttributeList(attribute), this.getDictionaryColumn(attribute));
+    }
+
+    /**
+     * Collects the distinct values of the provided attribute: the partitions' distinct values are determined in
+     * parallel and then united.
+     * @param attribute The index of the attribute.
+     * @return The distinct values of the attribute over all partitions.
+     */
+    public Set<String> getDistinctValues(int attribute) {
+        List<String[]> dictionaries = this.partitions.parallelStream()
+                .map(partition -> partition.getDictionaryColumn(attribute).getDictionary())
+                .collect(Collectors.toList());
+        Set<String> values = new HashSet<>();
+        for (String[] dictionary : dictionaries)
+            values.addAll(Arrays.asList(dictionary));
+        return values;
+    }
+
+    /**
+     * Sorts the records by the provided attribute: every partition sorts its records into a sorted run in parallel and
+     * the runs are then merged. The order is stable, i.e., records with equal values keep their relative order.
+     * @param attribute The index of the attribute by whose values the records should be sorted.
+     * @param comparator The order of the values.
+     * @return The record indexes in sorted order.
+     */
+    public int[] getSortedOrder(int attribute, Comparator<String> comparator) {
+        List<DictionaryColumn> columns = this.partitions.parallelStream()
+                .map(partition -> partition.getDictionaryColumn(attribute))
+                .collect(Collectors.toList());
+        int[][] runs = new int[columns.size()][];
+        IntStream.range(0, runs.length).parallel().forEach(p -> runs[p] = columns.get(p).sortedOrder(comparator));
+
+        // Merge the runs; ties go to the earlier partition, which keeps the merge stable
+        PriorityQueue<int[]> heads = new PriorityQueue<>((head1, head2) -> {
+            int comparison = comparator.compare(
+                    columns.get(head1[0]).get(runs[head1[0]][head1[1]]),
+                    columns.get(head2[0]).get(runs[head2[0]][head2[1]]));
+            return (comparison != 0) ? comparison : Integer.compare(head1[0], head2[0]);
+        });
+        for (int p = 0; p < runs.length; p++)
+            if (runs[p].length > 0)
+                heads.add(new int[]{p, 0});
+
+        int[] order = new int[this.getNumRecords()];
+        int position = 0;
+        while (!heads.isEmpty()) {
+            int[] head = heads.poll();
+            order[position++] = this.partitionStarts[head[0]] + runs[head[0]][head[1]];
+            if (++head[1] < runs[head[0]].length)
+                heads.add(head);
+        }
+        return order;
+    }
+}
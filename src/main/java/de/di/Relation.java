@@ -1,43 +1,156 @@
 package de.di;
 
-import com.opencsv.CSVParser;
-import com.opencsv.CSVParserBuilder;
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
-import com.opencsv.enums.CSVReaderNullFieldIndicator;
-import com.opencsv.exceptions.CsvValidationException;
-import lombok.AllArgsConstructor;
+import de.di.helper.ParallelCsvReader;
+import de.di.helper.RelationFolderLoader;
+import de.di.helper.RelationSnapshot;
+import de.di.helper.RowOffsetIndex;
+import de.di.structures.ArenaColumn;
+import de.di.structures.ColumnStatistics;
+import de.di.structures.DictionaryColumn;
+import de.di.structures.RelationChange;
+import de.di.structures.ValueAccessor;
+import lombok.AccessLevel;
 import lombok.Getter;
 
-import java.io.BufferedReader;
-import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
+/**
+ * A Relation is a named table with a schema of attributes and a list of records. Internally, the values are stored
+ * column-wise: columns with few distinct values as DictionaryColumns, i.e., one array of integer codes plus one
+ * dictionary of distinct values per attribute, and all other columns as plain value arrays. Alternatively, the values
+ * of those other columns can be kept as encoded bytes in ArenaColumns. The row-major records, the column-major value
+ * arrays, and missing dictionary encodings are derived, lazily built views of that store. The relation also keeps
+ * ColumnStatistics per attribute, which the loader computes while building the store and which are otherwise computed
+ * on first access.
+ * Records can be appended and deleted; every such change creates a new version of the relation and is recorded in a
+ * change log that incremental algorithms can read or subscribe to. Deleted records remain in the store and in its
+ * derived views as tombstones, so record indexes stay stable across versions; the column statistics describe only the
+ * live records, and the profilers and the duplicate detection read the live records through getLiveValueAccessor() and
+ * getLiveRecordIndexes().
+ */
 @Getter
-@AllArgsConstructor
 public class Relation {
 
     private String name;
     private String[] attributes;
+
+    // The dictionary-encoded columns of this relation; an entry is null if its attribute is not (yet) encoded.
+    private DictionaryColumn[] dictionaryColumns;
+
+    // The byte-encoded columns of this relation; null if no values are kept in a ByteArena, and an entry is null if
+    // its attribute is not kept in a ByteArena.
+    private ArenaColumn[] arenaColumns;
+
+    // The row-major records and column-major values of this relation; a column entry is null if not (yet) materialized.
     private String[][] records;
+    private String[][] columns;
+
+    // The statistics of this relation's columns; an entry is null if its statistics were not (yet) computed.
+    private ColumnStatistics[] columnStatistics;
+
+    // The byte offsets of this relation's records in its CSV file; null if the loader did not keep them.
+    private RowOffsetIndex rowOffsetIndex;
+
+    // The version of this relation, i.e., the number of changes that were applied since its construction.
+    @Getter(AccessLevel.NONE)
+    private long version = 0;
+
+    // The changes of this relation in version order; the change at position i created version i + 1.
+    @Getter(AccessLevel.NONE)
+    private List<RelationChange> changeLog = new ArrayList<>();
+
+    // The listeners that are notified of every change.
+    @Getter(AccessLevel.NONE)
+    private List<Consumer<RelationChange>> listeners = new CopyOnWriteArrayList<>();
+
+    // The indexes of all deleted records.
+    @Getter(AccessLevel.NONE)
+    private BitSet deletedRecords = new BitSet();
 
     public static List<Relation> readAllRelationsIn(String folderPath, boolean hasHeader, char separator, Charset charset) {
-        try (Stream<Path> paths = Files.walk(Paths.get(folderPath))) {
-            return paths.filter(Files::isRegularFile)
-                    .map(filePath -> new Relation(filePath, hasHeader, separator, charset))
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        return readAllRelationsIn(folderPath, hasHeader, separator, charset, false);
+    }
+
+    public static List<Relation> readAllRelationsIn(String folderPath, boolean hasHeader, char separator, Charset charset, boolean useSnapshots) {
+        return new RelationFolderLoader(hasHeader, separator, charset, useSnapshots).loadAll(folderPath);
+    }
+
+    public Relation(String name, String[] attributes, String[][] records) {
+        this.name = name;
+        this.attributes = attributes;
+        this.records = records;
+    }
+
+    public Relation(String name, String[] attributes, DictionaryColumn[] dictionaryColumns) {
+        this.name = name;
+        this.attributes = attributes;
+        this.dictionaryColumns = dictionaryColumns;
+    }
+
+    public Relation(String name, String[] attributes, ArenaColumn[] arenaColumns) {
+        this.name = name;
+        this.attributes = attributes;
+        this.arenaColumns = arenaColumns;
+    }
+
+    /**
+     * Creates a relation from a columnar store in which every attribute is either dictionary-encoded or byte-encoded.
+     * @param name The name of the relation.
+     * @param attributes The attributes of the relation.
+     * @param dictionaryColumns The dictionary-encoded columns; null entries for attributes that are byte-encoded.
+     * @param arenaColumns The byte-encoded columns; null entries for attributes that are dictionary-encoded.
+     */
+    public Relation(String name, String[] attributes, DictionaryColumn[] dictionaryColumns, ArenaColumn[] arenaColumns) {
+        this(name, attributes, dictionaryColumns, arenaColumns, null);
+    }
+
+    /**
+     * Creates a relation from a columnar store in which every attribute is either dictionary-encoded or byte-encoded.
+     * @param name The name of the relation.
+     * @param attributes The attributes of the relation.
+     * @param dictionaryColumns The dictionary-encoded columns; null entries for attributes that are byte-encoded.
+     * @param arenaColumns The byte-encoded columns; null entries for attributes that are dictionary-encoded.
+     * @param columnStatistics The already computed statistics of the columns; null (entries) if not computed.
+     */
+    public Relation(String name, String[] attributes, DictionaryColumn[] dictionaryColumns, ArenaColumn[] arenaColumns, ColumnStatistics[] columnStatistics) {
+        this.name = name;
+        this.attributes = attributes;
+        this.dictionaryColumns = dictionaryColumns;
+        this.arenaColumns = arenaColumns;
+        this.columnStatistics = columnStatistics;
+    }
+
+    /**
+     * Creates a relation from a columnar store in which every attribute is either dictionary-encoded or plain.
+     * @param name The name of the relation.
+     * @param attributes The attributes of the relation.
+     * @param dictionaryColumns The dictionary-encoded columns; null entries for attributes that are stored plain.
+     * @param columns The plain columns; null entries for attributes that are dictionary-encoded.
+     */
+    public Relation(String name, String[] attributes, DictionaryColumn[] dictionaryColumns, String[][] columns) {
+        this(name, attributes, dictionaryColumns, columns, null);
+    }
+
+    /**
+     * Creates a relation from a columnar store in which every attribute is either dictionary-encoded or plain.
+     * @param name The name of the relation.
+     * @param attributes The attributes of the relation.
+     * @param dictionaryColumns The dictionary-encoded columns; null entries for attributes that are stored plain.
+     * @param columns The plain columns; null entries for attributes that are dictionary-encoded.
+     * @param columnStatistics The already computed statistics of the columns; null (entries) if not computed.
+     */
+    public Relation(String name, String[] attributes, DictionaryColumn[] dictionaryColumns, String[][] columns, ColumnStatistics[] columnStatistics) {
+        this.name = name;
+        this.attributes = attributes;
+        this.dictionaryColumns = dictionaryColumns;
+        this.columns = columns;
+        this.columnStatistics = columnStatistics;
     }
 
     public Relation(String filePath) {
@@ -49,64 +162,427 @@ public class Relation {
     }
 
     public Relation(Path filePath, boolean hasHeader, char separator, Charset charset) {
-        this.name = filePath.getFileName().toString().split("\\.")[0];
-
-        CSVParser parser = new CSVParserBuilder()
-                .withSeparator(separator)
-                .withQuoteChar('"')
-                .withEscapeChar('\\')
-                .withStrictQuotes(false)
-                .withIgnoreLeadingWhiteSpace(false)
-                .withFieldAsNull(CSVReaderNullFieldIndicator.EMPTY_SEPARATORS)
-                .build();
-
-        ArrayList<String[]> records;
-        try {
-            BufferedReader buffer = Files.newBufferedReader(filePath, charset);
-            CSVReader reader = new CSVReaderBuilder(buffer).withCSVParser(parser).build();
-
-            if (hasHeader)
-                this.attributes = reader.readNext();
-
-            records = new ArrayList<>();
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                for (int i = 0; i < line.length; i++)
-                    if (line[i] == null)
-                        line[i] = "";
-                records.add(line);
+        this(filePath, hasHeader, separator, charset, false);
+    }
+
+    /**
+     * Loads the relation stored in the provided CSV file.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Whether the first record of the file holds the attribute names.
+     * @param separator The field separator of the file.
+     * @param charset The charset of the file.
+     * @param useSnapshot Whether the relation should be loaded from and stored to a binary snapshot next to the file,
+     *                    which skips the parsing on every load after the first as long as the file does not change.
+     */
+    public Relation(Path filePath, boolean hasHeader, char separator, Charset charset, boolean useSnapshot) {
+        this(useSnapshot ?
+                RelationSnapshot.load(filePath, new ParallelCsvReader(hasHeader, separator, charset)) :
+                new ParallelCsvReader(hasHeader, separator, charset).read(filePath));
+    }
+
+    private Relation(Relation other) {
+        this.name = other.name;
+        this.attributes = other.attributes;
+        this.dictionaryColumns = other.dictionaryColumns;
+        this.arenaColumns = other.arenaColumns;
+        this.records = other.records;
+        this.columns = other.columns;
+        this.columnStatistics = other.columnStatistics;
+        this.rowOffsetIndex = other.rowOffsetIndex;
+        this.version = other.version;
+        this.changeLog = other.changeLog;
+        this.listeners = other.listeners;
+        this.deletedRecords = other.deletedRecords;
+    }
+
+    /**
+     * Returns the number of records in this relation.
+     * @return The number of records in this relation.
+     */
+    public synchronized int getNumRecords() {
+        if (this.records != null)
+            return this.records.length;
+        if (this.attributes.length == 0)
+            return 0;
+        if (this.dictionaryColumns != null && this.dictionaryColumns[0] != null)
+            return this.dictionaryColumns[0].size();
+        if (this.isArenaBacked(0))
+            return this.arenaColumns[0].size();
+        return this.columns[0].length;
+    }
+
+    /**
+     * Checks whether the provided attribute is currently stored dictionary-encoded, i.e., whether its dictionary
+     * column is available without encoding the attribute's values first.
+     * @param attribute The index of the attribute.
+     * @return true if the attribute is dictionary-encoded.
+     */
+    public synchronized boolean isDictionaryEncoded(int attribute) {
+        return this.dictionaryColumns != null && this.dictionaryColumns[attribute] != null;
+    }
+
+    /**
+     * Checks whether the values of the provided attribute are kept as encoded bytes in a ByteArena.
+     * @param attribute The index of the attribute.
+     * @return true if the attribute is byte-encoded.
+     */
+    public synchronized boolean isArenaBacked(int attribute) {
+        return this.arenaColumns != null && this.arenaColumns[attribute] != null;
+    }
+
+    /**
+     * Returns the values of the provided attribute in their current storage layout: byte-encoded attributes stay in their
+     * (possibly off-heap) arena and plain columns stay plain, so that columns above the loader's cardinality cutoff are
+     * never interned; only attributes that exist solely in the row-major records are dictionary-encoded.
+     * @param attribute The index of the attribute.
+     * @return The accessor for the attribute's values.
+     */
+    public synchronized ValueAccessor getValueAccessor(int attribute) {
+        if (this.isDictionaryEncoded(attribute))
+            return this.dictionaryColumns[attribute];
+        if (this.isArenaBacked(attribute))
+            return this.arenaColumns[attribute];
+        if (this.columns != null && this.columns[attribute] != null)
+            return ValueAccessor.of(this.columns[attribute]);
+        return this.getDictionaryColumn(attribute);
+    }
+
+    /**
+     * Returns the values of the provided attribute's live records, i.e., of all records that are not deleted, in their
+     * current storage layout; the accessor's record i is the record getLiveRecordIndexes()[i].
+     * @param attribute The index of the attribute.
+     * @return The accessor for the live records' values.
+     */
+    public synchronized ValueAccessor getLiveValueAccessor(int attribute) {
+        ValueAccessor values = this.getValueAccessor(attribute);
+        if (this.deletedRecords.isEmpty())
+            return values;
+        return values.select(this.getLiveRecordIndexes());
+    }
+
+    /**
+     * Returns the dictionary-encoded column of the provided attribute; a plain attribute is encoded on first access.
+     * @param attribute The index of the attribute.
+     * @return The dictionary-encoded column of the attribute.
+     */
+    public synchronized DictionaryColumn getDictionaryColumn(int attribute) {
+        if (this.dictionaryColumns == null)
+            this.dictionaryColumns = new DictionaryColumn[this.attributes.length];
+        if (this.dictionaryColumns[attribute] == null) {
+            if (this.isArenaBacked(attribute)) {
+                this.dictionaryColumns[attribute] = this.arenaColumns[attribute].toDictionaryColumn();
+            } else if (this.columns != null && this.columns[attribute] != null) {
+                this.dictionaryColumns[attribute] = DictionaryColumn.encode(this.columns[attribute]);
+            } else {
+                DictionaryColumn.Encoder encoder = new DictionaryColumn.Encoder(this.records.length);
+                for (String[] record : this.records)
+                    encoder.add(record[attribute]);
+                this.dictionaryColumns[attribute] = encoder.build();
             }
-            reader.close();
-        } catch (CsvValidationException | IOException e) {
-            throw new RuntimeException(e);
         }
+        return this.dictionaryColumns[attribute];
+    }
 
-        this.records = new String[records.size()][];
-        for (int i = 0; i < records.size(); i++)
-            this.records[i] = records.get(i);
+    /**
+     * Returns the dictionary-encoded columns of this relation. Attributes that are not dictionary-encoded yet, e.g.,
+     * because the relation was created from plain records, are encoded on first access and stay encoded; algorithms
+     * that only read the values should use getValueAccessor(), which keeps high-cardinality columns plain.
+     * @return The dictionary-encoded columns of this relation.
+     */
+    public synchronized DictionaryColumn[] getDictionaryColumns() {
+        for (int attribute = 0; attribute < this.attributes.length; attribute++)
+            this.getDictionaryColumn(attribute);
+        if (this.dictionaryColumns == null)
+            this.dictionaryColumns = new DictionaryColumn[0];
+        return this.dictionaryColumns;
+    }
 
-        if (!hasHeader && this.records.length != 0) {
-            this.attributes = new String[this.records[0].length];
-            for (int i = 0; i < this.records[0].length; i++)
-                this.attributes[i] = String.valueOf(i);
+    /**
+     * Returns the statistics of the provided attribute's column; statistics that the loader did not compute are
+     * computed on first access, with an exact distinct count if the attribute is dictionary-encoded or records were
+     * deleted. Deleted records are not part of the statistics.
+     * @param attribute The index of the attribute.
+     * @return The statistics of the attribute's column.
+     */
+    public synchronized ColumnStatistics getColumnStatistics(int attribute) {
+        if (this.columnStatistics == null)
+            this.columnStatistics = new ColumnStatistics[this.attributes.length];
+        if (this.columnStatistics[attribute] == null) {
+            if (!this.deletedRecords.isEmpty())
+                this.columnStatistics[attribute] = ColumnStatistics.of(this.getLiveValueAccessor(attribute));
+            else if (this.isArenaBacked(attribute) && !this.isDictionaryEncoded(attribute))
+                this.columnStatistics[attribute] = ColumnStatistics.of(this.arenaColumns[attribute]);
+            else if (!this.isDictionaryEncoded(attribute) && this.columns != null && this.columns[attribute] != null)
+                this.columnStatistics[attribute] = ColumnStatistics.of(this.columns[attribute]);
+            else
+                this.columnStatistics[attribute] = ColumnStatistics.of(this.getDictionaryColumn(attribute));
         }
+        return this.columnStatistics[attribute];
+    }
+
+    /**
+     * Returns the statistics of all columns of this relation; missing statistics are computed on first access.
+     * @return The statistics of this relation's columns.
+     */
+    public synchronized ColumnStatistics[] getColumnStatistics() {
+        for (int attribute = 0; attribute < this.attributes.length; attribute++)
+            this.getColumnStatistics(attribute);
+        if (this.columnStatistics == null)
+            this.columnStatistics = new ColumnStatistics[0];
+        return this.columnStatistics;
+    }
+
+    /**
+     * Returns the records of this relation in row-major order, including deleted records. The view is built on first
+     * access and then shared, so callers must not modify the returned arrays.
+     * @return The records of this relation.
+     */
+    public synchronized String[][] getRecords() {
+        if (this.records == null) {
+            String[][] records = new String[this.getNumRecords()][this.attributes.length];
+            for (int i = 0; i < this.attributes.length; i++) {
+                if (this.isDictionaryEncoded(i)) {
+                    DictionaryColumn column = this.dictionaryColumns[i];
+                    for (int j = 0; j < records.length; j++)
+                        records[j][i] = column.get(j);
+                } else if (this.isArenaBacked(i)) {
+                    ArenaColumn column = this.arenaColumns[i];
+                    for (int j = 0; j < records.length; j++)
+                        records[j][i] = column.get(j);
+                } else {
+                    String[] column = this.columns[i];
+                    for (int j = 0; j < records.length; j++)
+                        records[j][i] = column[j];
+                }
+            }
+            this.records = records;
+        }
+        return this.records;
+    }
+
+    /**
+     * Returns one record of this relation without building the row-major view of all records: the record is taken
+     * from that view if it exists, read from the CSV file if the relation keeps a row-offset index, or assembled from
+     * the columnar store otherwise. Appended records are never read from the file.
+     * @param recordIndex The index of the record.
+     * @return The record's values.
+     */
+    public synchronized String[] getRecord(int recordIndex) {
+        if (this.records != null)
+            return this.records[recordIndex];
+        if (this.rowOffsetIndex != null && recordIndex < this.rowOffsetIndex.size()) {
+            // Records that are shorter than the schema are padded with empty values, longer ones are truncated
+            String[] fields = this.rowOffsetIndex.readRecord(recordIndex);
+            String[] record = Arrays.copyOf(fields, this.attributes.length);
+            for (int i = fields.length; i < record.length; i++)
+                record[i] = "";
+            return record;
+        }
+
+        String[] record = new String[this.attributes.length];
+        for (int i = 0; i < this.attributes.length; i++) {
+            if (this.isDictionaryEncoded(i))
+                record[i] = this.dictionaryColumns[i].get(recordIndex);
+            else if (this.isArenaBacked(i))
+                record[i] = this.arenaColumns[i].get(recordIndex);
+            else
+                record[i] = this.columns[i][recordIndex];
+        }
+        return record;
+    }
+
+    /**
+     * Attaches the byte offsets of this relation's records in its CSV file, which lets getRecord() read records on
+     * demand after the row-major records were released.
+     * @param rowOffsetIndex The row-offset index of the relation's file.
+     */
+    public synchronized void setRowOffsetIndex(RowOffsetIndex rowOffsetIndex) {
+        this.rowOffsetIndex = rowOffsetIndex;
+    }
+
+    /**
+     * Releases the row-major view of the records; the values stay available in the columnar store, which is built
+     * first if the records are the relation's only store. Single records remain accessible through getRecord().
+     */
+    public synchronized void releaseRecords() {
+        if (this.records == null)
+            return;
+        for (int attribute = 0; attribute < this.attributes.length; attribute++)
+            if (!this.isDictionaryEncoded(attribute) && !this.isArenaBacked(attribute) && (this.columns == null || this.columns[attribute] == null))
+                this.getDictionaryColumn(attribute);
+        this.records = null;
+    }
+
+    /**
+     * Returns the values of the provided attribute; the view is built on first access and then shared, so callers
+     * must not modify the returned array.
+     * @param attribute The index of the attribute.
+     * @return The values of the attribute.
+     */
+    public synchronized String[] getColumn(int attribute) {
+        if (this.columns == null)
+            this.columns = new String[this.attributes.length][];
+        if (this.columns[attribute] == null) {
+            if (this.isArenaBacked(attribute) && !this.isDictionaryEncoded(attribute))
+                this.columns[attribute] = this.arenaColumns[attribute].toArray();
+            else
+                this.columns[attribute] = this.getDictionaryColumn(attribute).toArray();
+        }
+        return this.columns[attribute];
+    }
+
+    /**
+     * Returns the values of this relation in column-major order. The view is built on first access and then shared, so
+     * callers must not modify the returned arrays.
+     * @return The columns of this relation.
+     */
+    public synchronized String[][] getColumns() {
+        for (int attribute = 0; attribute < this.attributes.length; attribute++)
+            this.getColumn(attribute);
+        if (this.columns == null)
+            this.columns = new String[0][];
+        return this.columns;
+    }
+
+    /**
+     * Appends the provided records to this relation and records the change. Records that are shorter than the schema
+     * are padded with empty values, longer ones are truncated, and null values are stored as empty values. Byte-encoded
+     * attributes are dictionary-encoded by the first append, because their arenas cannot grow.
+     * @param newRecords The records to append.
+     * @return The change that lists the indexes of the appended records.
+     */
+    public synchronized RelationChange append(String[][] newRecords) {
+        int numRecords = this.getNumRecords();
+        String[][] normalized = new String[newRecords.length][];
+        for (int j = 0; j < newRecords.length; j++) {
+            normalized[j] = new String[this.attributes.length];
+            for (int i = 0; i < this.attributes.length; i++)
+                normalized[j][i] = (i < newRecords[j].length && newRecords[j][i] != null) ? newRecords[j][i] : "";
+        }
+
+        for (int attribute = 0; attribute < this.attributes.length; attribute++) {
+            String[] values = new String[normalized.length];
+            for (int j = 0; j < normalized.length; j++)
+                values[j] = normalized[j][attribute];
+
+            if (this.isArenaBacked(attribute)) {
+                this.getDictionaryColumn(attribute);
+                this.arenaColumns[attribute] = null;
+            }
+            if (this.isDictionaryEncoded(attribute))
+                this.dictionaryColumns[attribute] = this.dictionaryColumns[attribute].append(values);
+            if (this.columns != null && this.columns[attribute] != null) {
+                String[] column = Arrays.copyOf(this.columns[attribute], numRecords + values.length);
+                System.arraycopy(values, 0, column, numRecords, values.length);
+                this.columns[attribute] = column;
+            }
+        }
+        if (this.records != null) {
+            String[][] records = Arrays.copyOf(this.records, numRecords + normalized.length);
+            System.arraycopy(normalized, 0, records, numRecords, normalized.length);
+            this.records = records;
+        }
+        this.columnStatistics = null;
+
+        return this.log(IntStream.range(numRecords, numRecords + normalized.length).toArray(), new int[0]);
+    }
+
+    /**
+     * Deletes the provided records from this relation and records the change; the records keep their indexes, but are
+     * marked as deleted. Records that are already deleted are ignored.
+     * @param recordIndexes The indexes of the records to delete.
+     * @return The change that lists the indexes of the newly deleted records.
+     */
+    public synchronized RelationChange delete(int... recordIndexes) {
+        int numRecords = this.getNumRecords();
+        int[] deleted = Arrays.stream(recordIndexes).sorted().distinct().filter(recordIndex -> {
+            if (recordIndex < 0 || recordIndex >= numRecords)
+                throw new IndexOutOfBoundsException("Record " + recordIndex + " does not exist in relation " + this.name + " with " + numRecords + " records.");
+            return !this.deletedRecords.get(recordIndex);
+        }).toArray();
+        for (int recordIndex : deleted)
+            this.deletedRecords.set(recordIndex);
+        if (deleted.length > 0)
+            this.columnStatistics = null;
+
+        return this.log(new int[0], deleted);
+    }
+
+    private RelationChange log(int[] insertedRecords, int[] deletedRecords) {
+        RelationChange change = new RelationChange(++this.version, insertedRecords, deletedRecords);
+        this.changeLog.add(change);
+        for (Consumer<RelationChange> listener : this.listeners)
+            listener.accept(change);
+        return change;
+    }
+
+    /**
+     * Checks whether the provided record has been deleted.
+     * @param recordIndex The index of the record.
+     * @return true if the record is deleted.
+     */
+    public synchronized boolean isDeleted(int recordIndex) {
+        return this.deletedRecords.get(recordIndex);
+    }
+
+    /**
+     * Returns the indexes of all records that are not deleted in ascending order.
+     * @return The indexes of the live records.
+     */
+    public synchronized int[] getLiveRecordIndexes() {
+        int numRecords = this.getNumRecords();
+        int[] liveRecords = new int[numRecords - this.deletedRecords.cardinality()];
+        int recordIndex = this.deletedRecords.nextClearBit(0);
+        for (int i = 0; i < liveRecords.length; i++, recordIndex = this.deletedRecords.nextClearBit(recordIndex + 1))
+            liveRecords[i] = recordIndex;
+        return liveRecords;
+    }
+
+    /**
+     * Returns the number of records that are not deleted.
+     * @return The number of live records.
+     */
+    public synchronized int getNumLiveRecords() {
+        return this.getNumRecords() - this.deletedRecords.cardinality();
+    }
+
+    /**
+     * Returns the current version of this relation, i.e., the number of changes since its construction.
+     * @return The version of this relation.
+     */
+    public synchronized long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Returns all changes that were made after the provided version, e.g., the version that a consumer saw last.
+     * @param version The version after which the changes are requested.
+     * @return The changes in version order.
+     */
+    public synchronized List<RelationChange> getChangesSince(long version) {
+        if (version < 0 || version > this.version)
+            throw new IllegalArgumentException("Relation " + this.name + " has no version " + version + "; its current version is " + this.version + ".");
+        return List.copyOf(this.changeLog.subList((int) version, this.changeLog.size()));
+    }
+
+    /**
+     * Registers a listener that is notified of every future change; listeners are called by the changing thread while
+     * it still holds the relation's lock, so they see the relation in the version that the change created.
+     * @param listener The listener to notify.
+     */
+    public void subscribe(Consumer<RelationChange> listener) {
+        this.listeners.add(listener);
     }
 
-    public String[][] getColumns() {
-        String[][] columns = new String[this.attributes.length][];
-        for (int i = 0; i < columns.length; i++)
-            columns[i] = new String[this.records.length];
-        for (int j = 0; j < this.records.length; j++)
-            for (int i = 0; i < columns.length; i++)
-                columns[i][j] = this.records[j][i];
-        return columns;
+    public void unsubscribe(Consumer<RelationChange> listener) {
+        this.listeners.remove(listener);
     }
 
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
         builder.append(this.name).append(Arrays.toString(this.attributes));
-        for (String[] record : this.records)
+        for (String[] record : this.getRecords())
             builder.append("\r\n").append(Arrays.toString(record));
         return builder.toString();
     }
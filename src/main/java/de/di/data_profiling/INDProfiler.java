@@ -3,6 +3,8 @@ package de.di.data_profiling;
 import de.di.Relation;
 import de.di.data_profiling.structures.AttributeList;
 import de.di.data_profiling.structures.IND;
+import de.di.structures.ColumnStatistics;
+import de.di.structures.ValueAccessor;
 
 
 import java.util.*;
@@ -34,22 +36,21 @@ public class INDProfiler {
         Map<String, Set<String>> columnValueSets = new HashMap<>();
         Map<String, Relation> columnToRelation = new HashMap<>();
         Map<String, Integer> columnToIndex = new HashMap<>();
+        Map<String, ColumnStatistics> columnToStatistics = new HashMap<>();
 
         for (Relation rel : relations) {
-            String[][] records = rel.getRecords(); // CORRECT method from Relation
             int numCols = rel.getAttributes().length;
 
             for (int col = 0; col < numCols; col++) {
-                Set<String> values = new HashSet<>();
-                for (String[] row : records) {
-                    if (col < row.length) {
-                        values.add(row[col]);
-                    }
-                }
+                // The column dictionary already holds exactly the distinct values of the column, unless values occur
+                // only in deleted records; all other columns are grouped transiently, so that they stay un-interned
+                Set<String> values = (rel.isDictionaryEncoded(col) && rel.getNumLiveRecords() == rel.getNumRecords()) ?
+                        new HashSet<>(Arrays.asList(rel.getDictionaryColumn(col).getDictionary())) : distinctValues(rel.getLiveValueAccessor(col));
                 String columnId = rel.getName() + "#" + col;
                 columnValueSets.put(columnId, values);
                 columnToRelation.put(columnId, rel);
                 columnToIndex.put(columnId, col);
+                columnToStatistics.put(columnId, rel.getColumnStatistics(col));
             }
         }
 
@@ -57,6 +58,9 @@ public class INDProfiler {
             for (String refColumnId : columnValueSets.keySet()) {
                 if (depColumnId.equals(refColumnId)) continue;
 
+                // Value ranges, lengths, types, and distinct counts rule out most pairs without comparing their values
+                if (!columnToStatistics.get(depColumnId).mayBeIncludedIn(columnToStatistics.get(refColumnId))) continue;
+
                 Set<String> depValues = columnValueSets.get(depColumnId);
                 Set<String> refValues = columnValueSets.get(refColumnId);
 
@@ -79,6 +83,20 @@ public class INDProfiler {
         return inclusionDependencies;
     }
 
+    private static Set<String> distinctValues(ValueAccessor values) {
+        // Only the first record of every distinct value is decoded
+        int[] codes = values.encode();
+        BitSet seenCodes = new BitSet();
+        Set<String> distinctValues = new HashSet<>();
+        for (int recordIndex = 0; recordIndex < codes.length; recordIndex++) {
+            if (!seenCodes.get(codes[recordIndex])) {
+                seenCodes.set(codes[recordIndex]);
+                distinctValues.add(values.get(recordIndex));
+            }
+        }
+        return distinctValues;
+    }
+
     private List<Set<String>> toColumnSets(String[][] columns) {
         return Arrays.stream(columns)
                 .map(column -> new HashSet<>(new ArrayList<>(List.of(column))))
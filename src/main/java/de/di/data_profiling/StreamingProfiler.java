@@ -0,0 +1,89 @@
+package de.di.data_profiling;
+
+import de.di.Relation;
+import de.di.data_profiling.structures.ColumnSketch;
+import de.di.data_profiling.structures.IND;
+import de.di.helper.RelationSource;
+import de.di.structures.RecordBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The StreamingProfiler computes profiling results in a single pass over streamed relations, i.e., with memory that
+ * does not depend on the size of the inputs. Its results are approximate where exact answers would require holding
+ * the columns' values: IND candidates may contain false positives and distinct counts are estimates.
+ */
+public class StreamingProfiler {
+
+    // The number of bitmap bits per column sketch as a power of two.
+    private final int logBits;
+
+    public StreamingProfiler() {
+        this(ColumnSketch.DEFAULT_LOG_BITS);
+    }
+
+    public StreamingProfiler(int logBits) {
+        this.logBits = logBits;
+    }
+
+    /**
+     * Discovers all unary inclusion dependency candidates in the provided sources with one pass over each source. The
+     * result contains every valid unary IND, but may contain invalid ones whose values could not be told apart by the
+     * column sketches; these candidates can then be validated on much smaller inputs, e.g., on the involved columns only.
+     * The returned INDs reference the sources' schemata, i.e., relations without records, and list the referenced side
+     * first, as the INDProfiler does.
+     * @param sources The sources that should be profiled; they are consumed, but not closed.
+     * @return The list of unary inclusion dependency candidates.
+     */
+    public List<IND> discoverINDCandidates(List<RelationSource> sources) {
+        List<Relation> schemata = new ArrayList<>(sources.size());
+        List<ColumnSketch[]> sketches = new ArrayList<>(sources.size());
+        for (RelationSource source : sources) {
+            schemata.add(source.getSchema());
+            sketches.add(this.sketch(source));
+        }
+
+        List<IND> candidates = new ArrayList<>();
+        for (int dep = 0; dep < sketches.size(); dep++) {
+            for (int depAttribute = 0; depAttribute < sketches.get(dep).length; depAttribute++) {
+                for (int ref = 0; ref < sketches.size(); ref++) {
+                    for (int refAttribute = 0; refAttribute < sketches.get(ref).length; refAttribute++) {
+                        if (dep == ref && depAttribute == refAttribute)
+                            continue;
+                        if (sketches.get(dep)[depAttribute].mayBeIncludedIn(sketches.get(ref)[refAttribute]))
+                            candidates.add(new IND(schemata.get(ref), refAttribute, schemata.get(dep), depAttribute));
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Estimates the number of distinct values of every column in the provided source with one pass over the source.
+     * @param source The source that should be profiled; it is consumed, but not closed.
+     * @return The estimated number of distinct values per attribute.
+     */
+    public long[] estimateDistinctCounts(RelationSource source) {
+        ColumnSketch[] sketches = this.sketch(source);
+        long[] distinctCounts = new long[sketches.length];
+        for (int i = 0; i < sketches.length; i++)
+            distinctCounts[i] = sketches[i].estimateDistinctCount();
+        return distinctCounts;
+    }
+
+    private ColumnSketch[] sketch(RelationSource source) {
+        ColumnSketch[] sketches = new ColumnSketch[source.getAttributes().length];
+        for (int i = 0; i < sketches.length; i++)
+            sketches[i] = new ColumnSketch(this.logBits);
+
+        while (source.hasNext()) {
+            RecordBatch batch = source.next();
+            for (String[] record : batch.getRecords())
+                for (int i = 0; i < sketches.length; i++)
+                    sketches[i].add(record[i]);
+        }
+        return sketches;
+    }
+}
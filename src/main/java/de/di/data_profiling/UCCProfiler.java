@@ -10,7 +10,7 @@ import java.util.*;
 public class UCCProfiler {
 
     /**
-     * Discovers all minimal, non-trivial unique column combinations in the provided relation.
+     * Discovers all minimal, non-trivial unique column combinations in the provided relation; deleted records are ignored.
      * @param relation The relation that should be profiled for unique column combinations.
      * @return The list of all minimal, non-trivial unique column combinations in ths provided relation.
      */
@@ -22,11 +22,12 @@ public class UCCProfiler {
         // Calculate all unary UCCs and unary non-UCCs
         for (int attribute = 0; attribute < numAttributes; attribute++) {
             AttributeList attributes = new AttributeList(attribute);
-            PositionListIndex pli = new PositionListIndex(attributes, relation.getColumns()[attribute]);
-            if (pli.isUnique())
+            PositionListIndex pli = new PositionListIndex(attributes, relation.getLiveValueAccessor(attribute));
+            if (pli.isUnique()) {
                 uniques.add(new UCC(relation, attributes));
-            else
-                currentNonUniques.add(pli);
+                continue;
+            }
+            currentNonUniques.add(pli);
         }
 
         ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
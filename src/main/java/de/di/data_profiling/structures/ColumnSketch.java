@@ -0,0 +1,87 @@
+package de.di.data_profiling.structures;
+
+import de.di.structures.HyperLogLog;
+import it.unimi.dsi.fastutil.HashCommon;
+import lombok.Getter;
+
+/**
+ * A ColumnSketch summarizes the values of one column in constant memory while the column is being streamed: it
+ * tracks the minimum and maximum value and sets one bit per value in a fixed-size hash bitmap. If all values of a
+ * column A occur in a column B, then A's value range lies in B's value range and A's bitmap is a subset of B's bitmap;
+ * the sketches can therefore rule out inclusion dependencies without ever holding a column's values. The number of
+ * distinct values is estimated with a HyperLogLog sketch, because the bitmap saturates once the column has about as
+ * many distinct values as the bitmap has bits.
+ */
+@Getter
+public class ColumnSketch {
+
+    // The default number of bitmap bits as a power of two, i.e., 2^20 bits or 128 KB per column bitmap.
+    public static final int DEFAULT_LOG_BITS = 20;
+
+    // The hash bitmap; bit h(v) is set for every value v of the column.
+    private final long[] bitmap;
+    private final int mask;
+
+    // The lexicographically smallest and largest value of the column; null if the column is empty.
+    private String min;
+    private String max;
+
+    // The sketch that estimates the number of distinct values; it gets 2^(logBits - 4) registers, i.e., half of the
+    // bitmap's memory, which keeps the estimate's standard error at 0.4% for the default bitmap size.
+    private final HyperLogLog distinctSketch;
+
+    // The number of values, i.e., records that were added.
+    private long numValues;
+
+    public ColumnSketch() {
+        this(DEFAULT_LOG_BITS);
+    }
+
+    public ColumnSketch(final int logBits) {
+        int numBits = 1 << Math.max(6, logBits);
+        this.bitmap = new long[numBits >>> 6];
+        this.mask = numBits - 1;
+        this.distinctSketch = new HyperLogLog(logBits - 4);
+    }
+
+    /**
+     * Adds the provided value to this sketch.
+     * @param value The value to add.
+     */
+    public void add(final String value) {
+        int bit = HashCommon.mix(value.hashCode()) & this.mask;
+        this.bitmap[bit >>> 6] |= 1L << bit;
+        this.distinctSketch.add(value);
+
+        if (this.min == null || value.compareTo(this.min) < 0)
+            this.min = value;
+        if (this.max == null || value.compareTo(this.max) > 0)
+            this.max = value;
+        this.numValues++;
+    }
+
+    /**
+     * Checks whether the values of this sketch's column may all occur in the other sketch's column. A negative answer
+     * is exact; a positive answer may be a false positive if different values share the same bitmap bits.
+     * @param other The sketch of the potentially referenced column; must have the same number of bits.
+     * @return false if this sketch's column is definitely not included in the other column.
+     */
+    public boolean mayBeIncludedIn(final ColumnSketch other) {
+        if (this.min == null)
+            return true;
+        if (other.min == null || this.min.compareTo(other.min) < 0 || this.max.compareTo(other.max) > 0)
+            return false;
+        for (int i = 0; i < this.bitmap.length; i++)
+            if ((this.bitmap[i] & ~other.bitmap[i]) != 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * Estimates the number of distinct values in this sketch's column.
+     * @return The estimated number of distinct values.
+     */
+    public long estimateDistinctCount() {
+        return Math.min(this.distinctSketch.estimate(), this.numValues);
+    }
+}
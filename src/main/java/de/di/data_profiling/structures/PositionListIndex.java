@@ -1,5 +1,7 @@
 package de.di.data_profiling.structures;
 
+import de.di.structures.DictionaryColumn;
+import de.di.structures.ValueAccessor;
 import it.unimi.dsi.fastutil.ints.Int2ObjectArrayMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
@@ -21,6 +23,26 @@ public class PositionListIndex {
         this.invertedClusters = this.calculateInverted(this.clusters, values.length);
     }
 
+    public PositionListIndex(final AttributeList attributes, final DictionaryColumn column) {
+        this.attributes = attributes;
+        this.clusters = this.calculateClusters(column.getCodes(), column.cardinality());
+        this.invertedClusters = this.calculateInverted(this.clusters, column.size());
+    }
+
+    /**
+     * Builds the position list index from a column in any storage layout; the records are grouped on the stored
+     * representation of their values, e.g., on their bytes in a ByteArena, without decoding them into Strings.
+     */
+    public PositionListIndex(final AttributeList attributes, final ValueAccessor values) {
+        this.attributes = attributes;
+        int[] codes = values.encode();
+        int cardinality = 0;
+        for (int code : codes)
+            cardinality = Math.max(cardinality, code + 1);
+        this.clusters = this.calculateClusters(codes, cardinality);
+        this.invertedClusters = this.calculateInverted(this.clusters, codes.length);
+    }
+
     public PositionListIndex(final AttributeList attributes, final List<IntArrayList> clusters, int relationLength) {
         this.attributes = attributes;
         this.clusters = clusters;
@@ -36,6 +58,26 @@ public class PositionListIndex {
         return invertedIndex.values().stream().filter(cluster -> cluster.size() > 1).collect(Collectors.toList());
     }
 
+    private List<IntArrayList> calculateClusters(final int[] codes, final int cardinality) {
+        // The dictionary codes already identify equal values, so clusters can be formed by counting codes
+        int[] counts = new int[cardinality];
+        for (int code : codes)
+            counts[code]++;
+
+        IntArrayList[] codeToCluster = new IntArrayList[counts.length];
+        List<IntArrayList> clusters = new ArrayList<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 1) {
+                codeToCluster[code] = new IntArrayList(counts[code]);
+                clusters.add(codeToCluster[code]);
+            }
+        }
+        for (int recordIndex = 0; recordIndex < codes.length; recordIndex++)
+            if (codeToCluster[codes[recordIndex]] != null)
+                codeToCluster[codes[recordIndex]].add(recordIndex);
+        return clusters;
+    }
+
     private int[] calculateInverted(List<IntArrayList> clusters, int relationLength) {
         int[] invertedClusters = new int[relationLength];
         Arrays.fill(invertedClusters, -1);
@@ -87,6 +87,7 @@
 package de.di.duplicate_detection;
 
 import de.di.duplicate_detection.structures.AttrSimWeight;
+import de.di.similarity_measures.PreparedValue;
 import de.di.similarity_measures.SimilarityMeasure;
 import lombok.Getter;
 
@@ -111,9 +112,17 @@ public class RecordComparator {
     @Getter
     private double threshold;
 
+    // The sum of the weights of all AttrSimWeight objects after a certain index, i.e., the largest similarity that the
+    // attributes after that index can add to a tuple similarity.
+    private double[] remainingWeights;
+
     public RecordComparator(List<AttrSimWeight> attrSimWeights, double threshold) {
         this.attrSimWeights = this.normalize(attrSimWeights);
         this.threshold = threshold;
+
+        this.remainingWeights = new double[this.attrSimWeights.size()];
+        for (int i = this.attrSimWeights.size() - 2; i >= 0; i--)
+            this.remainingWeights[i] = this.remainingWeights[i + 1] + this.attrSimWeights.get(i + 1).getWeight();
     }
 
     /**
@@ -167,6 +176,82 @@ public class RecordComparator {
         return recordSimilarity;
     }
 
+    /**
+     * Compares the two provided tuples like compare(tuple1, tuple2), but stops as soon as the tuple similarity provably
+     * cannot reach the provided minimum similarity. Every attribute similarity is calculated with the smallest value
+     * that still allows the minimum if all remaining attributes were fully similar, so that similarity measures with
+     * threshold-bounded calculations can stop early.
+     * @param tuple1 The first tuple for the comparison.
+     * @param tuple2 The second tuple for the comparison.
+     * @param minSimilarity The smallest tuple similarity of interest, e.g., the threshold.
+     * @return The similarity of the two tuples if it is at least minSimilarity; otherwise, the similarity or
+     * SimilarityMeasure.BELOW_THRESHOLD.
+     */
+    public double compare(String[] tuple1, String[] tuple2, double minSimilarity) {
+        double recordSimilarity = 0;
+        for (int i = 0; i < this.attrSimWeights.size(); i++) {
+            AttrSimWeight attrSimWeight = this.attrSimWeights.get(i);
+            int attrIndex = attrSimWeight.getAttribute();
+            double weight = attrSimWeight.getWeight();
+
+            double sim;
+            if (weight > 0) {
+                // The remaining attributes contribute at most their weights; the tolerance absorbs rounding errors
+                double minAttributeSimilarity = (minSimilarity - recordSimilarity - this.remainingWeights[i]) / weight - 1e-9;
+                sim = attrSimWeight.getSimilarityMeasure().calculate(tuple1[attrIndex], tuple2[attrIndex], minAttributeSimilarity);
+                if (sim == SimilarityMeasure.BELOW_THRESHOLD)
+                    return SimilarityMeasure.BELOW_THRESHOLD;
+            } else {
+                sim = attrSimWeight.getSimilarityMeasure().calculate(tuple1[attrIndex], tuple2[attrIndex]);
+            }
+            recordSimilarity += weight * sim;
+        }
+        return recordSimilarity;
+    }
+
+    /**
+     * Prepares the values of the provided tuple for repeated comparisons with compare(PreparedValue[], PreparedValue[],
+     * double), so that every similarity measure derives its per-value state, e.g., tokens, only once per tuple.
+     * @param tuple The tuple that should be prepared.
+     * @return The prepared values in the order of the internal AttrSimWeight objects.
+     */
+    public PreparedValue[] prepare(String[] tuple) {
+        PreparedValue[] prepared = new PreparedValue[this.attrSimWeights.size()];
+        for (int i = 0; i < prepared.length; i++) {
+            AttrSimWeight attrSimWeight = this.attrSimWeights.get(i);
+            prepared[i] = attrSimWeight.getSimilarityMeasure().prepare(tuple[attrSimWeight.getAttribute()]);
+        }
+        return prepared;
+    }
+
+    /**
+     * Compares two prepared tuples like compare(String[], String[], double).
+     * @param prepared1 The first prepared tuple for the comparison.
+     * @param prepared2 The second prepared tuple for the comparison.
+     * @param minSimilarity The smallest tuple similarity of interest, e.g., the threshold.
+     * @return The similarity of the two tuples if it is at least minSimilarity; otherwise, the similarity or
+     * SimilarityMeasure.BELOW_THRESHOLD.
+     */
+    public double compare(PreparedValue[] prepared1, PreparedValue[] prepared2, double minSimilarity) {
+        double recordSimilarity = 0;
+        for (int i = 0; i < this.attrSimWeights.size(); i++) {
+            AttrSimWeight attrSimWeight = this.attrSimWeights.get(i);
+            double weight = attrSimWeight.getWeight();
+
+            double sim;
+            if (weight > 0) {
+                double minAttributeSimilarity = (minSimilarity - recordSimilarity - this.remainingWeights[i]) / weight - 1e-9;
+                sim = attrSimWeight.getSimilarityMeasure().calculate(prepared1[i], prepared2[i], minAttributeSimilarity);
+                if (sim == SimilarityMeasure.BELOW_THRESHOLD)
+                    return SimilarityMeasure.BELOW_THRESHOLD;
+            } else {
+                sim = attrSimWeight.getSimilarityMeasure().calculate(prepared1[i], prepared2[i]);
+            }
+            recordSimilarity += weight * sim;
+        }
+        return recordSimilarity;
+    }
+
     /**
      * Decides if the provided similarity is higher than the internal similarity threshold and, therefore,
      * characterizes a duplicate.
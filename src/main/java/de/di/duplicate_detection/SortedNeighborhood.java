@@ -212,66 +212,114 @@
 
 package de.di.duplicate_detection;
 
+import de.di.PartitionedRelation;
 import de.di.Relation;
 import de.di.duplicate_detection.structures.AttrSimWeight;
 import de.di.duplicate_detection.structures.Duplicate;
+import de.di.helper.RelationSource;
 import de.di.similarity_measures.Jaccard;
 import de.di.similarity_measures.Levenshtein;
+import de.di.similarity_measures.PreparedValue;
 import de.di.similarity_measures.helper.Tokenizer;
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import de.di.structures.DictionaryColumn;
+import de.di.structures.RecordBatch;
 
 import java.util.*;
 
 public class SortedNeighborhood {
 
-    @Data
-    @AllArgsConstructor
-    private static class Record {
-        private int index;
-        private String[] values;
-    }
-
     public Set<Duplicate> detectDuplicates(Relation relation, int[] sortingKeys, int windowSize, RecordComparator recordComparator) {
         Set<Duplicate> duplicates = new HashSet<>();
 
-        Record[] records = new Record[relation.getRecords().length];
-        for (int i = 0; i < relation.getRecords().length; i++) {
-            records[i] = new Record(i, relation.getRecords()[i]);
+        Set<String> seenPairs = new HashSet<>();
+
+        // Only the live records are sorted, so that deleted records neither become duplicates nor take window slots
+        int[] liveRecords = relation.getLiveRecordIndexes();
+        for (int sortingKey : sortingKeys) {
+            // Sort on the key column in its storage layout, which decodes every distinct key only once
+            int[] order = relation.getLiveValueAccessor(sortingKey).sortedOrder(Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+            for (int i = 0; i < order.length; i++)
+                order[i] = liveRecords[order[i]];
+            this.compareWindows(relation, order, windowSize, recordComparator, seenPairs, duplicates);
         }
 
+        return duplicates;
+    }
+
+    /**
+     * Detects the duplicates in a partitioned relation. The sorting orders are built partition-parallel from sorted runs
+     * per partition and are the same as the orders for the concatenated relation, so that the result is the same, too.
+     * The returned duplicates reference the concatenation of the partitions.
+     */
+    public Set<Duplicate> detectDuplicates(PartitionedRelation partitionedRelation, int[] sortingKeys, int windowSize, RecordComparator recordComparator) {
+        Set<Duplicate> duplicates = new HashSet<>();
+        Relation relation = partitionedRelation.toRelation();
         Set<String> seenPairs = new HashSet<>();
 
         for (int sortingKey : sortingKeys) {
-            Record[] sortedRecords = records.clone();
+            int[] order = partitionedRelation.getSortedOrder(sortingKey, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+            this.compareWindows(relation, order, windowSize, recordComparator, seenPairs, duplicates);
+        }
 
-            // More robust sort with null handling
-            Arrays.sort(sortedRecords, Comparator.comparing(
-                    r -> r.getValues()[sortingKey],
-                    Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)
-            ));
+        return duplicates;
+    }
 
-            for (int i = 0; i < sortedRecords.length; i++) {
-                // Window includes 'windowSize' records starting at i, compare i to i+1 ... i+windowSize-1
-                for (int j = i + 1; j <= i + windowSize - 1 && j < sortedRecords.length; j++) {
-                    Record r1 = sortedRecords[i];
-                    Record r2 = sortedRecords[j];
-                    int idx1 = Math.min(r1.getIndex(), r2.getIndex());
-                    int idx2 = Math.max(r1.getIndex(), r2.getIndex());
-                    String pairKey = idx1 + "-" + idx2;
+    private void compareWindows(Relation relation, int[] order, int windowSize, RecordComparator recordComparator, Set<String> seenPairs, Set<Duplicate> duplicates) {
+        // The prepared records of the current window in a ring buffer, so that every record is read and prepared once
+        // per pass and not once per comparison; single records are read without building the row-major view
+        int ringSize = Math.max(1, windowSize);
+        PreparedValue[][] prepared = new PreparedValue[ringSize][];
+        int numPrepared = 0;
+        for (int i = 0; i < order.length; i++) {
+            for (; numPrepared < order.length && numPrepared <= i + windowSize - 1; numPrepared++)
+                prepared[numPrepared % ringSize] = recordComparator.prepare(relation.getRecord(order[numPrepared]));
 
-                    if (!seenPairs.contains(pairKey)) {
-                        double sim = recordComparator.similarity(r1.getValues(), r2.getValues());
-                        if (sim >= recordComparator.getThreshold()) {
-                            seenPairs.add(pairKey);
-                            duplicates.add(new Duplicate(idx1, idx2, sim, relation));
-                        }
+            // Window includes 'windowSize' records starting at i, compare i to i+1 ... i+windowSize-1
+            for (int j = i + 1; j <= i + windowSize - 1 && j < order.length; j++) {
+                int idx1 = Math.min(order[i], order[j]);
+                int idx2 = Math.max(order[i], order[j]);
+                String pairKey = idx1 + "-" + idx2;
+
+                if (!seenPairs.contains(pairKey)) {
+                    // Most window pairs are non-duplicates, so the comparison may stop as soon as the threshold is unreachable
+                    double sim = recordComparator.compare(prepared[i % ringSize], prepared[j % ringSize], recordComparator.getThreshold());
+                    if (sim >= recordComparator.getThreshold()) {
+                        seenPairs.add(pairKey);
+                        duplicates.add(new Duplicate(idx1, idx2, sim, relation));
                     }
                 }
             }
         }
+    }
 
-        return duplicates;
+    /**
+     * Extracts the sorting orders of the Sorted Neighborhood Method from a streamed relation in a single pass. Only the
+     * sorting key values are kept, dictionary-encoded, so that the memory footprint is independent of the records'
+     * other attributes. It is not bounded, though: every sorting key needs one int code per record plus its distinct
+     * values, and the orders need one more int per record and key. The orders are the same as the ones
+     * detectDuplicates() uses on the loaded relation.
+     * @param source The source whose records should be sorted; it is consumed, but not closed.
+     * @param sortingKeys The attribute indexes that should be used as sorting keys.
+     * @return For every sorting key, the record indexes in sorted order.
+     */
+    public static int[][] extractSortedOrders(RelationSource source, int[] sortingKeys) {
+        DictionaryColumn.Encoder[] encoders = new DictionaryColumn.Encoder[sortingKeys.length];
+        for (int k = 0; k < sortingKeys.length; k++)
+            encoders[k] = new DictionaryColumn.Encoder();
+
+        while (source.hasNext()) {
+            RecordBatch batch = source.next();
+            for (String[] record : batch.getRecords())
+                for (int k = 0; k < sortingKeys.length; k++)
+                    encoders[k].add(record[sortingKeys[k]]);
+        }
+
+        // The encoded keys are sorted like the loaded columns, so that comparator-equal keys share one rank and their
+        // records keep their input order
+        int[][] orders = new int[sortingKeys.length][];
+        for (int k = 0; k < sortingKeys.length; k++)
+            orders[k] = encoders[k].build().sortedOrder(Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+        return orders;
     }
 
     public static RecordComparator suggestRecordComparatorFor(Relation relation) {
@@ -35,8 +35,8 @@ public class Duplicate implements Comparable<Duplicate> {
 
     public String toNaturalString() {
         return "Duplicate(" + String.format("%1.6f", this.similarity) + ",\n" +
-                "     {" + this.index1 + ":" + Arrays.toString(this.relation.getRecords()[this.index1]) + "}\n" +
-                "     {" + this.index2 + ":" + Arrays.toString(this.relation.getRecords()[this.index2]) + "})";
+                "     {" + this.index1 + ":" + Arrays.toString(this.relation.getRecord(this.index1)) + "}\n" +
+                "     {" + this.index2 + ":" + Arrays.toString(this.relation.getRecord(this.index2)) + "})";
     }
 
     @Override
@@ -0,0 +1,216 @@
+package de.di.helper;
+
+import de.di.structures.ByteArena;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A CsvByteParser splits the raw bytes of an ASCII-compatible CSV file into records and fields. It follows the parsing
+ * rules of the opencsv configuration that Relation has always used (quote char '"', escape char '\\', non-strict
+ * quotes, no whitespace trimming, empty unquoted fields as null, and CR, LF or CRLF line breaks), so that both
+ * produce identical records. If the parser is given a ByteArena, it copies the fields' bytes into that arena instead
+ * of decoding them into Strings. The parser is not thread-safe; every thread needs its own instance.
+ */
+class CsvByteParser {
+
+    private static final byte QUOTE = '"';
+    private static final byte ESCAPE = '\\';
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    // Quotes that appear within the first positions of a line are never kept as embedded quotes (see opencsv).
+    private static final int BEGINNING_OF_LINE = 3;
+
+    private final ByteBuffer buffer;
+    private final byte separator;
+    private final Charset charset;
+
+    // The fields of the most recently parsed record.
+    private final List<String> fields = new ArrayList<>();
+
+    // The arena that receives the fields' bytes, and the arena addresses and lengths of the most recent record's fields.
+    private final ByteArena arena;
+    private final LongArrayList fieldAddresses = new LongArrayList();
+    private final IntArrayList fieldLengths = new IntArrayList();
+
+    // The bytes of the field that is currently being parsed.
+    private byte[] field = new byte[64];
+    private int fieldLength = 0;
+
+    CsvByteParser(final ByteBuffer buffer, final char separator, final Charset charset) {
+        this(buffer, separator, charset, null);
+    }
+
+    CsvByteParser(final ByteBuffer buffer, final char separator, final Charset charset, final ByteArena arena) {
+        this.buffer = buffer;
+        this.separator = (byte) separator;
+        this.charset = charset;
+        this.arena = arena;
+    }
+
+    /**
+     * Returns the number of fields of the most recently parsed record.
+     * @return The number of fields.
+     */
+    int getNumFields() {
+        return (this.arena == null) ? this.fields.size() : this.fieldAddresses.size();
+    }
+
+    /**
+     * Returns the arena address of a field of the most recently parsed record; requires an arena.
+     * @param field The index of the field.
+     * @return The arena address of the field's bytes.
+     */
+    long getFieldAddress(final int field) {
+        return this.fieldAddresses.getLong(field);
+    }
+
+    /**
+     * Returns the byte length of a field of the most recently parsed record; requires an arena.
+     * @param field The index of the field.
+     * @return The number of bytes of the field; null fields have length 0.
+     */
+    int getFieldLength(final int field) {
+        return this.fieldLengths.getInt(field);
+    }
+
+    /**
+     * Returns the fields of the most recently parsed record. The list is reused by the next call to parseRecord().
+     * @return The fields of the most recently parsed record.
+     */
+    List<String> getFields() {
+        return this.fields;
+    }
+
+    /**
+     * Parses the record that starts at the provided buffer position.
+     * @param from The buffer position at which the record starts.
+     * @param limit The buffer position at which the input ends.
+     * @return The buffer position directly after the record and its line break.
+     */
+    int parseRecord(final int from, final int limit) {
+        this.fields.clear();
+        this.fieldAddresses.clear();
+        this.fieldLengths.clear();
+        this.fieldLength = 0;
+
+        boolean inQuotes = false;
+        boolean inField = false;
+        boolean fromQuotedField = false;
+        int lineStart = from;
+
+        int p = from;
+        while (p < limit) {
+            byte c = this.buffer.get(p);
+
+            if (c == LF || c == CR) {
+                int next = p + 1;
+                if (c == CR && next < limit && this.buffer.get(next) == LF)
+                    next++;
+                if (!inQuotes) {
+                    this.endField(fromQuotedField);
+                    return next;
+                }
+                // A quoted field continues on the next line; line breaks within a record are normalized to LF
+                this.append(LF);
+                p = next;
+                lineStart = next;
+                continue;
+            }
+
+            boolean hasNext = p + 1 < limit && this.buffer.get(p + 1) != LF && this.buffer.get(p + 1) != CR;
+            byte next = hasNext ? this.buffer.get(p + 1) : 0;
+
+            if (c == ESCAPE) {
+                inField = true;
+                if (hasNext && (next == QUOTE || next == ESCAPE || next == this.separator)) {
+                    this.append(next);
+                    p += 2;
+                } else {
+                    p++;
+                }
+            } else if (c == QUOTE) {
+                if ((inQuotes || inField) && hasNext && next == QUOTE) {
+                    this.append(next);
+                    p += 2;
+                } else {
+                    inQuotes = !inQuotes;
+                    if (this.fieldLength == 0)
+                        fromQuotedField = true;
+                    // The tricky case of an embedded quote in the middle of a field: a,bc"d"ef,g
+                    if (p - lineStart + 1 > BEGINNING_OF_LINE && this.buffer.get(p - 1) != this.separator && hasNext && next != this.separator)
+                        this.append(c);
+                    p++;
+                }
+                inField = !inField;
+            } else if (c == this.separator && !inQuotes) {
+                this.endField(fromQuotedField);
+                fromQuotedField = false;
+                inField = false;
+                p++;
+            } else {
+                this.append(c);
+                inField = true;
+                fromQuotedField = true;
+                p++;
+            }
+        }
+
+        if (inQuotes)
+            throw new RuntimeException("Unterminated quoted field in record starting at position " + from);
+        this.endField(fromQuotedField);
+        return limit;
+    }
+
+    private void append(final byte b) {
+        if (this.fieldLength == this.field.length) {
+            byte[] grown = new byte[this.field.length * 2];
+            System.arraycopy(this.field, 0, grown, 0, this.fieldLength);
+            this.field = grown;
+        }
+        this.field[this.fieldLength++] = b;
+    }
+
+    private void endField(final boolean fromQuotedField) {
+        if (this.arena != null) {
+            this.fieldAddresses.add((this.fieldLength == 0) ? 0 : this.arena.add(this.field, 0, this.fieldLength));
+            this.fieldLengths.add(this.fieldLength);
+        } else if (this.fieldLength == 0) {
+            this.fields.add(fromQuotedField ? "" : null);
+        } else {
+            this.fields.add(new String(this.field, 0, this.fieldLength, this.charset));
+        }
+        this.fieldLength = 0;
+    }
+
+    /**
+     * Finds the first position at or after the provided position that directly follows a line break, i.e., the first
+     * position at which a record could start. Whether a record actually starts there depends on the quoting of the
+     * preceding records, which this method does not know.
+     * @param buffer The buffer to search in.
+     * @param from The position at which the search starts; position from - 1 must be readable if from > 0.
+     * @param limit The buffer position at which the input ends.
+     * @return The first possible record start at or after from, or limit if there is none.
+     */
+    static int nextLineStart(final ByteBuffer buffer, final int from, final int limit) {
+        if (from == 0)
+            return 0;
+        byte previous = buffer.get(from - 1);
+        if (previous == LF || (previous == CR && (from >= limit || buffer.get(from) != LF)))
+            return from;
+
+        for (int p = from; p < limit; p++) {
+            byte c = buffer.get(p);
+            if (c == LF)
+                return p + 1;
+            if (c == CR)
+                return (p + 1 < limit && buffer.get(p + 1) == LF) ? p + 2 : p + 1;
+        }
+        return limit;
+    }
+}
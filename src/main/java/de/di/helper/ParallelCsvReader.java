@@ -0,0 +1,529 @@
+package de.di.helper;
+
+import com.opencsv.CSVParser;
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.enums.CSVReaderNullFieldIndicator;
+import com.opencsv.exceptions.CsvValidationException;
+import de.di.Relation;
+import de.di.structures.ArenaColumn;
+import de.di.structures.ByteArena;
+import de.di.structures.ColumnStatistics;
+import de.di.structures.DictionaryColumn;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+/**
+ * A ParallelCsvReader loads a CSV file into a Relation using all available cores. The file is memory-mapped and cut
+ * into chunks of roughly equal size; every chunk is parsed and dictionary-encoded by its own task, and the chunk
+ * results are finally merged into the relation's columns. Because a quoted value may contain line breaks, the start
+ * of every chunk but the first is only a guess; after parsing, the reader checks that each chunk starts exactly where
+ * its predecessor ended and re-parses the chunks whose guess was wrong.
+ */
+@Getter
+public class ParallelCsvReader {
+
+    // The default number of bytes that one parsing task processes.
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    // The default number of distinct values up to which a column's values are interned, i.e., dictionary-encoded.
+    public static final int DEFAULT_CARDINALITY_CUTOFF = 1 << 16;
+
+    private final boolean hasHeader;
+    private final char separator;
+    private final Charset charset;
+
+    // The maximum number of threads used for parsing.
+    private final int parallelism;
+
+    // The nominal number of bytes per chunk; files smaller than this are parsed by the calling thread.
+    private final int chunkSize;
+
+    // The maximum number of distinct values of an interned column; columns with more distinct values are kept plain.
+    private final int cardinalityCutoff;
+
+    // Whether values are kept as encoded bytes in a ByteArena instead of being decoded into Strings.
+    private final boolean byteValues;
+
+    // Whether the ByteArena pages of byte-encoded values are allocated off-heap.
+    private final boolean offHeap;
+
+    // Whether the reader attaches a RowOffsetIndex to the relations it reads.
+    private final boolean rowOffsets;
+
+    public ParallelCsvReader(boolean hasHeader, char separator, Charset charset) {
+        this(hasHeader, separator, charset, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelCsvReader(boolean hasHeader, char separator, Charset charset, int parallelism, int chunkSize) {
+        this(hasHeader, separator, charset, parallelism, chunkSize, DEFAULT_CARDINALITY_CUTOFF);
+    }
+
+    public ParallelCsvReader(boolean hasHeader, char separator, Charset charset, int parallelism, int chunkSize, int cardinalityCutoff) {
+        this(hasHeader, separator, charset, parallelism, chunkSize, cardinalityCutoff, false);
+    }
+
+    /**
+     * Creates a reader.
+     * @param hasHeader Whether the first record of a file holds the attribute names.
+     * @param separator The field separator of the files.
+     * @param charset The charset of the files.
+     * @param parallelism The maximum number of threads used for parsing one file.
+     * @param chunkSize The nominal number of bytes that one parsing task processes.
+     * @param cardinalityCutoff The maximum number of distinct values up to which a column is dictionary-encoded.
+     * @param byteValues Whether the values should be kept as encoded bytes in an arena instead of Strings; only
+     *                   possible for charsets that can be parsed on byte level and ignored otherwise. Columns
+     *                   within the cardinality cutoff are dictionary-encoded after grouping their bytes, all other
+     *                   columns stay byte-encoded.
+     */
+    public ParallelCsvReader(boolean hasHeader, char separator, Charset charset, int parallelism, int chunkSize, int cardinalityCutoff, boolean byteValues) {
+        this(hasHeader, separator, charset, parallelism, chunkSize, cardinalityCutoff, byteValues, false);
+    }
+
+    /**
+     * Creates a reader whose byte-encoded values may live off-heap.
+     * @param offHeap Whether the arenas of byte-encoded values allocate their pages off-heap, where the garbage collector
+     *                never has to scan or copy them; only relevant if byteValues is set. The dictionaries of the columns
+     *                within the cardinality cutoff are decoded onto the heap nevertheless, so that the heap holds at most
+     *                cardinalityCutoff Strings per column plus one int code per value.
+     * @see #ParallelCsvReader(boolean, char, Charset, int, int, int, boolean)
+     */
+    public ParallelCsvReader(boolean hasHeader, char separator, Charset charset, int parallelism, int chunkSize, int cardinalityCutoff, boolean byteValues, boolean offHeap) {
+        this(hasHeader, separator, charset, parallelism, chunkSize, cardinalityCutoff, byteValues, offHeap, false);
+    }
+
+    private ParallelCsvReader(boolean hasHeader, char separator, Charset charset, int parallelism, int chunkSize, int cardinalityCutoff, boolean byteValues, boolean offHeap, boolean rowOffsets) {
+        this.hasHeader = hasHeader;
+        this.separator = separator;
+        this.charset = charset;
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.cardinalityCutoff = Math.max(0, cardinalityCutoff);
+        this.byteValues = byteValues;
+        this.offHeap = offHeap;
+        this.rowOffsets = rowOffsets;
+    }
+
+    /**
+     * Returns a copy of this reader that uses the provided parallelism.
+     * @param parallelism The maximum number of threads used for parsing one file.
+     * @return The reader with the provided parallelism.
+     */
+    public ParallelCsvReader withParallelism(int parallelism) {
+        return new ParallelCsvReader(this.hasHeader, this.separator, this.charset, parallelism, this.chunkSize, this.cardinalityCutoff, this.byteValues, this.offHeap, this.rowOffsets);
+    }
+
+    /**
+     * Returns a copy of this reader that does or does not attach a RowOffsetIndex to the relations it reads. The index
+     * records the byte offset of every record while the file is parsed; it is only built for charsets that can be
+     * parsed on byte level.
+     * @param rowOffsets Whether the read relations should keep the offsets of their records in the file.
+     * @return The reader with the provided option.
+     */
+    public ParallelCsvReader withRowOffsets(boolean rowOffsets) {
+        return new ParallelCsvReader(this.hasHeader, this.separator, this.charset, this.parallelism, this.chunkSize, this.cardinalityCutoff, this.byteValues, this.offHeap, rowOffsets);
+    }
+
+    private static class Chunk {
+        private long start;
+        private long end;
+        private final long nominalEnd;
+        private boolean failed;
+        private DictionaryColumn.Encoder[] encoders;
+
+        // The chunk's values if they are kept as bytes: their arena and every attribute's value addresses and lengths.
+        private ByteArena arena;
+        private LongArrayList[] addresses;
+        private IntArrayList[] lengths;
+
+        // The file offset of every parsed record if the reader keeps row offsets; null otherwise.
+        private LongArrayList recordStarts;
+
+        private Chunk(long start, long nominalEnd) {
+            this.start = start;
+            this.nominalEnd = nominalEnd;
+        }
+    }
+
+    /**
+     * Reads the provided CSV file into a relation.
+     * @param filePath The path of the CSV file.
+     * @return The relation with the file's contents.
+     */
+    public Relation read(Path filePath) {
+        String name = filePath.getFileName().toString().split("\\.")[0];
+
+        if (!supportsByteParsing(this.charset, this.separator))
+            return this.readSequentially(filePath, name);
+
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            // Read the first record to determine the schema
+            MappedByteBuffer head = map(channel, 0, size);
+            CsvByteParser headParser = new CsvByteParser(head, this.separator, this.charset);
+            String[] attributes = null;
+            long dataStart = 0;
+            if (size > 0) {
+                int end = headParser.parseRecord(0, head.limit());
+                List<String> fields = headParser.getFields();
+                if (this.hasHeader) {
+                    attributes = fields.toArray(new String[0]);
+                    dataStart = end;
+                } else {
+                    attributes = new String[fields.size()];
+                    for (int i = 0; i < attributes.length; i++)
+                        attributes[i] = String.valueOf(i);
+                }
+            }
+            if (attributes == null)
+                return new Relation(name, new String[0], new DictionaryColumn[0]);
+            final int numAttributes = attributes.length;
+
+            // Cut the data section into chunks and parse them in parallel
+            int numChunks = (int) Math.max(1, Math.min(Integer.MAX_VALUE, (size - dataStart + this.chunkSize - 1) / this.chunkSize));
+            List<Chunk> chunks = new ArrayList<>(numChunks);
+            for (int i = 0; i < numChunks; i++) {
+                long start = dataStart + (size - dataStart) * i / numChunks;
+                long nominalEnd = dataStart + (size - dataStart) * (i + 1) / numChunks;
+                chunks.add(new Chunk(start, nominalEnd));
+            }
+
+            if (numChunks == 1 || this.parallelism == 1) {
+                for (int i = 0; i < numChunks; i++)
+                    this.parseChunk(channel, size, chunks.get(i), i > 0, numAttributes);
+            } else {
+                ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.parallelism, numChunks));
+                try {
+                    List<Callable<Void>> tasks = new ArrayList<>(numChunks);
+                    for (int i = 0; i < numChunks; i++) {
+                        final Chunk chunk = chunks.get(i);
+                        final boolean guessStart = i > 0;
+                        tasks.add(() -> {
+                            this.parseChunk(channel, size, chunk, guessStart, numAttributes);
+                            return null;
+                        });
+                    }
+                    for (Future<Void> future : executor.invokeAll(tasks))
+                        future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                } catch (ExecutionException e) {
+                    throw new RuntimeException(e.getCause());
+                } finally {
+                    executor.shutdown();
+                }
+            }
+
+            // Re-parse every chunk whose guessed start is not the end of its predecessor's last record
+            for (int i = 1; i < numChunks; i++) {
+                Chunk previous = chunks.get(i - 1);
+                Chunk chunk = chunks.get(i);
+                if (chunk.failed || chunk.start != previous.end) {
+                    chunk.start = previous.end;
+                    this.parseChunk(channel, size, chunk, false, numAttributes);
+                }
+            }
+
+            Relation relation;
+            if (this.byteValues) {
+                relation = this.encodeArenas(name, attributes, mergeArenas(chunks, numAttributes, this.charset, this.offHeap));
+            } else {
+                relation = this.mergeEncoders(name, attributes, chunks);
+            }
+            if (this.rowOffsets) {
+                LongArrayList offsets = new LongArrayList();
+                for (Chunk chunk : chunks)
+                    offsets.addAll(chunk.recordStarts);
+                offsets.add(chunks.get(numChunks - 1).end);
+                relation.setRowOffsetIndex(new RowOffsetIndex(filePath, this.separator, this.charset, offsets.toLongArray()));
+            }
+            return relation;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Merges the chunk-local dictionaries and codes into the final columns of a relation.
+     */
+    private Relation mergeEncoders(String name, String[] attributes, List<Chunk> chunks) {
+        int numAttributes = attributes.length;
+        DictionaryColumn[] dictionaryColumns = new DictionaryColumn[numAttributes];
+        String[][] columns = new String[numAttributes][];
+        ColumnStatistics[] columnStatistics = new ColumnStatistics[numAttributes];
+        IntStream.range(0, numAttributes).parallel().forEach(attribute -> {
+            List<DictionaryColumn.Encoder> parts = new ArrayList<>(chunks.size());
+            for (Chunk chunk : chunks)
+                parts.add(chunk.encoders[attribute]);
+            this.merge(parts, attribute, dictionaryColumns, columns);
+
+            // Computed while the column's values are still hot in the caches
+            columnStatistics[attribute] = (dictionaryColumns[attribute] != null) ?
+                    ColumnStatistics.of(dictionaryColumns[attribute]) :
+                    ColumnStatistics.of(columns[attribute]);
+        });
+        return new Relation(name, attributes, dictionaryColumns, columns, columnStatistics);
+    }
+
+    /**
+     * Parses all records of the provided chunk that start before the chunk's nominal end; the last record may extend
+     * beyond that end.
+     */
+    private void parseChunk(FileChannel channel, long size, Chunk chunk, boolean guessStart, int numAttributes) throws IOException {
+        // Map one byte before the chunk start so that a guessed start can check for a preceding line break
+        long mapStart = (guessStart && chunk.start > 0) ? chunk.start - 1 : chunk.start;
+        MappedByteBuffer buffer = map(channel, mapStart, size);
+        int limit = buffer.limit();
+        int nominalEnd = (int) Math.min(limit, chunk.nominalEnd - mapStart);
+
+        int position = (int) (chunk.start - mapStart);
+        if (guessStart)
+            position = CsvByteParser.nextLineStart(buffer, position, limit);
+        chunk.start = mapStart + position;
+
+        DictionaryColumn.Encoder[] encoders = null;
+        ByteArena arena = null;
+        LongArrayList[] addresses = null;
+        IntArrayList[] lengths = null;
+        if (this.byteValues) {
+            // The chunk's values fit into a page of the chunk's size; larger pages would stay mostly empty after merging
+            arena = new ByteArena((int) Math.min(ByteArena.DEFAULT_PAGE_SIZE, chunk.nominalEnd - chunk.start), this.offHeap);
+            addresses = new LongArrayList[numAttributes];
+            lengths = new IntArrayList[numAttributes];
+            for (int i = 0; i < numAttributes; i++) {
+                addresses[i] = new LongArrayList();
+                lengths[i] = new IntArrayList();
+            }
+        } else {
+            encoders = new DictionaryColumn.Encoder[numAttributes];
+            for (int i = 0; i < numAttributes; i++)
+                encoders[i] = new DictionaryColumn.Encoder(16, this.cardinalityCutoff);
+        }
+
+        LongArrayList recordStarts = this.rowOffsets ? new LongArrayList() : null;
+        CsvByteParser parser = new CsvByteParser(buffer, this.separator, this.charset, arena);
+        chunk.failed = false;
+        while (position < nominalEnd) {
+            if (recordStarts != null)
+                recordStarts.add(mapStart + position);
+            try {
+                position = parser.parseRecord(position, limit);
+            } catch (RuntimeException e) {
+                // A wrong guess may start parsing inside a quoted value; the chunk is then re-parsed from a known start
+                if (!guessStart)
+                    throw e;
+                chunk.failed = true;
+                return;
+            }
+
+            // Records that are shorter than the schema are padded with empty values, longer ones are truncated
+            if (this.byteValues) {
+                for (int i = 0; i < numAttributes; i++) {
+                    boolean present = i < parser.getNumFields();
+                    addresses[i].add(present ? parser.getFieldAddress(i) : 0);
+                    lengths[i].add(present ? parser.getFieldLength(i) : 0);
+                }
+            } else {
+                List<String> fields = parser.getFields();
+                for (int i = 0; i < numAttributes; i++)
+                    encoders[i].add((i < fields.size()) ? fields.get(i) : null);
+            }
+        }
+        chunk.end = mapStart + position;
+        chunk.encoders = encoders;
+        chunk.arena = arena;
+        chunk.addresses = addresses;
+        chunk.lengths = lengths;
+        chunk.recordStarts = recordStarts;
+    }
+
+    /**
+     * Moves the chunks' arenas into one arena and concatenates the chunks' value addresses into arena columns.
+     */
+    private static ArenaColumn[] mergeArenas(List<Chunk> chunks, int numAttributes, Charset charset, boolean offHeap) {
+        ByteArena arena = new ByteArena(ByteArena.DEFAULT_PAGE_SIZE, offHeap);
+        long[] shifts = new long[chunks.size()];
+        int numRecords = 0;
+        for (int c = 0; c < chunks.size(); c++) {
+            shifts[c] = arena.append(chunks.get(c).arena);
+            numRecords += (numAttributes == 0) ? 0 : chunks.get(c).lengths[0].size();
+        }
+
+        final int size = numRecords;
+        ArenaColumn[] columns = new ArenaColumn[numAttributes];
+        IntStream.range(0, numAttributes).parallel().forEach(attribute -> {
+            long[] addresses = new long[size];
+            int[] lengths = new int[size];
+            int offset = 0;
+            for (int c = 0; c < chunks.size(); c++) {
+                LongArrayList chunkAddresses = chunks.get(c).addresses[attribute];
+                IntArrayList chunkLengths = chunks.get(c).lengths[attribute];
+                for (int j = 0; j < chunkAddresses.size(); j++, offset++) {
+                    lengths[offset] = chunkLengths.getInt(j);
+                    addresses[offset] = (lengths[offset] == 0) ? 0 : chunkAddresses.getLong(j) + shifts[c];
+                }
+            }
+            columns[attribute] = new ArenaColumn(arena, charset, addresses, lengths);
+        });
+        return columns;
+    }
+
+    /**
+     * Dictionary-encodes every byte-encoded column that does not exceed the cardinality cutoff; the values are grouped
+     * on their bytes and only the distinct values are decoded. Their dictionaries live on the heap even for off-heap
+     * arenas, because the profilers look up the distinct values as Strings; the cutoff bounds their size. All other
+     * columns stay byte-encoded and their statistics are computed on their bytes.
+     */
+    private Relation encodeArenas(String name, String[] attributes, ArenaColumn[] arenaColumns) {
+        int numAttributes = attributes.length;
+        DictionaryColumn[] dictionaryColumns = new DictionaryColumn[numAttributes];
+        ColumnStatistics[] columnStatistics = new ColumnStatistics[numAttributes];
+        IntStream.range(0, numAttributes).parallel().forEach(attribute -> {
+            dictionaryColumns[attribute] = arenaColumns[attribute].toDictionaryColumn(this.cardinalityCutoff);
+            if (dictionaryColumns[attribute] != null) {
+                columnStatistics[attribute] = ColumnStatistics.of(dictionaryColumns[attribute]);
+                arenaColumns[attribute] = null;
+            } else {
+                columnStatistics[attribute] = ColumnStatistics.of(arenaColumns[attribute]);
+            }
+        });
+        return new Relation(name, attributes, dictionaryColumns, arenaColumns, columnStatistics);
+    }
+
+    /**
+     * Merges the provided parts of one attribute into a single column. The column is dictionary-encoded if every part
+     * is and the merged dictionary does not exceed the cardinality cutoff; otherwise, it is stored plain.
+     */
+    private void merge(List<DictionaryColumn.Encoder> parts, int attribute, DictionaryColumn[] dictionaryColumns, String[][] columns) {
+        if (parts.stream().allMatch(DictionaryColumn.Encoder::isInterning)) {
+            List<DictionaryColumn> dictionaryParts = new ArrayList<>(parts.size());
+            for (DictionaryColumn.Encoder part : parts)
+                dictionaryParts.add(part.build());
+            DictionaryColumn column = DictionaryColumn.concat(dictionaryParts);
+            if (column.cardinality() <= this.cardinalityCutoff) {
+                dictionaryColumns[attribute] = column;
+                return;
+            }
+            columns[attribute] = column.toArray();
+            return;
+        }
+
+        String[][] values = new String[parts.size()][];
+        int size = 0;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = parts.get(i).buildValues();
+            size += values[i].length;
+        }
+        String[] column = new String[size];
+        int offset = 0;
+        for (String[] part : values) {
+            System.arraycopy(part, 0, column, offset, part.length);
+            offset += part.length;
+        }
+        columns[attribute] = column;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long from, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(size - from, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Checks whether line breaks, quotes, escapes, and separators of the provided charset are single ASCII bytes that
+     * cannot occur inside the encoding of other characters, which is what the byte-level parser relies on.
+     * @param charset The charset of the file.
+     * @param separator The field separator of the file.
+     * @return true if files in the provided charset can be split and parsed on byte level.
+     */
+    static boolean supportsByteParsing(Charset charset, char separator) {
+        String name = charset.name();
+        boolean asciiCompatible = charset.equals(StandardCharsets.UTF_8)
+                || charset.equals(StandardCharsets.US_ASCII)
+                || name.startsWith("ISO-8859-")
+                || name.startsWith("windows-125");
+        return asciiCompatible && separator < 0x80;
+    }
+
+    /**
+     * Creates the opencsv parser whose rules the byte-level parser replicates.
+     * @param separator The field separator of the file.
+     * @return The opencsv parser.
+     */
+    static CSVParser opencsvParser(char separator) {
+        return new CSVParserBuilder()
+                .withSeparator(separator)
+                .withQuoteChar('"')
+                .withEscapeChar('\\')
+                .withStrictQuotes(false)
+                .withIgnoreLeadingWhiteSpace(false)
+                .withFieldAsNull(CSVReaderNullFieldIndicator.EMPTY_SEPARATORS)
+                .build();
+    }
+
+    /**
+     * Reads the provided CSV file with a single opencsv reader; used for charsets that cannot be parsed on byte level.
+     */
+    private Relation readSequentially(Path filePath, String name) {
+        CSVParser parser = opencsvParser(this.separator);
+
+        String[] attributes = null;
+        List<DictionaryColumn.Encoder> encoders = null;
+        try (BufferedReader buffer = Files.newBufferedReader(filePath, this.charset);
+             CSVReader reader = new CSVReaderBuilder(buffer).withCSVParser(parser).build()) {
+
+            if (this.hasHeader)
+                attributes = reader.readNext();
+
+            String[] line;
+            while ((line = reader.readNext()) != null) {
+                if (attributes == null) {
+                    attributes = new String[line.length];
+                    for (int i = 0; i < line.length; i++)
+                        attributes[i] = String.valueOf(i);
+                }
+                if (encoders == null) {
+                    encoders = new ArrayList<>(attributes.length);
+                    for (int i = 0; i < attributes.length; i++)
+                        encoders.add(new DictionaryColumn.Encoder(16, this.cardinalityCutoff));
+                }
+
+                // Records that are shorter than the schema are padded with empty values, longer ones are truncated
+                for (int i = 0; i < encoders.size(); i++)
+                    encoders.get(i).add((i < line.length) ? line[i] : null);
+            }
+        } catch (CsvValidationException | IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (attributes == null)
+            attributes = new String[0];
+
+        DictionaryColumn[] dictionaryColumns = new DictionaryColumn[attributes.length];
+        String[][] columns = new String[attributes.length][];
+        for (int i = 0; i < attributes.length; i++) {
+            if (encoders == null)
+                dictionaryColumns[i] = new DictionaryColumn(new String[0], new int[0]);
+            else
+                this.merge(Collections.singletonList(encoders.get(i)), i, dictionaryColumns, columns);
+        }
+        return new Relation(name, attributes, dictionaryColumns, columns);
+    }
+}
@@ -0,0 +1,158 @@
+package de.di.helper;
+
+import de.di.Relation;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A RelationFolderLoader loads all relation files of a folder concurrently. Files are loaded on a bounded thread pool;
+ * to keep many large files from being in flight at the same time, every load first reserves its estimated memory
+ * footprint from a shared memory budget and only starts once the reservation succeeds. The loader records the load
+ * time of every file. With a RelationSampler, the loader streams every file and keeps only a random sample of its
+ * records instead of the whole relation.
+ */
+@Getter
+public class RelationFolderLoader {
+
+    // The estimated number of heap bytes a loaded relation needs per byte of its CSV file.
+    public static final int HEAP_BYTES_PER_FILE_BYTE = 4;
+
+    // The unit in which memory is reserved from the budget.
+    private static final int BUDGET_UNIT = 1024;
+
+    // The reader that parses the files; its parallelism is adjusted to the number of files loaded at the same time.
+    private final ParallelCsvReader reader;
+    private final boolean useSnapshots;
+
+    // The maximum number of files that are loaded at the same time.
+    private final int parallelism;
+
+    // The maximum number of heap bytes that files in flight may need together.
+    private final long memoryBudget;
+
+    // The sampler that selects the loaded records of every file; null if all records are loaded.
+    private final RelationSampler sampler;
+
+    // The load times of the files that the last loadAll() call loaded, in the order of the returned relations.
+    private List<FileLoad> fileLoads = Collections.emptyList();
+
+    @Getter
+    @AllArgsConstructor
+    public static class FileLoad {
+        private final Path path;
+        private final long numBytes;
+        private final int numRecords;
+        private final long millis;
+
+        @Override
+        public String toString() {
+            return "FileLoad(" + this.path + ": " + this.numRecords + " records, " + this.numBytes + " bytes, " + this.millis + " ms)";
+        }
+    }
+
+    public RelationFolderLoader(boolean hasHeader, char separator, Charset charset, boolean useSnapshots) {
+        this(hasHeader, separator, charset, useSnapshots, Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory() / 2);
+    }
+
+    public RelationFolderLoader(boolean hasHeader, char separator, Charset charset, boolean useSnapshots, int parallelism, long memoryBudget) {
+        this(new ParallelCsvReader(hasHeader, separator, charset), useSnapshots, parallelism, memoryBudget);
+    }
+
+    public RelationFolderLoader(ParallelCsvReader reader, boolean useSnapshots, int parallelism, long memoryBudget) {
+        this(reader, useSnapshots, parallelism, memoryBudget, null);
+    }
+
+    private RelationFolderLoader(ParallelCsvReader reader, boolean useSnapshots, int parallelism, long memoryBudget, RelationSampler sampler) {
+        this.reader = reader;
+        this.useSnapshots = useSnapshots;
+        this.parallelism = Math.max(1, parallelism);
+        this.memoryBudget = Math.max(BUDGET_UNIT, memoryBudget);
+        this.sampler = sampler;
+    }
+
+    /**
+     * Returns a loader with the same settings as this loader that only loads a random sample of every file's records;
+     * snapshots are not used for samples.
+     * @param sampler The sampler that selects the records; null to load all records.
+     * @return The sampling loader.
+     */
+    public RelationFolderLoader withSampler(RelationSampler sampler) {
+        return new RelationFolderLoader(this.reader, this.useSnapshots, this.parallelism, this.memoryBudget, sampler);
+    }
+
+    /**
+     * Loads all relation files in the provided folder and its sub-folders; snapshot files are skipped.
+     * @param folderPath The path of the folder.
+     * @return The loaded relations in the order in which the folder walk visits their files.
+     */
+    public List<Relation> loadAll(String folderPath) {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(Paths.get(folderPath))) {
+            files = paths.filter(Files::isRegularFile)
+                    .filter(filePath -> !RelationSnapshot.isSnapshot(filePath))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        int budgetUnits = (int) Math.min(Integer.MAX_VALUE, this.memoryBudget / BUDGET_UNIT);
+        Semaphore budget = new Semaphore(budgetUnits, true);
+
+        // Files that are loaded concurrently share the cores for their chunk-parallel parsing
+        int parallelismPerFile = Math.max(1, Runtime.getRuntime().availableProcessors() / Math.min(this.parallelism, Math.max(1, files.size())));
+        ParallelCsvReader reader = this.reader.withParallelism(parallelismPerFile);
+
+        List<Callable<Relation>> tasks = new ArrayList<>(files.size());
+        FileLoad[] fileLoads = new FileLoad[files.size()];
+        for (int i = 0; i < files.size(); i++) {
+            final int fileIndex = i;
+            final Path file = files.get(i);
+            tasks.add(() -> {
+                long numBytes = Files.size(file);
+                int units = (int) Math.max(1, Math.min(budgetUnits, numBytes * HEAP_BYTES_PER_FILE_BYTE / BUDGET_UNIT));
+                budget.acquire(units);
+                try {
+                    long time = System.nanoTime();
+                    Relation relation;
+                    if (this.sampler != null)
+                        relation = this.sampler.sample(file, reader.isHasHeader(), reader.getSeparator(), reader.getCharset());
+                    else
+                        relation = this.useSnapshots ? RelationSnapshot.load(file, reader) : reader.read(file);
+                    fileLoads[fileIndex] = new FileLoad(file, numBytes, relation.getNumRecords(), (System.nanoTime() - time) / 1000000);
+                    return relation;
+                } finally {
+                    budget.release(units);
+                }
+            });
+        }
+
+        List<Relation> relations = new ArrayList<>(files.size());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(this.parallelism, files.size())));
+        try {
+            for (Future<Relation> future : executor.invokeAll(tasks))
+                relations.add(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        this.fileLoads = List.of(fileLoads);
+        return relations;
+    }
+}
@@ -0,0 +1,85 @@
+package de.di.helper;
+
+import de.di.Relation;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * A RelationPrefetcher loads relations in the background and caches them by file path, so that every file is loaded
+ * at most once per run, even if several tasks need it, and the next task's files can be loaded while the current task
+ * is still running. Relations stay cached until they are evicted.
+ */
+public class RelationPrefetcher implements AutoCloseable {
+
+    private final ExecutorService executor;
+
+    // The loaded or loading relations by the path of their file.
+    private final Map<Path, CompletableFuture<Relation>> relations = new ConcurrentHashMap<>();
+
+    public RelationPrefetcher() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * Creates a prefetcher.
+     * @param numThreads The maximum number of files that are loaded concurrently in the background.
+     */
+    public RelationPrefetcher(int numThreads) {
+        this.executor = Executors.newFixedThreadPool(Math.max(1, numThreads), runnable -> {
+            Thread thread = new Thread(runnable, "relation-prefetcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts loading the provided file in the background unless it is already loaded or loading.
+     * @param filePath The path of the file.
+     * @param loader The function that loads the file; only called if the file is not cached.
+     */
+    public void prefetch(Path filePath, Function<Path, Relation> loader) {
+        this.relations.computeIfAbsent(filePath, path -> CompletableFuture.supplyAsync(() -> loader.apply(path), this.executor));
+    }
+
+    /**
+     * Returns the relation of the provided file; waits for a running prefetch or loads the file if it is not cached.
+     * @param filePath The path of the file.
+     * @param loader The function that loads the file; only called if the file is not cached.
+     * @return The relation of the file.
+     */
+    public Relation get(Path filePath, Function<Path, Relation> loader) {
+        this.prefetch(filePath, loader);
+        try {
+            return this.relations.get(filePath).join();
+        } catch (CompletionException e) {
+            this.relations.remove(filePath);
+            throw (e.getCause() instanceof RuntimeException) ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Removes the relation of the provided file from the cache, e.g., because no further task needs it.
+     * @param filePath The path of the file.
+     */
+    public void evict(Path filePath) {
+        this.relations.remove(filePath);
+    }
+
+    /**
+     * Checks whether the relation of the provided file is cached, i.e., loaded or loading.
+     * @param filePath The path of the file.
+     * @return true if the relation is cached.
+     */
+    public boolean isCached(Path filePath) {
+        return this.relations.containsKey(filePath);
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+        this.relations.clear();
+    }
+}
@@ -0,0 +1,168 @@
+package de.di.helper;
+
+import de.di.Relation;
+import de.di.structures.RecordBatch;
+import lombok.Getter;
+
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * A RelationSampler draws a uniform random sample of a relation's records while the relation is streamed, so only the
+ * sample is ever held in memory. A sample of a fixed number of records is drawn with reservoir sampling (Li's
+ * Algorithm L, which draws random numbers only for the records that enter the reservoir); a sample of a fraction of
+ * the records is drawn with Bernoulli sampling. The sampled records keep their original order, and the same seed
+ * always yields the same sample of the same file.
+ */
+@Getter
+public class RelationSampler {
+
+    // The number of records to sample or -1 if a fraction of the records is sampled.
+    private final int sampleSize;
+
+    // The probability with which every record is sampled; only used if no sample size is given.
+    private final double fraction;
+
+    // The seed of the random numbers that select the sampled records.
+    private final long seed;
+
+    private RelationSampler(int sampleSize, double fraction, long seed) {
+        this.sampleSize = sampleSize;
+        this.fraction = fraction;
+        this.seed = seed;
+    }
+
+    /**
+     * Creates a sampler that draws a fixed number of records; relations with fewer records are sampled completely.
+     * @param sampleSize The number of records to sample.
+     * @param seed The seed of the random sample.
+     * @return The sampler.
+     */
+    public static RelationSampler ofSize(int sampleSize, long seed) {
+        return new RelationSampler(Math.max(0, sampleSize), 1, seed);
+    }
+
+    /**
+     * Creates a sampler that draws every record independently with the provided probability.
+     * @param fraction The expected fraction of sampled records in [0, 1].
+     * @param seed The seed of the random sample.
+     * @return The sampler.
+     */
+    public static RelationSampler ofFraction(double fraction, long seed) {
+        return new RelationSampler(-1, Math.max(0, Math.min(1, fraction)), seed);
+    }
+
+    /**
+     * Samples the relation stored in the provided CSV file without loading the file into memory.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Whether the first record of the file holds the attribute names.
+     * @param separator The field separator of the file.
+     * @param charset The charset of the file.
+     * @return The sampled relation.
+     */
+    public Relation sample(Path filePath, boolean hasHeader, char separator, Charset charset) {
+        try (RelationSource source = new RelationSource(filePath, hasHeader, separator, charset)) {
+            return this.sample(source);
+        }
+    }
+
+    /**
+     * Samples the records of the provided source.
+     * @param source The source that should be sampled; it is consumed, but not closed.
+     * @return The sampled relation with the source's name and schema.
+     */
+    public Relation sample(RelationSource source) {
+        Random random = new Random(this.seed);
+        String[][] records = (this.sampleSize >= 0) ? this.reservoirSample(source, random) : this.bernoulliSample(source, random);
+        return new Relation(source.getName(), source.getAttributes(), records);
+    }
+
+    private String[][] reservoirSample(RelationSource source, Random random) {
+        String[][] reservoir = new String[this.sampleSize][];
+        long[] recordIndexes = new long[this.sampleSize];
+        int size = 0;
+
+        // The weight w and the index of the next record that replaces a random reservoir entry, as in Algorithm L
+        double weight = Math.exp(Math.log(nonZeroUniform(random)) / Math.max(1, this.sampleSize));
+        long nextIndex = this.sampleSize + skip(random, 1 - weight);
+
+        while (source.hasNext()) {
+            RecordBatch batch = source.next();
+            long batchEnd = batch.getFirstRecordIndex() + batch.size();
+
+            // Fill the reservoir with the first records
+            while (size < this.sampleSize && size < batchEnd) {
+                recordIndexes[size] = size;
+                reservoir[size] = batch.getRecords()[(int) (size - batch.getFirstRecordIndex())];
+                size++;
+            }
+
+            // Replace random entries with the records that the skips select
+            while (this.sampleSize > 0 && nextIndex < batchEnd) {
+                int slot = random.nextInt(this.sampleSize);
+                recordIndexes[slot] = nextIndex;
+                reservoir[slot] = batch.getRecords()[(int) (nextIndex - batch.getFirstRecordIndex())];
+                weight *= Math.exp(Math.log(nonZeroUniform(random)) / this.sampleSize);
+                nextIndex += 1 + skip(random, 1 - weight);
+            }
+        }
+        return inRecordOrder(reservoir, recordIndexes, size);
+    }
+
+    private String[][] bernoulliSample(RelationSource source, Random random) {
+        String[][] sample = new String[16][];
+        long[] recordIndexes = new long[16];
+        int size = 0;
+
+        // Geometrically distributed skips select the same records as one coin flip per record
+        long nextIndex = skip(random, 1 - this.fraction);
+        while (source.hasNext()) {
+            RecordBatch batch = source.next();
+            long batchEnd = batch.getFirstRecordIndex() + batch.size();
+            while (nextIndex < batchEnd) {
+                if (size == sample.length) {
+                    sample = Arrays.copyOf(sample, size * 2);
+                    recordIndexes = Arrays.copyOf(recordIndexes, size * 2);
+                }
+                recordIndexes[size] = nextIndex;
+                sample[size++] = batch.getRecords()[(int) (nextIndex - batch.getFirstRecordIndex())];
+                nextIndex += 1 + skip(random, 1 - this.fraction);
+            }
+        }
+        return inRecordOrder(sample, recordIndexes, size);
+    }
+
+    /**
+     * Draws the number of records to skip until the next sampled record, where every record is skipped with the
+     * provided probability.
+     */
+    private static long skip(Random random, double skipProbability) {
+        if (skipProbability <= 0)
+            return 0;
+        if (skipProbability >= 1)
+            return Long.MAX_VALUE / 2;
+        return (long) Math.floor(Math.log(nonZeroUniform(random)) / Math.log(skipProbability));
+    }
+
+    /**
+     * Draws a uniform random number from (0, 1], whose logarithm is always finite; nextDouble() may return 0.
+     */
+    private static double nonZeroUniform(Random random) {
+        return 1 - random.nextDouble();
+    }
+
+    private static String[][] inRecordOrder(String[][] records, long[] recordIndexes, int size) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++)
+            order[i] = i;
+        Arrays.sort(order, Comparator.comparingLong(i -> recordIndexes[i]));
+
+        String[][] sorted = new String[size][];
+        for (int i = 0; i < size; i++)
+            sorted[i] = records[order[i]];
+        return sorted;
+    }
+}
@@ -0,0 +1,306 @@
+package de.di.helper;
+
+import de.di.Relation;
+import de.di.structures.ArenaColumn;
+import de.di.structures.ByteArena;
+import de.di.structures.DictionaryColumn;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+/**
+ * A RelationSnapshot is a compact binary image of a Relation's dictionary-encoded columns that is stored next to the
+ * CSV file the relation was parsed from. The snapshot records a checksum of the CSV file and the parsing options, so
+ * a later load can memory-map the snapshot instead of parsing the file again as long as neither has changed.
+ *
+ * Layout (big-endian): magic, version, source checksum, hasHeader, separator, charset, relation name, attributes,
+ * number of records, and then for every column a kind flag followed by either its dictionary and code array or, for
+ * plain columns, its values. Strings are stored as their UTF-8 byte length (-1 for null) followed by the bytes.
+ */
+public class RelationSnapshot {
+
+    // The file name suffix that marks snapshot files; snapshots are never loaded as relations themselves.
+    public static final String FILE_EXTENSION = ".snapshot";
+
+    private static final int MAGIC = 0x44495342; // "DISB"
+    private static final int VERSION = 2;
+
+    private static final byte DICTIONARY_COLUMN = 0;
+    private static final byte PLAIN_COLUMN = 1;
+
+    // The number of bytes that are fed into the checksum at once.
+    private static final int CHECKSUM_BLOCK_SIZE = 64 * 1024 * 1024;
+
+    private static final Logger LOGGER = Logger.getLogger(RelationSnapshot.class.getName());
+
+    /**
+     * Loads the relation of the provided CSV file from its snapshot if the snapshot exists and still matches the file
+     * and the reader's options; otherwise, the file is parsed with the reader and a fresh snapshot is written. A
+     * snapshot that cannot be written only costs the next load a parse, so the failure is logged and the parsed
+     * relation is returned anyway.
+     * @param filePath The path of the CSV file.
+     * @param reader The reader that parses the file if no valid snapshot exists.
+     * @return The relation with the file's contents.
+     */
+    public static Relation load(Path filePath, ParallelCsvReader reader) {
+        Path snapshotPath = snapshotPathOf(filePath);
+        long checksum = checksumOf(filePath);
+
+        Relation relation = read(snapshotPath, checksum, reader);
+        if (relation == null) {
+            relation = reader.read(filePath);
+            try {
+                write(relation, snapshotPath, checksum, reader);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Could not write the snapshot " + snapshotPath, e);
+            }
+        } else if (reader.isRowOffsets() && ParallelCsvReader.supportsByteParsing(reader.getCharset(), reader.getSeparator())) {
+            // Snapshots do not store row offsets, so they are rebuilt from the file, which is cheaper than parsing it
+            relation.setRowOffsetIndex(RowOffsetIndex.build(filePath, reader.isHasHeader(), reader.getSeparator(), reader.getCharset()));
+        }
+        return relation;
+    }
+
+    /**
+     * Returns the path of the snapshot that belongs to the provided CSV file.
+     * @param filePath The path of the CSV file.
+     * @return The path of the file's snapshot.
+     */
+    public static Path snapshotPathOf(Path filePath) {
+        return filePath.resolveSibling(filePath.getFileName().toString() + FILE_EXTENSION);
+    }
+
+    /**
+     * Checks whether the provided path points to a snapshot file.
+     * @param path The path to check.
+     * @return true if the path is a snapshot file.
+     */
+    public static boolean isSnapshot(Path path) {
+        return path.getFileName().toString().endsWith(FILE_EXTENSION);
+    }
+
+    /**
+     * Calculates the checksum of the provided file, i.e., the CRC32C of its contents combined with its size.
+     * @param filePath The path of the file.
+     * @return The checksum of the file.
+     */
+    public static long checksumOf(Path filePath) {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            CRC32C crc = new CRC32C();
+            long size = channel.size();
+            for (long position = 0; position < size; position += CHECKSUM_BLOCK_SIZE)
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHECKSUM_BLOCK_SIZE, size - position)));
+            return crc.getValue() ^ (size << 32);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes the provided relation as snapshot. The snapshot is first written to a temporary file and then moved into
+     * place, so concurrent or interrupted runs never see a partially written snapshot; the temporary file is removed
+     * if anything fails. Snapshots that would exceed Integer.MAX_VALUE bytes are not written, because read() maps a
+     * snapshot as one buffer and could never load them.
+     * @param relation The relation to write.
+     * @param snapshotPath The path of the snapshot file.
+     * @param checksum The checksum of the CSV file that the relation was parsed from.
+     * @param reader The reader whose options were used to parse the relation.
+     * @return true if the snapshot was written; false if it is too large.
+     */
+    public static boolean write(Relation relation, Path snapshotPath, long checksum, ParallelCsvReader reader) {
+        Path tempPath = null;
+        try {
+            tempPath = Files.createTempFile(snapshotPath.toAbsolutePath().getParent(), "tmp", FILE_EXTENSION);
+            boolean tooLarge = false;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(checksum);
+                writeOptions(out, reader);
+                writeString(out, relation.getName());
+
+                String[] attributes = relation.getAttributes();
+                out.writeInt(attributes.length);
+                for (String attribute : attributes)
+                    writeString(out, attribute);
+
+                out.writeInt(relation.getNumRecords());
+                for (int i = 0; i < attributes.length; i++) {
+                    if (relation.isDictionaryEncoded(i)) {
+                        DictionaryColumn column = relation.getDictionaryColumn(i);
+                        out.writeByte(DICTIONARY_COLUMN);
+                        out.writeInt(column.cardinality());
+                        for (String value : column.getDictionary())
+                            writeString(out, value);
+                        for (int code : column.getCodes())
+                            out.writeInt(code);
+                    } else if (relation.isArenaBacked(i)) {
+                        // Decode one value at a time so that byte-encoded relations are not materialized as Strings
+                        ArenaColumn column = relation.getArenaColumns()[i];
+                        out.writeByte(PLAIN_COLUMN);
+                        for (int j = 0; j < column.size(); j++)
+                            writeString(out, column.get(j));
+                    } else {
+                        out.writeByte(PLAIN_COLUMN);
+                        for (String value : relation.getColumn(i))
+                            writeString(out, value);
+                    }
+                    // The stream's byte count saturates at Integer.MAX_VALUE
+                    if (out.size() == Integer.MAX_VALUE) {
+                        tooLarge = true;
+                        break;
+                    }
+                }
+            }
+            if (tooLarge) {
+                // An outdated snapshot would only be checked and rejected on every load
+                Files.deleteIfExists(snapshotPath);
+                return false;
+            }
+            try {
+                Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempPath = null;
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (tempPath != null) {
+                try {
+                    Files.deleteIfExists(tempPath);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Could not delete the temporary snapshot " + tempPath, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the relation from the provided snapshot file.
+     * @param snapshotPath The path of the snapshot file.
+     * @param checksum The checksum of the CSV file that the snapshot must have been written for.
+     * @param reader The reader whose options the snapshot must have been written with; if the reader keeps byte
+     *               values, the snapshot's plain columns are loaded into a ByteArena.
+     * @return The relation stored in the snapshot or null if the snapshot does not exist, is outdated, or is invalid.
+     */
+    public static Relation read(Path snapshotPath, long checksum, ParallelCsvReader reader) {
+        if (!Files.isRegularFile(snapshotPath))
+            return null;
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                return null;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != checksum || !readOptions(buffer, reader))
+                return null;
+            String name = readString(buffer);
+
+            String[] attributes = new String[buffer.getInt()];
+            for (int i = 0; i < attributes.length; i++)
+                attributes[i] = readString(buffer);
+
+            int numRecords = buffer.getInt();
+            DictionaryColumn[] dictionaryColumns = new DictionaryColumn[attributes.length];
+            String[][] columns = new String[attributes.length][];
+            ArenaColumn[] arenaColumns = new ArenaColumn[attributes.length];
+            ByteArena arena = reader.isByteValues() ? new ByteArena(ByteArena.DEFAULT_PAGE_SIZE, reader.isOffHeap()) : null;
+            for (int i = 0; i < attributes.length; i++) {
+                if (buffer.get() == PLAIN_COLUMN) {
+                    if (arena != null) {
+                        arenaColumns[i] = readArenaColumn(buffer, numRecords, arena);
+                        continue;
+                    }
+                    columns[i] = new String[numRecords];
+                    for (int j = 0; j < numRecords; j++)
+                        columns[i][j] = readString(buffer);
+                    continue;
+                }
+
+                String[] dictionary = new String[buffer.getInt()];
+                for (int code = 0; code < dictionary.length; code++)
+                    dictionary[code] = readString(buffer);
+
+                int[] codes = new int[numRecords];
+                buffer.asIntBuffer().get(codes);
+                buffer.position(buffer.position() + numRecords * Integer.BYTES);
+                dictionaryColumns[i] = new DictionaryColumn(dictionary, codes);
+            }
+            if (arena != null)
+                return new Relation(name, attributes, dictionaryColumns, arenaColumns);
+            return new Relation(name, attributes, dictionaryColumns, columns);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            // A truncated or otherwise corrupt snapshot is simply rebuilt
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void writeOptions(DataOutputStream out, ParallelCsvReader reader) throws IOException {
+        out.writeBoolean(reader.isHasHeader());
+        out.writeChar(reader.getSeparator());
+        writeString(out, reader.getCharset().name());
+    }
+
+    private static boolean readOptions(ByteBuffer buffer, ParallelCsvReader reader) {
+        return (buffer.get() != 0) == reader.isHasHeader()
+                && buffer.getChar() == reader.getSeparator()
+                && reader.getCharset().name().equals(readString(buffer));
+    }
+
+    /**
+     * Reads the values of a plain column as UTF-8 bytes into the provided arena.
+     */
+    private static ArenaColumn readArenaColumn(ByteBuffer buffer, int numRecords, ByteArena arena) {
+        long[] addresses = new long[numRecords];
+        int[] lengths = new int[numRecords];
+        byte[] bytes = new byte[64];
+        for (int j = 0; j < numRecords; j++) {
+            int length = Math.max(0, buffer.getInt());
+            if (bytes.length < length)
+                bytes = new byte[Math.max(length, 2 * bytes.length)];
+            buffer.get(bytes, 0, length);
+            addresses[j] = (length == 0) ? 0 : arena.add(bytes, 0, length);
+            lengths[j] = length;
+        }
+        return new ArenaColumn(arena, StandardCharsets.UTF_8, addresses, lengths);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,216 @@
+package de.di.helper;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+import de.di.Relation;
+import de.di.structures.RecordBatch;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A RelationSource streams the records of a CSV file in batches of bounded size, so that files larger than the heap
+ * can be processed: only the current batch and a fixed-size window of the memory-mapped file are held at any time.
+ * The records are parsed with the same rules as Relation uses; null values are returned as empty strings and
+ * records are padded or truncated to the schema, just as in a loaded Relation.
+ */
+public class RelationSource implements Iterator<RecordBatch>, AutoCloseable {
+
+    // The default number of records per batch.
+    public static final int DEFAULT_BATCH_SIZE = 10000;
+
+    // The default number of bytes of the file that are mapped at once.
+    private static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    @Getter
+    private final String name;
+    @Getter
+    private final String[] attributes;
+
+    // The maximum number of records per batch.
+    @Getter
+    private final int batchSize;
+
+    // The number of records that have been handed out so far.
+    @Getter
+    private long numRecordsRead = 0;
+
+    private final char separator;
+    private final Charset charset;
+
+    // Byte-level parsing state: the mapped window of the file and the parse position within that window.
+    private final FileChannel channel;
+    private final long size;
+    private final int windowSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int position;
+    private CsvByteParser parser;
+
+    // Fallback parsing state for charsets that cannot be parsed on byte level.
+    private final CSVReader reader;
+
+    // The next record, if it has already been read to answer hasNext().
+    private String[] pending;
+
+    public RelationSource(Path filePath, boolean hasHeader, char separator, Charset charset) {
+        this(filePath, hasHeader, separator, charset, DEFAULT_BATCH_SIZE);
+    }
+
+    public RelationSource(Path filePath, boolean hasHeader, char separator, Charset charset, int batchSize) {
+        this(filePath, hasHeader, separator, charset, batchSize, DEFAULT_WINDOW_SIZE);
+    }
+
+    RelationSource(Path filePath, boolean hasHeader, char separator, Charset charset, int batchSize, int windowSize) {
+        this.name = filePath.getFileName().toString().split("\\.")[0];
+        this.batchSize = Math.max(1, batchSize);
+        this.windowSize = Math.max(1, windowSize);
+        this.separator = separator;
+        this.charset = charset;
+
+        try {
+            if (ParallelCsvReader.supportsByteParsing(charset, separator)) {
+                this.channel = FileChannel.open(filePath, StandardOpenOption.READ);
+                this.size = this.channel.size();
+                this.reader = null;
+                this.map(0, this.windowSize);
+            } else {
+                this.channel = null;
+                this.size = -1;
+                this.reader = new CSVReaderBuilder(Files.newBufferedReader(filePath, charset))
+                        .withCSVParser(ParallelCsvReader.opencsvParser(separator))
+                        .build();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        // Read the first record to determine the schema; without header, it is kept as the first data record
+        String[] first = this.readRawRecord();
+        if (first == null) {
+            this.attributes = new String[0];
+        } else if (hasHeader) {
+            this.attributes = first;
+        } else {
+            this.attributes = new String[first.length];
+            for (int i = 0; i < first.length; i++)
+                this.attributes[i] = String.valueOf(i);
+            this.pending = this.normalize(first);
+        }
+    }
+
+    /**
+     * Returns an empty relation with this source's name and schema, e.g., to reference the source in results.
+     * @return The schema of this source as relation without records.
+     */
+    public Relation getSchema() {
+        return new Relation(this.name, this.attributes, new String[0][]);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.pending == null) {
+            String[] record = this.readRawRecord();
+            if (record != null)
+                this.pending = this.normalize(record);
+        }
+        return this.pending != null;
+    }
+
+    /**
+     * Returns the next batch of at most batchSize records.
+     * @return The next batch of records.
+     */
+    @Override
+    public RecordBatch next() {
+        if (!this.hasNext())
+            throw new NoSuchElementException();
+
+        List<String[]> records = new ArrayList<>(Math.min(this.batchSize, 1024));
+        while (records.size() < this.batchSize && this.hasNext()) {
+            records.add(this.pending);
+            this.pending = null;
+        }
+
+        RecordBatch batch = new RecordBatch(this.numRecordsRead, records.toArray(new String[0][]));
+        this.numRecordsRead += batch.size();
+        return batch;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (this.channel != null)
+                this.channel.close();
+            if (this.reader != null)
+                this.reader.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private String[] normalize(String[] record) {
+        String[] values = new String[this.attributes.length];
+        for (int i = 0; i < values.length; i++)
+            values[i] = (i < record.length && record[i] != null) ? record[i] : "";
+        return values;
+    }
+
+    private String[] readRawRecord() {
+        if (this.reader != null) {
+            try {
+                return this.reader.readNext();
+            } catch (CsvValidationException | IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        while (true) {
+            if (this.windowStart + this.position >= this.size)
+                return null;
+
+            // A record is complete if it ended before the window's end or if the window reaches the end of the file
+            int limit = this.window.limit();
+            boolean windowReachesEnd = this.windowStart + limit == this.size;
+            int end = -1;
+            try {
+                end = this.parser.parseRecord(this.position, limit);
+            } catch (RuntimeException e) {
+                if (windowReachesEnd)
+                    throw e;
+            }
+            if (end >= 0 && (end < limit || windowReachesEnd)) {
+                this.position = end;
+                return this.parser.getFields().toArray(new String[0]);
+            }
+
+            // Move the window to the start of the incomplete record; grow it if the record alone exceeds the window
+            int nextWindowSize = (this.position == 0) ? (int) Math.min(2L * limit, Integer.MAX_VALUE) : this.windowSize;
+            if (this.position == 0 && limit == Integer.MAX_VALUE)
+                throw new RuntimeException("Record starting at position " + this.windowStart + " exceeds the maximum window size");
+            try {
+                this.map(this.windowStart + this.position, nextWindowSize);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private void map(long from, int length) throws IOException {
+        this.windowStart = from;
+        this.position = 0;
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(this.size - from, length));
+        this.parser = new CsvByteParser(this.window, this.separator, this.charset);
+    }
+}
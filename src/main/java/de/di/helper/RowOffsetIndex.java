@@ -0,0 +1,137 @@
+package de.di.helper;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A RowOffsetIndex maps every record of a relation to the byte range of its line(s) in the relation's CSV file. With
+ * 8 bytes per record, it is much smaller than the records themselves, so a relation can drop its row-major records and
+ * still render the few records that matter, e.g., duplicates or counterexamples, by seeking into the file on demand.
+ * The index is only valid as long as the file does not change, and only for charsets that can be parsed on byte level.
+ */
+@Getter
+public class RowOffsetIndex {
+
+    // The CSV file and the options with which its records are parsed.
+    private final Path filePath;
+    private final char separator;
+    private final Charset charset;
+
+    // The byte offset of every record's first byte in the file; the last entry is the end of the last record.
+    @Getter(AccessLevel.NONE)
+    private final long[] offsets;
+
+    RowOffsetIndex(Path filePath, char separator, Charset charset, long[] offsets) {
+        this.filePath = filePath;
+        this.separator = separator;
+        this.charset = charset;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Builds the index of the provided CSV file in one sequential pass that only finds the record boundaries.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Whether the first record of the file holds the attribute names; it is not indexed.
+     * @param separator The field separator of the file.
+     * @param charset The charset of the file.
+     * @return The index of the file's records.
+     */
+    public static RowOffsetIndex build(Path filePath, boolean hasHeader, char separator, Charset charset) {
+        if (!ParallelCsvReader.supportsByteParsing(charset, separator))
+            throw new IllegalArgumentException("Files in " + charset.name() + " cannot be indexed on byte level.");
+
+        LongArrayList offsets = new LongArrayList();
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long windowStart = 0;
+            while (windowStart < size) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(size - windowStart, Integer.MAX_VALUE));
+                CsvByteParser parser = new CsvByteParser(window, separator, charset);
+                int limit = window.limit();
+                boolean lastWindow = windowStart + limit == size;
+
+                int position = 0;
+                while (position < limit) {
+                    int end = parser.parseRecord(position, limit);
+                    // A record that runs into the end of a window is parsed again at the start of the next window
+                    if (end == limit && !lastWindow && position > 0)
+                        break;
+                    offsets.add(windowStart + position);
+                    position = end;
+                }
+                windowStart += position;
+            }
+            offsets.add(size);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (hasHeader && offsets.size() > 1)
+            offsets.removeLong(0);
+        return new RowOffsetIndex(filePath, separator, charset, offsets.toLongArray());
+    }
+
+    /**
+     * Returns the number of indexed records.
+     * @return The number of records.
+     */
+    public int size() {
+        return this.offsets.length - 1;
+    }
+
+    /**
+     * Reads the raw text of the provided record, i.e., its line(s) without the final line break.
+     * @param recordIndex The index of the record.
+     * @return The record's text as it appears in the file.
+     */
+    public String readLine(int recordIndex) {
+        ByteBuffer bytes = this.readBytes(recordIndex);
+        int length = bytes.limit();
+        while (length > 0 && (bytes.get(length - 1) == '\n' || bytes.get(length - 1) == '\r'))
+            length--;
+        return new String(bytes.array(), 0, length, this.charset);
+    }
+
+    /**
+     * Reads and parses the provided record from the file.
+     * @param recordIndex The index of the record.
+     * @return The record's values; empty unquoted values are returned as empty strings.
+     */
+    public String[] readRecord(int recordIndex) {
+        ByteBuffer bytes = this.readBytes(recordIndex);
+        CsvByteParser parser = new CsvByteParser(bytes, this.separator, this.charset);
+        parser.parseRecord(0, bytes.limit());
+        List<String> fields = new ArrayList<>(parser.getFields());
+        String[] record = new String[fields.size()];
+        for (int i = 0; i < record.length; i++)
+            record[i] = (fields.get(i) == null) ? "" : fields.get(i);
+        return record;
+    }
+
+    private ByteBuffer readBytes(int recordIndex) {
+        if (recordIndex < 0 || recordIndex >= this.size())
+            throw new IndexOutOfBoundsException("Record " + recordIndex + " is not indexed; the index holds " + this.size() + " records.");
+        long start = this.offsets[recordIndex];
+        ByteBuffer bytes = ByteBuffer.allocate((int) (this.offsets[recordIndex + 1] - start));
+        try (FileChannel channel = FileChannel.open(this.filePath, StandardOpenOption.READ)) {
+            while (bytes.hasRemaining())
+                if (channel.read(bytes, start + bytes.position()) < 0)
+                    break;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        bytes.flip();
+        return bytes;
+    }
+}
@@ -62,6 +62,7 @@ import de.di.Relation;
 import de.di.schema_matching.structures.SimilarityMatrix;
 import de.di.similarity_measures.Jaccard;
 import de.di.similarity_measures.helper.Tokenizer;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 
 public class FirstLineSchemaMatcher {
 
@@ -79,15 +80,43 @@ public class FirstLineSchemaMatcher {
         // Set up Jaccard similarity without normalization
         Jaccard jaccard = new Jaccard(tokenizer, false);
 
-        // Compare each attribute column from A with each from B
+        // Columns without a common value have a Jaccard similarity of 0, which the statistics can tell upfront; columns
+        // that cannot share a value with any column of the other relation are not even encoded
+        boolean[][] mayOverlap = new boolean[colsACount][colsBCount];
+        IntArrayList candidatesA = new IntArrayList();
+        IntArrayList candidatesB = new IntArrayList();
+        boolean[] isCandidateB = new boolean[colsBCount];
         for (int i = 0; i < colsACount; i++) {
-            String[] columnA = colsA[i];
-
             for (int j = 0; j < colsBCount; j++) {
-                String[] columnB = colsB[j];
+                mayOverlap[i][j] = colsA[i].length == 0 || colsB[j].length == 0 || relA.getColumnStatistics(i).mayOverlap(relB.getColumnStatistics(j));
+                isCandidateB[j] |= mayOverlap[i][j];
+            }
+            for (boolean overlap : mayOverlap[i]) {
+                if (overlap) {
+                    candidatesA.add(i);
+                    break;
+                }
+            }
+        }
+        for (int j = 0; j < colsBCount; j++)
+            if (isCandidateB[j])
+                candidatesB.add(j);
 
-                double similarity = jaccard.calculate(columnA, columnB);
-                scoreMatrix[i][j] = similarity;
+        // Compare the candidate columns from A with those from B in one batch, which encodes every column only once
+        String[][] batchA = new String[candidatesA.size()][];
+        String[][] batchB = new String[candidatesB.size()][];
+        for (int a = 0; a < batchA.length; a++)
+            batchA[a] = colsA[candidatesA.getInt(a)];
+        for (int b = 0; b < batchB.length; b++)
+            batchB[b] = colsB[candidatesB.getInt(b)];
+        double[] similarities = new double[batchA.length * batchB.length];
+        jaccard.calculateManyToMany(batchA, batchB, similarities);
+        for (int a = 0; a < batchA.length; a++) {
+            for (int b = 0; b < batchB.length; b++) {
+                int i = candidatesA.getInt(a);
+                int j = candidatesB.getInt(b);
+                if (mayOverlap[i][j])
+                    scoreMatrix[i][j] = similarities[a * batchB.length + b];
             }
         }
 
@@ -103,15 +103,26 @@
 
 package de.di.similarity_measures;
 
+import de.di.similarity_measures.helper.SortedTokens;
 import de.di.similarity_measures.helper.Tokenizer;
+import de.di.structures.ArenaColumn;
+import de.di.structures.ByteArena;
+import de.di.structures.ValueAccessor;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @AllArgsConstructor
 public class Jaccard implements SimilarityMeasure {
 
+    // The per-thread token code buffers for string comparisons, which are reused to avoid allocations.
+    private static final ThreadLocal<LongArrayList[]> BUFFERS = ThreadLocal.withInitial(() -> new LongArrayList[]{new LongArrayList(), new LongArrayList()});
+
     // The tokenizer that is used to transform string inputs into token lists.
     private final Tokenizer tokenizer;
 
@@ -131,9 +142,82 @@ public class Jaccard implements SimilarityMeasure {
         string1 = (string1 == null) ? "" : string1;
         string2 = (string2 == null) ? "" : string2;
 
-        String[] strings1 = this.tokenizer.tokenize(string1);
-        String[] strings2 = this.tokenizer.tokenize(string2);
-        return this.calculate(strings1, strings2);
+        // Token codes in reused buffers avoid a String per token and the hash maps of the token-based calculation
+        LongArrayList[] buffers = BUFFERS.get();
+        return this.calculate(this.tokenizer.tokenizeCodes(string1, buffers[0]), this.tokenizer.tokenizeCodes(string2, buffers[1]));
+    }
+
+    /**
+     * Calculates the Jaccard similarity of two token code lists, e.g., of Tokenizer.tokenizeCodes(), with set or bag
+     * semantics. The codes are sorted in place and intersected as sorted arrays, which allocates nothing.
+     * @param codes1 The first token code list argument for the similarity calculation; it is reordered.
+     * @param codes2 The second token code list argument for the similarity calculation; it is reordered.
+     * @return The Jaccard similarity of the two arguments.
+     */
+    public double calculate(LongArrayList codes1, LongArrayList codes2) {
+        long[] tokens1 = codes1.elements();
+        long[] tokens2 = codes2.elements();
+        Arrays.sort(tokens1, 0, codes1.size());
+        Arrays.sort(tokens2, 0, codes2.size());
+        return this.calculateSorted(tokens1, codes1.size(), tokens2, codes2.size());
+    }
+
+    /**
+     * Calculates the Jaccard similarity of two sorted token arrays with set or bag semantics.
+     * @param tokens1 The first sorted token array.
+     * @param size1 The number of tokens in the first array.
+     * @param tokens2 The second sorted token array.
+     * @param size2 The number of tokens in the second array.
+     * @return The Jaccard similarity of the two token arrays.
+     */
+    private double calculateSorted(long[] tokens1, int size1, long[] tokens2, int size2) {
+        return this.calculateSorted(tokens1, size1, SortedTokens.distinct(tokens1, size1), tokens2, size2, SortedTokens.distinct(tokens2, size2));
+    }
+
+    private double calculateSorted(long[] tokens1, int size1, int distinct1, long[] tokens2, int size2, int distinct2) {
+        int intersection = SortedTokens.intersection(tokens1, size1, tokens2, size2, this.bagSemantics);
+        int union = this.bagSemantics ? size1 + size2 : distinct1 + distinct2 - intersection;
+        return (union == 0) ? 0 : (double) intersection / union;
+    }
+
+    /**
+     * Prepares the input string by tokenizing it into sorted token codes once.
+     * @param string The string that should be prepared.
+     * @return The prepared string.
+     */
+    @Override
+    public PreparedValue prepare(String string) {
+        LongArrayList codes = this.tokenizer.tokenizeCodes((string == null) ? "" : string, new LongArrayList());
+        long[] tokens = codes.toLongArray();
+        Arrays.sort(tokens);
+        return new PreparedTokens(string, this.tokenizer, tokens, SortedTokens.distinct(tokens, tokens.length));
+    }
+
+    @Override
+    public double calculate(PreparedValue value1, PreparedValue value2) {
+        if (!value1.isPreparedBy(this) || !value2.isPreparedBy(this))
+            return this.calculate(value1.getValue(), value2.getValue());
+
+        PreparedTokens tokens1 = (PreparedTokens) value1;
+        PreparedTokens tokens2 = (PreparedTokens) value2;
+        return this.calculateSorted(tokens1.getTokens(), tokens1.getTokens().length, tokens1.getNumDistinct(),
+                tokens2.getTokens(), tokens2.getTokens().length, tokens2.getNumDistinct());
+    }
+
+    @Override
+    public double calculate(PreparedValue value1, PreparedValue value2, double minSimilarity) {
+        if (value1.isPreparedBy(this) && value2.isPreparedBy(this)) {
+            // The intersection cannot be larger than the smaller token list, which bounds the similarity by the sizes
+            PreparedTokens tokens1 = (PreparedTokens) value1;
+            PreparedTokens tokens2 = (PreparedTokens) value2;
+            int size1 = this.bagSemantics ? tokens1.getTokens().length : tokens1.getNumDistinct();
+            int size2 = this.bagSemantics ? tokens2.getTokens().length : tokens2.getNumDistinct();
+            int union = this.bagSemantics ? size1 + size2 : Math.max(size1, size2);
+            double maxSimilarity = (union == 0) ? 0 : (double) Math.min(size1, size2) / union;
+            if (maxSimilarity < minSimilarity)
+                return BELOW_THRESHOLD;
+        }
+        return SimilarityMeasure.super.calculate(value1, value2, minSimilarity);
     }
 
     /**
@@ -159,61 +243,193 @@ public class Jaccard implements SimilarityMeasure {
         if (strings1 == null) strings1 = new String[0];
         if (strings2 == null) strings2 = new String[0];
 
-        if (bagSemantics) {
-            // Multiset (bag) semantics
-            Map<String, Integer> freq1 = new HashMap<>();
-            Map<String, Integer> freq2 = new HashMap<>();
-
-            for (String s : strings1)
-                freq1.put(s, freq1.getOrDefault(s, 0) + 1);
-            for (String s : strings2)
-                freq2.put(s, freq2.getOrDefault(s, 0) + 1);
-
-            int intersection = 0;
-            for (String token : freq1.keySet()) {
-                if (freq2.containsKey(token)) {
-                    intersection += Math.min(freq1.get(token), freq2.get(token));
-                }
+        // Map the tokens of both lists to shared ids, so that they can be intersected as sorted primitive arrays
+        Object2IntOpenHashMap<String> tokenIds = new Object2IntOpenHashMap<>(strings1.length + strings2.length);
+        tokenIds.defaultReturnValue(-1);
+        long[] tokens1 = new long[strings1.length];
+        long[] tokens2 = new long[strings2.length];
+        for (int i = 0; i < strings1.length; i++)
+            tokens1[i] = tokenIdOf(strings1[i], tokenIds);
+        for (int i = 0; i < strings2.length; i++)
+            tokens2[i] = tokenIdOf(strings2[i], tokenIds);
+        Arrays.sort(tokens1);
+        Arrays.sort(tokens2);
+
+        jaccardSimilarity = this.calculateSorted(tokens1, tokens1.length, tokens2, tokens2.length);
+
+        return jaccardSimilarity;
+    }
+
+    private static int tokenIdOf(String token, Object2IntOpenHashMap<String> tokenIds) {
+        // The map's default return value is -1, so that unknown tokens receive the next dense id
+        int tokenId = tokenIds.getInt(token);
+        if (tokenId < 0) {
+            tokenId = tokenIds.size();
+            tokenIds.put(token, tokenId);
+        }
+        return tokenId;
+    }
+
+    /**
+     * Calculates the Jaccard similarities of one query string to many candidate strings. The query is tokenized and
+     * sorted once; every candidate is tokenized into a reused per-thread buffer and merged with the query in parallel.
+     * @param query The string that is compared to all candidates.
+     * @param candidates The strings that the query is compared to.
+     * @param similarities The array that receives the similarity of the query and candidates[i] at index i.
+     */
+    @Override
+    public void calculateOneToMany(String query, String[] candidates, double[] similarities) {
+        PreparedTokens preparedQuery = (PreparedTokens) this.prepare(query);
+        long[] queryTokens = preparedQuery.getTokens();
+        IntStream.range(0, candidates.length).parallel().forEach(i -> {
+            LongArrayList codes = this.tokenizer.tokenizeCodes((candidates[i] == null) ? "" : candidates[i], BUFFERS.get()[0]);
+            long[] tokens = codes.elements();
+            Arrays.sort(tokens, 0, codes.size());
+            similarities[i] = this.calculateSorted(queryTokens, queryTokens.length, preparedQuery.getNumDistinct(),
+                    tokens, codes.size(), SortedTokens.distinct(tokens, codes.size()));
+        });
+    }
+
+    /**
+     * Calculates the Jaccard similarities of all pairs of string lists of the two inputs, e.g., of the value lists of
+     * two relations' columns. All lists share one token dictionary, so that every list is encoded and sorted once
+     * instead of once per pair; the pairs are then intersected as sorted arrays in parallel.
+     * @param stringLists1 The string lists that determine the rows of the similarity matrix.
+     * @param stringLists2 The string lists that determine the columns of the similarity matrix.
+     * @param similarities The array that receives the similarity of stringLists1[i] and stringLists2[j] at index
+     *                     i * stringLists2.length + j.
+     */
+    @Override
+    public void calculateManyToMany(String[][] stringLists1, String[][] stringLists2, double[] similarities) {
+        Object2IntOpenHashMap<String> tokenIds = new Object2IntOpenHashMap<>();
+        long[][] tokens1 = this.encode(stringLists1, tokenIds);
+        long[][] tokens2 = this.encode(stringLists2, tokenIds);
+        int[] distinct1 = new int[tokens1.length];
+        int[] distinct2 = new int[tokens2.length];
+        for (int i = 0; i < tokens1.length; i++)
+            distinct1[i] = SortedTokens.distinct(tokens1[i], tokens1[i].length);
+        for (int j = 0; j < tokens2.length; j++)
+            distinct2[j] = SortedTokens.distinct(tokens2[j], tokens2[j].length);
+
+        IntStream.range(0, tokens1.length).parallel().forEach(i -> {
+            for (int j = 0; j < tokens2.length; j++)
+                similarities[i * tokens2.length + j] = this.calculateSorted(tokens1[i], tokens1[i].length, distinct1[i],
+                        tokens2[j], tokens2[j].length, distinct2[j]);
+        });
+    }
+
+    private long[][] encode(String[][] stringLists, Object2IntOpenHashMap<String> tokenIds) {
+        tokenIds.defaultReturnValue(-1);
+        long[][] tokens = new long[stringLists.length][];
+        for (int i = 0; i < stringLists.length; i++) {
+            String[] strings = (stringLists[i] == null) ? new String[0] : stringLists[i];
+            tokens[i] = new long[strings.length];
+            for (int t = 0; t < strings.length; t++)
+                tokens[i][t] = tokenIdOf(strings[t], tokenIds);
+            Arrays.sort(tokens[i]);
+        }
+        return tokens;
+    }
+
+    /**
+     * Calculates the Jaccard similarity of two columns, whose values are treated as the tokens of one bag or set each.
+     * If both columns keep their values as encoded bytes in a ByteArena, on- or off-heap, the values are matched on their
+     * bytes and never decoded; all other columns are decoded and compared as string lists.
+     * @param values1 The first column argument for the similarity calculation.
+     * @param values2 The second column argument for the similarity calculation.
+     * @return The Jaccard similarity of the two arguments.
+     */
+    public double calculate(ValueAccessor values1, ValueAccessor values2) {
+        if (!(values1 instanceof ArenaColumn) || !(values2 instanceof ArenaColumn) ||
+                !((ArenaColumn) values1).getCharset().equals(((ArenaColumn) values2).getCharset()))
+            return this.calculate(values1.toArray(), values2.toArray());
+
+        ArenaColumn column1 = (ArenaColumn) values1;
+        ArenaColumn column2 = (ArenaColumn) values2;
+        int size1 = column1.size();
+        int size2 = column2.size();
+
+        // Group the values of both columns together, so that equal values of the two columns receive the same code
+        int[] codes = new ValueAccessor() {
+            @Override
+            public int size() {
+                return size1 + size2;
             }
 
-            int totalTokens = strings1.length + strings2.length;
-            jaccardSimilarity = totalTokens == 0 ? 0 : (double) intersection / totalTokens;
-//            Map<String, Integer> freq1 = new HashMap<>();
-//            for (String s : strings1) freq1.put(s, freq1.getOrDefault(s, 0) + 1);
-//
-//            Map<String, Integer> freq2 = new HashMap<>();
-//            for (String s : strings2) freq2.put(s, freq2.getOrDefault(s, 0) + 1);
-//
-//            Set<String> allTokens = new HashSet<>();
-//            allTokens.addAll(freq1.keySet());
-//            allTokens.addAll(freq2.keySet());
-//
-//            int intersection = 0;
-//            int union = 0;
-//
-//            for (String token : allTokens) {
-//                int count1 = freq1.getOrDefault(token, 0);
-//                int count2 = freq2.getOrDefault(token, 0);
-//                intersection += Math.min(count1, count2);
-//                union += Math.max(count1, count2);
-//            }
-//
-//            jaccardSimilarity = (union == 0) ? 0 : (double) intersection / union;
-        } else {
-            // Set semantics
-            Set<String> set1 = new HashSet<>(Arrays.asList(strings1));
-            Set<String> set2 = new HashSet<>(Arrays.asList(strings2));
+            @Override
+            public String get(int recordIndex) {
+                return (recordIndex < size1) ? column1.get(recordIndex) : column2.get(recordIndex - size1);
+            }
 
-            Set<String> intersection = new HashSet<>(set1);
-            intersection.retainAll(set2);
+            @Override
+            public boolean valueEquals(int recordIndex1, int recordIndex2) {
+                ArenaColumn c1 = (recordIndex1 < size1) ? column1 : column2;
+                ArenaColumn c2 = (recordIndex2 < size1) ? column1 : column2;
+                int i1 = (recordIndex1 < size1) ? recordIndex1 : recordIndex1 - size1;
+                int i2 = (recordIndex2 < size1) ? recordIndex2 : recordIndex2 - size1;
+                return ByteArena.equals(c1.getArena(), c1.getAddresses()[i1], c1.getLengths()[i1], c2.getArena(), c2.getAddresses()[i2], c2.getLengths()[i2]);
+            }
+
+            @Override
+            public int hashValue(int recordIndex) {
+                return (recordIndex < size1) ? column1.hashValue(recordIndex) : column2.hashValue(recordIndex - size1);
+            }
+        }.encode();
 
-            Set<String> union = new HashSet<>(set1);
-            union.addAll(set2);
+        int numCodes = 0;
+        for (int code : codes)
+            numCodes = Math.max(numCodes, code + 1);
+        int[] counts1 = new int[numCodes];
+        int[] counts2 = new int[numCodes];
+        for (int i = 0; i < size1; i++)
+            counts1[codes[i]]++;
+        for (int i = size1; i < codes.length; i++)
+            counts2[codes[i]]++;
 
-            jaccardSimilarity = (union.size() == 0) ? 0 : (double) intersection.size() / union.size();
+        int intersection = 0;
+        int union = 0;
+        for (int code = 0; code < numCodes; code++) {
+            if (this.bagSemantics) {
+                intersection += Math.min(counts1[code], counts2[code]);
+            } else {
+                intersection += (counts1[code] > 0 && counts2[code] > 0) ? 1 : 0;
+                union++;
+            }
         }
+        if (this.bagSemantics)
+            union = size1 + size2;
+        return (union == 0) ? 0 : (double) intersection / union;
+    }
 
-        return jaccardSimilarity;
+    /**
+     * A string with its sorted token codes, which serve all Jaccard instances with an equally configured tokenizer.
+     */
+    @Getter
+    private static class PreparedTokens extends PreparedValue {
+
+        // The tokenizer that created the token codes.
+        private final Tokenizer tokenizer;
+
+        // The sorted token codes of the string.
+        private final long[] tokens;
+
+        // The number of distinct token codes.
+        private final int numDistinct;
+
+        PreparedTokens(String string, Tokenizer tokenizer, long[] tokens, int numDistinct) {
+            super(string);
+            this.tokenizer = tokenizer;
+            this.tokens = tokens;
+            this.numDistinct = numDistinct;
+        }
+
+        @Override
+        public boolean isPreparedBy(SimilarityMeasure similarityMeasure) {
+            if (!(similarityMeasure instanceof Jaccard))
+                return false;
+            Tokenizer other = ((Jaccard) similarityMeasure).tokenizer;
+            return other.getTokenSize() == this.tokenizer.getTokenSize() && other.isUsePadding() == this.tokenizer.isUsePadding();
+        }
     }
 }
 //package de.di.similarity_measures;
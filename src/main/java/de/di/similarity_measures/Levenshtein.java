@@ -1,8 +1,12 @@
 package de.di.similarity_measures;
 
+import de.di.similarity_measures.helper.BandedLevenshtein;
+import de.di.similarity_measures.helper.BitParallelLevenshtein;
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 
 import java.util.Arrays;
+import java.util.stream.IntStream;
 
 @AllArgsConstructor
 public class Levenshtein implements SimilarityMeasure {
@@ -30,47 +34,127 @@ public class Levenshtein implements SimilarityMeasure {
         if (string1.isEmpty() || string2.isEmpty())
             return 0;
 
-        int len1 = string1.length();
-        int len2 = string2.length();
+        // The bit-parallel engine computes the same distance as the dynamic program, but a whole column per step
+        int distance = BitParallelLevenshtein.distance(string1, string2, this.withDamerau);
+        return 1 - (double) distance / Math.max(string1.length(), string2.length());
+    }
 
-        int[] upperupperLine = new int[len1 + 1]; // i-2
-        int[] upperLine = new int[len1 + 1];      // i-1
-        int[] lowerLine = new int[len1 + 1];      // i
+    /**
+     * Calculates the Levenshtein similarity of the two input strings if it can reach the provided minimum similarity.
+     * The minimum similarity translates into a maximum distance, so that pairs whose lengths differ too much are
+     * rejected without any comparison and all other pairs are compared with a banded dynamic program that stops as
+     * soon as the maximum distance is exceeded.
+     * @param string1 The first string argument for the similarity calculation.
+     * @param string2 The second string argument for the similarity calculation.
+     * @param minSimilarity The smallest similarity of interest.
+     * @return The (Damerau) Levenshtein similarity of the two arguments or BELOW_THRESHOLD if it is below minSimilarity.
+     */
+    @Override
+    public double calculate(final String string1, final String string2, final double minSimilarity) {
+        return this.calculateBounded(string1, string2, minSimilarity, null, null);
+    }
 
-        // Fill the first line with the initial positions (= edits to generate string1 from nothing)
-        for (int i = 0; i <= len1; i++)
-            upperLine[i] = i;
+    /**
+     * Prepares the input string by compiling its bit vectors for the bit-parallel engine once.
+     * @param string The string that should be prepared.
+     * @return The prepared string.
+     */
+    @Override
+    public PreparedValue prepare(final String string) {
+        return new PreparedString(string);
+    }
 
-        for (int i = 1; i <= len2; i++) {
-            lowerLine[0] = i;
-            for (int j = 1; j <= len1; j++) {
-                int cost = (string2.charAt(i - 1) == string1.charAt(j - 1)) ? 0 : 1;
+    @Override
+    public double calculate(final PreparedValue value1, final PreparedValue value2) {
+        String string1 = value1.getValue();
+        String string2 = value2.getValue();
+        if (!value1.isPreparedBy(this) || !value2.isPreparedBy(this) ||
+                string1 == null || string2 == null || string1.isEmpty() || string2.isEmpty())
+            return this.calculate(string1, string2);
 
-                int deletion = upperLine[j] + 1;
-                int insertion = lowerLine[j - 1] + 1;
-                int substitution = upperLine[j - 1] + cost;
+        int distance = this.distance((PreparedString) value1, (PreparedString) value2);
+        return 1 - (double) distance / Math.max(string1.length(), string2.length());
+    }
 
-                int distance = min(deletion, insertion, substitution);
+    @Override
+    public double calculate(final PreparedValue value1, final PreparedValue value2, final double minSimilarity) {
+        if (!value1.isPreparedBy(this) || !value2.isPreparedBy(this))
+            return this.calculate(value1.getValue(), value2.getValue(), minSimilarity);
+        return this.calculateBounded(value1.getValue(), value2.getValue(), minSimilarity, (PreparedString) value1, (PreparedString) value2);
+    }
 
-                // Damerau-Levenshtein
-                if (withDamerau && i > 1 && j > 1 &&
-                        string2.charAt(i - 1) == string1.charAt(j - 2) &&
-                        string2.charAt(i - 2) == string1.charAt(j - 1)) {
-                    distance = Math.min(distance, upperupperLine[j - 2] + 1);
-                }
+    private double calculateBounded(final String string1, final String string2, final double minSimilarity,
+                                    final PreparedString prepared1, final PreparedString prepared2) {
+        if (string1 == null || string2 == null || string1.isEmpty() || string2.isEmpty())
+            return SimilarityMeasure.super.calculate(string1, string2, minSimilarity);
 
-                lowerLine[j] = distance;
-            }
+        int maxLength = Math.max(string1.length(), string2.length());
+        int minLength = Math.min(string1.length(), string2.length());
+        // The tolerance keeps pairs whose similarity equals the minimum despite rounding errors; no distance exceeds the
+        // longer length, so lower minimum similarities are clamped to it before the bound can saturate the int range
+        int maxDistance = (int) Math.min(maxLength, Math.floor((1 - minSimilarity) * maxLength + 1e-9));
+        if (maxDistance < 0 || maxLength - minLength > maxDistance)
+            return BELOW_THRESHOLD;
 
-            // shift lines
-            int[] temp = upperupperLine;
-            upperupperLine = upperLine;
-            upperLine = lowerLine;
-            lowerLine = temp;
-        }
+        // The band only saves work if it is narrower than the strings; otherwise, the bit-parallel engine is faster
+        int distance;
+        if (2 * maxDistance + 1 < minLength)
+            distance = BandedLevenshtein.distance(string1, string2, maxDistance, this.withDamerau);
+        else if (prepared1 != null)
+            distance = this.distance(prepared1, prepared2);
+        else
+            distance = BitParallelLevenshtein.distance(string1, string2, this.withDamerau);
+        if (distance > maxDistance)
+            return BELOW_THRESHOLD;
+        return 1 - (double) distance / maxLength;
+    }
 
-        int distance = upperLine[len1];
-        return 1 - (double) distance / Math.max(len1, len2);
+    private int distance(final PreparedString value1, final PreparedString value2) {
+        // The shorter string is the pattern, like in the calculation on unprepared strings
+        if (value1.getValue().length() <= value2.getValue().length())
+            return value1.getPattern().distance(value2.getValue(), this.withDamerau);
+        return value2.getPattern().distance(value1.getValue(), this.withDamerau);
+    }
+
+    /**
+     * Calculates the Levenshtein similarities of one query string to many candidate strings. The bit vectors of the
+     * query are compiled once and matched against every candidate in parallel; the candidates are not compiled.
+     * @param query The string that is compared to all candidates.
+     * @param candidates The strings that the query is compared to.
+     * @param similarities The array that receives the similarity of the query and candidates[i] at index i.
+     */
+    @Override
+    public void calculateOneToMany(final String query, final String[] candidates, final double[] similarities) {
+        BitParallelLevenshtein pattern = (query == null || query.isEmpty()) ? null : BitParallelLevenshtein.compile(query);
+        IntStream.range(0, candidates.length).parallel()
+                .forEach(i -> similarities[i] = this.calculate(pattern, query, candidates[i]));
+    }
+
+    /**
+     * Calculates the Levenshtein similarities of all pairs of strings of the two lists. Every string of the first list
+     * is compiled once and matched against all strings of the second list; the rows are calculated in parallel.
+     * @param strings1 The strings that determine the rows of the similarity matrix.
+     * @param strings2 The strings that determine the columns of the similarity matrix.
+     * @param similarities The array that receives the similarity of strings1[i] and strings2[j] at index
+     *                     i * strings2.length + j.
+     */
+    @Override
+    public void calculateManyToMany(final String[] strings1, final String[] strings2, final double[] similarities) {
+        IntStream.range(0, strings1.length).parallel().forEach(i -> {
+            String string1 = strings1[i];
+            BitParallelLevenshtein pattern = (string1 == null || string1.isEmpty()) ? null : BitParallelLevenshtein.compile(string1);
+            for (int j = 0; j < strings2.length; j++)
+                similarities[i * strings2.length + j] = this.calculate(pattern, string1, strings2[j]);
+        });
+    }
+
+    private double calculate(final BitParallelLevenshtein pattern, final String string1, final String string2) {
+        if (pattern == null || string2 == null || string2.isEmpty())
+            return this.calculate(string1, string2);
+
+        // A compiled pattern is only read during the calculation, so that all threads can share it
+        int distance = pattern.distance(string2, this.withDamerau);
+        return 1 - (double) distance / Math.max(string1.length(), string2.length());
     }
 
     /**
@@ -110,7 +194,7 @@ public class Levenshtein implements SimilarityMeasure {
                 int insertion = lowerLine[j - 1] + 1;
                 int substitution = upperLine[j - 1] + cost;
 
-                int distance = min(deletion, insertion, substitution);
+                int distance = Math.min(Math.min(deletion, insertion), substitution);
 
                 if (withDamerau && i > 1 && j > 1 &&
                         strings2[i - 1].equals(strings1[j - 2]) &&
@@ -130,6 +214,27 @@ public class Levenshtein implements SimilarityMeasure {
         int distance = upperLine[len1];
         return 1 - (double) distance / Math.max(len1, len2);
     }
+
+    /**
+     * A string with the compiled bit vectors of the bit-parallel engine, which do not depend on withDamerau and, hence,
+     * serve all Levenshtein instances.
+     */
+    @Getter
+    private static class PreparedString extends PreparedValue {
+
+        // The compiled bit vectors of the string or null if the string is null.
+        private final BitParallelLevenshtein pattern;
+
+        PreparedString(final String string) {
+            super(string);
+            this.pattern = (string == null) ? null : BitParallelLevenshtein.compile(string);
+        }
+
+        @Override
+        public boolean isPreparedBy(SimilarityMeasure similarityMeasure) {
+            return similarityMeasure instanceof Levenshtein;
+        }
+    }
 }
 
 
@@ -182,7 +287,7 @@ public class Levenshtein implements SimilarityMeasure {
 //                int insertion = lowerLine[j - 1] + 1;
 //                int substitution = upperLine[j - 1] + cost;
 //
-//                int distance = min(deletion, insertion, substitution);
+//                int distance = Math.min(Math.min(deletion, insertion), substitution);
 //
 //                // Damerau-Levenshtein
 //                if (withDamerau && i > 1 && j > 1 &&
@@ -238,7 +343,7 @@ public class Levenshtein implements SimilarityMeasure {
 //                int insertion = lowerLine[j - 1] + 1;
 //                int substitution = upperLine[j - 1] + cost;
 //
-//                int distance = min(deletion, insertion, substitution);
+//                int distance = Math.min(Math.min(deletion, insertion), substitution);
 //
 //                if (withDamerau && i > 1 && j > 1 &&
 //                        strings2[i - 1].equals(strings1[j - 2]) &&
@@ -71,24 +71,48 @@
 package de.di.similarity_measures;
 
 import de.di.similarity_measures.helper.MinHash;
+import de.di.similarity_measures.helper.NumericMinHash;
 import de.di.similarity_measures.helper.Tokenizer;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import lombok.Getter;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 
 public class LocalitySensitiveHashing implements SimilarityMeasure {
 
+    // The per-thread token code buffers for string comparisons, which are reused to avoid allocations.
+    private static final ThreadLocal<LongArrayList[]> BUFFERS = ThreadLocal.withInitial(() -> new LongArrayList[]{new LongArrayList(), new LongArrayList()});
+
     // The tokenizer that is used to transform string inputs into token lists.
     private final Tokenizer tokenizer;
 
     // The MinHash functions that are used to calculate the LSH signatures.
     private final List<MinHash> minHashFunctions;
 
+    // The numeric MinHash family that replaces the comparator-based MinHash functions if set; null otherwise.
+    private final NumericMinHash numericMinHash;
+
     public LocalitySensitiveHashing(final Tokenizer tokenizer, final int numHashFunctions) {
         this.tokenizer = tokenizer;
         this.minHashFunctions = new ArrayList<>(numHashFunctions);
         for (int i = 0; i < numHashFunctions; i++)
             this.minHashFunctions.add(new MinHash(i));
+        this.numericMinHash = null;
+    }
+
+    /**
+     * Creates an LSH similarity measure whose signatures are calculated with numeric MinHash functions on the token
+     * codes, which avoids Strings for all token sizes and supports all characters, but yields other estimates than the
+     * comparator-based MinHash functions.
+     * @param tokenizer The tokenizer that is used to transform string inputs into token lists.
+     * @param numericMinHash The MinHash family that calculates the signatures.
+     */
+    public LocalitySensitiveHashing(final Tokenizer tokenizer, final NumericMinHash numericMinHash) {
+        this.tokenizer = tokenizer;
+        this.minHashFunctions = new ArrayList<>(0);
+        this.numericMinHash = numericMinHash;
     }
 
     /**
@@ -102,11 +126,105 @@ public class LocalitySensitiveHashing implements SimilarityMeasure {
      */
     @Override
     public double calculate(final String string1, final String string2) {
+        if (this.tokenizer.isPacked() || this.numericMinHash != null) {
+            // Packed token codes in reused buffers are ranked without creating a String per token
+            LongArrayList[] buffers = BUFFERS.get();
+            return this.calculate(this.tokenizer.tokenizeCodes(string1, buffers[0]), this.tokenizer.tokenizeCodes(string2, buffers[1]));
+        }
         String[] strings1 = this.tokenizer.tokenize(string1);
         String[] strings2 = this.tokenizer.tokenize(string2);
         return this.calculate(strings1, strings2);
     }
 
+    /**
+     * Calculates the numeric MinHash signature of the input string, e.g., to add it to an LshIndex.
+     * @param string The string whose signature should be calculated.
+     * @return The signature.
+     */
+    public int[] signature(final String string) {
+        if (this.numericMinHash == null)
+            throw new IllegalStateException("Numeric signatures need an LSH instance with a NumericMinHash family");
+        LongArrayList codes = this.tokenizer.tokenizeCodes(string, BUFFERS.get()[0]);
+        return this.numericMinHash.signature(codes.elements(), codes.size());
+    }
+
+    /**
+     * Calculates the LSH similarity of two packed token code lists, i.e., of Tokenizer.tokenizeCodes() of a tokenizer
+     * that isPacked(). The result equals the one of the two corresponding token arrays.
+     * @param codes1 The first token code list argument for the similarity calculation.
+     * @param codes2 The second token code list argument for the similarity calculation.
+     * @return The LSH similarity (= Jaccard approximation) of the two arguments.
+     */
+    public double calculate(final LongArrayList codes1, final LongArrayList codes2) {
+        if (this.numericMinHash != null)
+            return NumericMinHash.estimate(this.numericMinHash.signature(codes1.elements(), codes1.size()), this.numericMinHash.signature(codes2.elements(), codes2.size()));
+        if (!this.tokenizer.isPacked())
+            throw new IllegalStateException("LSH on token codes needs packed codes, but the token size is " + this.tokenizer.getTokenSize());
+
+        int k = this.minHashFunctions.size();
+        int matchCount = 0;
+        for (MinHash minHash : this.minHashFunctions) {
+            int index1 = minHash.minIndex(codes1, this.tokenizer);
+            int index2 = minHash.minIndex(codes2, this.tokenizer);
+            // Empty token lists have the empty signature, which only matches itself
+            if ((index1 < 0 && index2 < 0) || (index1 >= 0 && index2 >= 0 && codes1.getLong(index1) == codes2.getLong(index2)))
+                matchCount++;
+        }
+        return (double) matchCount / k;
+    }
+
+    /**
+     * Prepares the input string by calculating its LSH signature once.
+     * @param string The string that should be prepared.
+     * @return The prepared string.
+     */
+    @Override
+    public PreparedValue prepare(final String string) {
+        if (this.numericMinHash != null) {
+            LongArrayList codes = this.tokenizer.tokenizeCodes(string, BUFFERS.get()[0]);
+            return new PreparedSignature(string, this, codes.isEmpty(), null, null, this.numericMinHash.signature(codes.elements(), codes.size()));
+        }
+        int k = this.minHashFunctions.size();
+        if (this.tokenizer.isPacked()) {
+            LongArrayList codes = this.tokenizer.tokenizeCodes(string, BUFFERS.get()[0]);
+            long[] signature = new long[k];
+            for (int i = 0; i < k && !codes.isEmpty(); i++)
+                signature[i] = codes.getLong(this.minHashFunctions.get(i).minIndex(codes, this.tokenizer));
+            return new PreparedSignature(string, this, codes.isEmpty(), signature, null, null);
+        }
+        String[] tokens = this.tokenizer.tokenize(string);
+        String[] signature = new String[k];
+        for (int i = 0; i < k; i++)
+            signature[i] = this.minHashFunctions.get(i).hash(tokens);
+        return new PreparedSignature(string, this, tokens.length == 0, null, signature, null);
+    }
+
+    @Override
+    public double calculate(final PreparedValue value1, final PreparedValue value2) {
+        if (!value1.isPreparedBy(this) || !value2.isPreparedBy(this))
+            return this.calculate(value1.getValue(), value2.getValue());
+
+        PreparedSignature signature1 = (PreparedSignature) value1;
+        PreparedSignature signature2 = (PreparedSignature) value2;
+        if (signature1.getHashes() != null)
+            return NumericMinHash.estimate(signature1.getHashes(), signature2.getHashes());
+        int k = this.minHashFunctions.size();
+        int matchCount = 0;
+        if (signature1.getCodes() != null) {
+            // Empty token lists have the empty signature, which only matches itself
+            if (signature1.isEmpty() || signature2.isEmpty())
+                return (signature1.isEmpty() && signature2.isEmpty()) ? 1 : 0;
+            for (int i = 0; i < k; i++)
+                if (signature1.getCodes()[i] == signature2.getCodes()[i])
+                    matchCount++;
+        } else {
+            for (int i = 0; i < k; i++)
+                if (signature1.getStrings()[i].equals(signature2.getStrings()[i]))
+                    matchCount++;
+        }
+        return (double) matchCount / k;
+    }
+
     /**
      * Calculates the LSH similarity of the two input string arrays.
      * The LHS algorithm calculates the LHS signatures by applying its internal MinHash functions to the two input string
@@ -118,6 +236,9 @@ public class LocalitySensitiveHashing implements SimilarityMeasure {
      */
     @Override
     public double calculate(final String[] strings1, final String[] strings2) {
+        if (this.numericMinHash != null)
+            return NumericMinHash.estimate(this.numericMinHash.signature(codesOf(strings1), strings1.length), this.numericMinHash.signature(codesOf(strings2), strings2.length));
+
         double lshJaccard = 0;
         int k = this.minHashFunctions.size();
 
@@ -149,5 +270,79 @@ public class LocalitySensitiveHashing implements SimilarityMeasure {
 
         return lshJaccard;
     }
+
+    /**
+     * Calculates the LSH similarities of all pairs of string lists of the two inputs. The signature of every list is
+     * calculated once instead of once per pair; the signatures are then compared in parallel.
+     * @param stringLists1 The string lists that determine the rows of the similarity matrix.
+     * @param stringLists2 The string lists that determine the columns of the similarity matrix.
+     * @param similarities The array that receives the similarity of stringLists1[i] and stringLists2[j] at index
+     *                     i * stringLists2.length + j.
+     */
+    @Override
+    public void calculateManyToMany(final String[][] stringLists1, final String[][] stringLists2, final double[] similarities) {
+        PreparedValue[] signatures1 = new PreparedValue[stringLists1.length];
+        PreparedValue[] signatures2 = new PreparedValue[stringLists2.length];
+        IntStream.range(0, stringLists1.length).parallel().forEach(i -> signatures1[i] = this.prepare(stringLists1[i]));
+        IntStream.range(0, stringLists2.length).parallel().forEach(j -> signatures2[j] = this.prepare(stringLists2[j]));
+        IntStream.range(0, signatures1.length).parallel().forEach(i -> {
+            for (int j = 0; j < signatures2.length; j++)
+                similarities[i * signatures2.length + j] = this.calculate(signatures1[i], signatures2[j]);
+        });
+    }
+
+    private PreparedSignature prepare(final String[] tokens) {
+        // The signatures equal the ones of calculate(String[], String[])
+        if (this.numericMinHash != null)
+            return new PreparedSignature(null, this, tokens.length == 0, null, null, this.numericMinHash.signature(codesOf(tokens), tokens.length));
+        String[] signature = new String[this.minHashFunctions.size()];
+        for (int i = 0; i < signature.length; i++)
+            signature[i] = this.minHashFunctions.get(i).hash(tokens);
+        return new PreparedSignature(null, this, tokens.length == 0, null, signature, null);
+    }
+
+    private static long[] codesOf(final String[] tokens) {
+        long[] codes = new long[tokens.length];
+        for (int i = 0; i < tokens.length; i++)
+            codes[i] = Tokenizer.codeOf(tokens[i]);
+        return codes;
+    }
+
+    /**
+     * A string with its LSH signature, which holds either the packed codes or the Strings of the minimum tokens.
+     */
+    @Getter
+    private static class PreparedSignature extends PreparedValue {
+
+        // The LSH instance whose MinHash functions calculated the signature.
+        private final LocalitySensitiveHashing lsh;
+
+        // Whether the string has no tokens, which makes all minimum tokens the empty token.
+        private final boolean empty;
+
+        // The packed codes of the minimum tokens if the comparator-based MinHash functions use a packed tokenizer; null
+        // otherwise.
+        private final long[] codes;
+
+        // The minimum tokens if the comparator-based MinHash functions use an unpacked tokenizer; null otherwise.
+        private final String[] strings;
+
+        // The signature of the numeric MinHash family if the LSH instance uses one; null otherwise.
+        private final int[] hashes;
+
+        PreparedSignature(String string, LocalitySensitiveHashing lsh, boolean empty, long[] codes, String[] strings, int[] hashes) {
+            super(string);
+            this.lsh = lsh;
+            this.empty = empty;
+            this.codes = codes;
+            this.strings = strings;
+            this.hashes = hashes;
+        }
+
+        @Override
+        public boolean isPreparedBy(SimilarityMeasure similarityMeasure) {
+            return similarityMeasure == this.lsh;
+        }
+    }
 }
 
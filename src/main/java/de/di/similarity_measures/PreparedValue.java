@@ -0,0 +1,27 @@
+package de.di.similarity_measures;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A value together with the state that a similarity measure derives from it before any comparison, e.g., its sorted
+ * token codes or compiled bit vectors. A value that meets several others is prepared once with
+ * SimilarityMeasure.prepare() and then compared with SimilarityMeasure.calculate(PreparedValue, PreparedValue).
+ * Similarity measures extend this class for their state; the base class only keeps the value.
+ */
+@Getter
+@AllArgsConstructor
+public class PreparedValue {
+
+    // The original value, which may be null.
+    private final String value;
+
+    /**
+     * Checks whether this value was prepared by the provided similarity measure and, hence, carries its state.
+     * @param similarityMeasure The similarity measure that wants to use the prepared state.
+     * @return true if the state belongs to the similarity measure.
+     */
+    public boolean isPreparedBy(SimilarityMeasure similarityMeasure) {
+        return false;
+    }
+}
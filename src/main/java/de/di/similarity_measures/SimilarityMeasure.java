@@ -1,8 +1,108 @@
 package de.di.similarity_measures;
 
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
 public interface SimilarityMeasure {
 
+    // The result of a threshold-bounded calculation whose similarity is provably below the threshold.
+    double BELOW_THRESHOLD = -1;
+
     double calculate(final String string1, final String string2);
 
     double calculate(final String[] strings1, final String[] strings2);
+
+    /**
+     * Calculates the similarity of the two input strings if it can reach the provided minimum similarity. Measures may
+     * override this to stop as soon as the minimum is unreachable instead of computing the exact similarity.
+     * @param string1 The first string argument for the similarity calculation.
+     * @param string2 The second string argument for the similarity calculation.
+     * @param minSimilarity The smallest similarity of interest.
+     * @return The exact similarity if it is at least minSimilarity; otherwise, BELOW_THRESHOLD or the exact similarity.
+     */
+    default double calculate(final String string1, final String string2, final double minSimilarity) {
+        double similarity = this.calculate(string1, string2);
+        return (similarity >= minSimilarity) ? similarity : BELOW_THRESHOLD;
+    }
+
+    /**
+     * Prepares the input string for repeated comparisons; measures override this to derive their per-value state,
+     * e.g., tokens or signatures, once instead of in every comparison.
+     * @param string The string that should be prepared.
+     * @return The prepared string.
+     */
+    default PreparedValue prepare(final String string) {
+        return new PreparedValue(string);
+    }
+
+    /**
+     * Calculates the similarity of the two prepared values, which equals the similarity of their strings.
+     * @param value1 The first prepared argument for the similarity calculation.
+     * @param value2 The second prepared argument for the similarity calculation.
+     * @return The similarity of the two arguments.
+     */
+    default double calculate(final PreparedValue value1, final PreparedValue value2) {
+        return this.calculate(value1.getValue(), value2.getValue());
+    }
+
+    /**
+     * Calculates the similarity of the two prepared values if it can reach the provided minimum similarity.
+     * @param value1 The first prepared argument for the similarity calculation.
+     * @param value2 The second prepared argument for the similarity calculation.
+     * @param minSimilarity The smallest similarity of interest.
+     * @return The exact similarity if it is at least minSimilarity; otherwise, BELOW_THRESHOLD or the exact similarity.
+     */
+    default double calculate(final PreparedValue value1, final PreparedValue value2, final double minSimilarity) {
+        double similarity = this.calculate(value1, value2);
+        return (similarity >= minSimilarity) ? similarity : BELOW_THRESHOLD;
+    }
+
+    /**
+     * Calculates the similarities of one query string to many candidate strings. The query is prepared once and the
+     * candidates are compared in parallel on the common fork-join pool; measures may override this to reuse more of
+     * their per-query state.
+     * @param query The string that is compared to all candidates.
+     * @param candidates The strings that the query is compared to.
+     * @param similarities The array that receives the similarity of the query and candidates[i] at index i; it needs
+     *                     at least candidates.length elements.
+     */
+    default void calculateOneToMany(final String query, final String[] candidates, final double[] similarities) {
+        PreparedValue preparedQuery = this.prepare(query);
+        IntStream.range(0, candidates.length).parallel()
+                .forEach(i -> similarities[i] = this.calculate(preparedQuery, this.prepare(candidates[i])));
+    }
+
+    /**
+     * Calculates the similarities of all pairs of strings of the two lists. Every string is prepared once and the rows
+     * of the similarity matrix are calculated in parallel on the common fork-join pool.
+     * @param strings1 The strings that determine the rows of the similarity matrix.
+     * @param strings2 The strings that determine the columns of the similarity matrix.
+     * @param similarities The array that receives the similarity matrix in row-major order, i.e., the similarity of
+     *                     strings1[i] and strings2[j] at index i * strings2.length + j; it needs at least
+     *                     strings1.length * strings2.length elements.
+     */
+    default void calculateManyToMany(final String[] strings1, final String[] strings2, final double[] similarities) {
+        PreparedValue[] prepared1 = Arrays.stream(strings1).parallel().map(this::prepare).toArray(PreparedValue[]::new);
+        PreparedValue[] prepared2 = Arrays.stream(strings2).parallel().map(this::prepare).toArray(PreparedValue[]::new);
+        IntStream.range(0, prepared1.length).parallel().forEach(i -> {
+            for (int j = 0; j < prepared2.length; j++)
+                similarities[i * prepared2.length + j] = this.calculate(prepared1[i], prepared2[j]);
+        });
+    }
+
+    /**
+     * Calculates the similarities of all pairs of string lists, e.g., token lists or the value lists of columns, of the
+     * two inputs. The rows of the similarity matrix are calculated in parallel on the common fork-join pool.
+     * @param stringLists1 The string lists that determine the rows of the similarity matrix.
+     * @param stringLists2 The string lists that determine the columns of the similarity matrix.
+     * @param similarities The array that receives the similarity matrix in row-major order, i.e., the similarity of
+     *                     stringLists1[i] and stringLists2[j] at index i * stringLists2.length + j; it needs at least
+     *                     stringLists1.length * stringLists2.length elements.
+     */
+    default void calculateManyToMany(final String[][] stringLists1, final String[][] stringLists2, final double[] similarities) {
+        IntStream.range(0, stringLists1.length).parallel().forEach(i -> {
+            for (int j = 0; j < stringLists2.length; j++)
+                similarities[i * stringLists2.length + j] = this.calculate(stringLists1[i], stringLists2[j]);
+        });
+    }
 }
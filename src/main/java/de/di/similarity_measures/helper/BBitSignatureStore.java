@@ -0,0 +1,132 @@
+package de.di.similarity_measures.helper;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * A compact store for MinHash signatures, e.g., of NumericMinHash, that keeps only the lowest b bits of every
+ * signature value, packed into longs, which needs 32 / b times less memory than int signatures. Two b-bit values are
+ * equal if the full values are equal, but also by accident with probability 1 / 2^b otherwise; the similarity
+ * estimate corrects for these accidental collisions (b-bit MinHash, Li and König): with P the fraction of equal b-bit
+ * values, the Jaccard similarity is estimated as (P - 1 / 2^b) / (1 - 1 / 2^b).
+ */
+@Getter
+public class BBitSignatureStore {
+
+    // The number of values per signature.
+    private final int numHashFunctions;
+
+    // The number of bits that are kept per value; 1, 2, 4, or 8.
+    private final int bits;
+
+    // The number of longs per signature; every signature starts at a new long.
+    private final int wordsPerSignature;
+
+    // The packed signatures, one after the other.
+    @Getter(AccessLevel.NONE)
+    private final LongArrayList words = new LongArrayList();
+
+    // The lowest bit of every packed value, e.g., 0x5555... for b = 2.
+    @Getter(AccessLevel.NONE)
+    private final long lowBits;
+
+    /**
+     * Creates an empty store.
+     * @param numHashFunctions The number of values per signature.
+     * @param bits The number of bits that are kept per value; 1, 2, 4, or 8.
+     */
+    public BBitSignatureStore(final int numHashFunctions, final int bits) {
+        if (bits != 1 && bits != 2 && bits != 4 && bits != 8)
+            throw new IllegalArgumentException("Only 1, 2, 4, or 8 bits per value are supported, but got " + bits);
+        this.numHashFunctions = numHashFunctions;
+        this.bits = bits;
+        this.wordsPerSignature = (numHashFunctions * bits + 63) >>> 6;
+
+        long lowBits = 0;
+        for (int shift = 0; shift < 64; shift += bits)
+            lowBits |= 1L << shift;
+        this.lowBits = lowBits;
+    }
+
+    /**
+     * Adds a signature to the store.
+     * @param signature The signature with numHashFunctions values.
+     * @return The id of the signature, which counts the added signatures from 0.
+     */
+    public int add(final int[] signature) {
+        int id = this.size();
+        long[] packed = this.pack(signature);
+        for (long word : packed)
+            this.words.add(word);
+        return id;
+    }
+
+    /**
+     * Returns the number of signatures in the store.
+     * @return The number of signatures.
+     */
+    public int size() {
+        return this.words.size() / this.wordsPerSignature;
+    }
+
+    /**
+     * Estimates the Jaccard similarity of two stored signatures.
+     * @param id1 The id of the first signature.
+     * @param id2 The id of the second signature.
+     * @return The estimated Jaccard similarity.
+     */
+    public double estimate(final int id1, final int id2) {
+        long[] elements = this.words.elements();
+        int differences = 0;
+        for (int w = 0; w < this.wordsPerSignature; w++)
+            differences += this.countDifferences(elements[id1 * this.wordsPerSignature + w] ^ elements[id2 * this.wordsPerSignature + w]);
+        return this.correct(differences);
+    }
+
+    /**
+     * Estimates the Jaccard similarity of a query signature, which is not stored, and a stored signature.
+     * @param signature The query signature with numHashFunctions values.
+     * @param id The id of the stored signature.
+     * @return The estimated Jaccard similarity.
+     */
+    public double estimate(final int[] signature, final int id) {
+        long[] packed = this.pack(signature);
+        long[] elements = this.words.elements();
+        int differences = 0;
+        for (int w = 0; w < this.wordsPerSignature; w++)
+            differences += this.countDifferences(packed[w] ^ elements[id * this.wordsPerSignature + w]);
+        return this.correct(differences);
+    }
+
+    private long[] pack(final int[] signature) {
+        if (signature.length != this.numHashFunctions)
+            throw new IllegalArgumentException("The signature has " + signature.length + " values, but the store expects " + this.numHashFunctions);
+
+        long[] packed = new long[this.wordsPerSignature];
+        long mask = (1L << this.bits) - 1;
+        for (int i = 0; i < signature.length; i++) {
+            // Mixing makes the kept bits depend on all bits of the value
+            long value = HashCommon.murmurHash3(signature[i]) & mask;
+            int position = i * this.bits;
+            packed[position >>> 6] |= value << (position & 63);
+        }
+        return packed;
+    }
+
+    private int countDifferences(final long xor) {
+        // Fold every value's bits onto its lowest bit, so that one bit per value tells whether the values differ; the
+        // unused bits of the last word are zero in all signatures and never count
+        long folded = xor;
+        for (int shift = 1; shift < this.bits; shift <<= 1)
+            folded |= folded >>> shift;
+        return Long.bitCount(folded & this.lowBits);
+    }
+
+    private double correct(final int differences) {
+        double equalFraction = (double) (this.numHashFunctions - differences) / this.numHashFunctions;
+        double accidental = 1.0 / (1 << this.bits);
+        return Math.max(0, (equalFraction - accidental) / (1 - accidental));
+    }
+}
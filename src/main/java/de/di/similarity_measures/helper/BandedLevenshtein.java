@@ -0,0 +1,74 @@
+package de.di.similarity_measures.helper;
+
+import java.util.Arrays;
+
+/**
+ * Calculates a threshold-bounded Levenshtein or optimal string alignment (OSA) distance with Ukkonen's banded dynamic
+ * program: if the distance may not exceed k, only the cells whose row and column differ by at most k can lie on an
+ * optimal path, so every row computes at most 2k + 1 cells. The calculation stops as soon as no cell of the current
+ * row can lead to a distance of at most k anymore.
+ */
+public class BandedLevenshtein {
+
+    private BandedLevenshtein() {
+    }
+
+    /**
+     * Calculates the edit distance of the two strings if it is at most maxDistance.
+     * @param string1 The first string.
+     * @param string2 The second string.
+     * @param maxDistance The largest distance of interest.
+     * @param withTranspositions Whether swaps of adjacent characters count as one edit (OSA distance) or two.
+     * @return The number of edits that transform one string into the other, or maxDistance + 1 if it is larger than
+     * maxDistance.
+     */
+    public static int distance(final String string1, final String string2, final int maxDistance, final boolean withTranspositions) {
+        int n = string1.length();
+        int m = string2.length();
+        if (maxDistance < 0 || Math.abs(n - m) > maxDistance)
+            return maxDistance + 1;
+
+        // No distance exceeds the longer length, so a larger bound is clamped, which keeps limit + 1 in the int range
+        int limit = Math.min(maxDistance, Math.max(n, m));
+        int exceeded = limit + 1;
+
+        // The cells outside the band keep the value exceeded, which also caps all values inside the band
+        int[] previousPrevious = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        Arrays.fill(previousPrevious, exceeded);
+        Arrays.fill(previous, exceeded);
+        Arrays.fill(current, exceeded);
+        for (int j = 0; j <= Math.min(m, limit); j++)
+            previous[j] = j;
+
+        for (int i = 1; i <= n; i++) {
+            int low = Math.max(1, i - limit);
+            int high = Math.min(m, i + limit);
+            current[low - 1] = (low == 1 && i <= limit) ? i : exceeded;
+
+            // A cell can only lead to the last cell if its value plus the remaining length difference is small enough
+            int bound = current[low - 1] + Math.abs((m - low + 1) - (n - i));
+            char c1 = string1.charAt(i - 1);
+            for (int j = low; j <= high; j++) {
+                char c2 = string2.charAt(j - 1);
+                int distance = Math.min(Math.min(previous[j], current[j - 1]) + 1, previous[j - 1] + ((c1 == c2) ? 0 : 1));
+                if (withTranspositions && i > 1 && j > 1 && c1 == string2.charAt(j - 2) && string1.charAt(i - 2) == c2)
+                    distance = Math.min(distance, previousPrevious[j - 2] + 1);
+                distance = Math.min(distance, exceeded);
+                current[j] = distance;
+                bound = Math.min(bound, distance + Math.abs((m - j) - (n - i)));
+            }
+            if (high < m)
+                current[high + 1] = exceeded;
+            if (bound > limit)
+                return exceeded;
+
+            int[] temp = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = temp;
+        }
+        return previous[m];
+    }
+}
@@ -0,0 +1,224 @@
+package de.di.similarity_measures.helper;
+
+import it.unimi.dsi.fastutil.chars.Char2ObjectOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Calculates the Levenshtein distance and the optimal string alignment (OSA), i.e., restricted Damerau-Levenshtein
+ * distance of two strings with the bit-parallel algorithms of Myers and Hyyrö: one column of the dynamic programming
+ * matrix is encoded as vertical deltas in the bits of machine words, so that a whole column is computed with a few
+ * word operations. Strings of up to 64 characters fit into a single word; longer strings are processed in blocks of
+ * 64 characters whose carries are passed from word to word. The results are exactly those of the classic dynamic
+ * program.
+ */
+public class BitParallelLevenshtein {
+
+    // The per-thread match tables, which are reused and cleaned up after every calculation to avoid allocations.
+    private static final ThreadLocal<BitParallelLevenshtein> TABLES = ThreadLocal.withInitial(BitParallelLevenshtein::new);
+
+    // The match bit vectors of all Latin-1 characters: bit i of word w of character c is set if pattern[64 * w + i] == c;
+    // compiled patterns have no such table and keep all their characters in the map to stay small.
+    private long[] latin1;
+
+    // The match bit vectors of all other characters of the pattern.
+    private final Char2ObjectOpenHashMap<long[]> others = new Char2ObjectOpenHashMap<>();
+
+    private int numWords = 1;
+
+    // The pattern of a compiled instance, whose match bit vectors are built once and kept.
+    private String pattern;
+
+    private BitParallelLevenshtein() {
+        this.latin1 = new long[256];
+    }
+
+    private BitParallelLevenshtein(final String pattern) {
+        this.latin1 = null;
+        this.pattern = pattern;
+        this.build(pattern);
+    }
+
+    /**
+     * Builds the match bit vectors of the provided string once, so that the string can be compared to many others
+     * with distance(String, boolean) without rebuilding them for every comparison.
+     * @param pattern The string that should be compiled.
+     * @return The compiled pattern.
+     */
+    public static BitParallelLevenshtein compile(final String pattern) {
+        return new BitParallelLevenshtein(pattern);
+    }
+
+    /**
+     * Calculates the edit distance of this compiled pattern and the provided string.
+     * @param text The string that the pattern should be compared to.
+     * @param withTranspositions Whether swaps of adjacent characters count as one edit (OSA distance) or two.
+     * @return The number of edits that transform one string into the other.
+     */
+    public int distance(final String text, final boolean withTranspositions) {
+        if (this.pattern.isEmpty())
+            return text.length();
+        if (this.numWords == 1)
+            return withTranspositions ? this.osaSingleWord(this.pattern.length(), text) : this.levenshteinSingleWord(this.pattern.length(), text);
+        return this.blocks(this.pattern.length(), text, withTranspositions);
+    }
+
+    /**
+     * Calculates the edit distance of the two strings.
+     * @param string1 The first string.
+     * @param string2 The second string.
+     * @param withTranspositions Whether swaps of adjacent characters count as one edit (OSA distance) or two.
+     * @return The number of edits that transform one string into the other.
+     */
+    public static int distance(final String string1, final String string2, final boolean withTranspositions) {
+        // The shorter string becomes the pattern, whose length determines the number of words
+        String pattern = (string1.length() <= string2.length()) ? string1 : string2;
+        String text = (pattern == string1) ? string2 : string1;
+        if (pattern.isEmpty())
+            return text.length();
+
+        BitParallelLevenshtein tables = TABLES.get();
+        tables.build(pattern);
+        try {
+            if (tables.numWords == 1)
+                return withTranspositions ? tables.osaSingleWord(pattern.length(), text) : tables.levenshteinSingleWord(pattern.length(), text);
+            return tables.blocks(pattern.length(), text, withTranspositions);
+        } finally {
+            tables.clear(pattern);
+        }
+    }
+
+    private void build(final String pattern) {
+        this.numWords = Math.max(1, (pattern.length() + 63) >>> 6);
+        if (this.latin1 != null && this.latin1.length < 256 * this.numWords)
+            this.latin1 = new long[256 * this.numWords];
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c < 256 && this.latin1 != null) {
+                this.latin1[c * this.numWords + (i >>> 6)] |= 1L << i;
+            } else {
+                long[] vector = this.others.get(c);
+                if (vector == null) {
+                    vector = new long[this.numWords];
+                    this.others.put(c, vector);
+                }
+                vector[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+
+    private void clear(final String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c < 256)
+                this.latin1[c * this.numWords + (i >>> 6)] = 0;
+        }
+        this.others.clear();
+    }
+
+    private long match(final char c, final int word) {
+        if (c < 256 && this.latin1 != null)
+            return this.latin1[c * this.numWords + word];
+        long[] vector = this.others.get(c);
+        return (vector == null) ? 0 : vector[word];
+    }
+
+    private int levenshteinSingleWord(final int m, final String text) {
+        long last = 1L << (m - 1);
+        long vp = -1L;
+        long vn = 0;
+        int distance = m;
+        for (int j = 0; j < text.length(); j++) {
+            long eq = this.match(text.charAt(j), 0);
+            long d0 = (((eq & vp) + vp) ^ vp) | eq | vn;
+            long hp = vn | ~(d0 | vp);
+            long hn = vp & d0;
+            if ((hp & last) != 0)
+                distance++;
+            else if ((hn & last) != 0)
+                distance--;
+            hp = (hp << 1) | 1;
+            hn = hn << 1;
+            vp = hn | ~(d0 | hp);
+            vn = hp & d0;
+        }
+        return distance;
+    }
+
+    private int osaSingleWord(final int m, final String text) {
+        long last = 1L << (m - 1);
+        long vp = -1L;
+        long vn = 0;
+        long d0 = 0;
+        long previousEq = 0;
+        int distance = m;
+        for (int j = 0; j < text.length(); j++) {
+            long eq = this.match(text.charAt(j), 0);
+            // Transpositions: the pattern's characters at i - 1 and i match the text's characters at j and j - 1
+            long tr = (((~d0) & eq) << 1) & previousEq;
+            d0 = (((eq & vp) + vp) ^ vp) | eq | vn | tr;
+            long hp = vn | ~(d0 | vp);
+            long hn = vp & d0;
+            if ((hp & last) != 0)
+                distance++;
+            else if ((hn & last) != 0)
+                distance--;
+            hp = (hp << 1) | 1;
+            hn = hn << 1;
+            vp = hn | ~(d0 | hp);
+            vn = hp & d0;
+            previousEq = eq;
+        }
+        return distance;
+    }
+
+    private int blocks(final int m, final String text, final boolean withTranspositions) {
+        int words = this.numWords;
+        long last = 1L << ((m - 1) & 63);
+        long[] vp = new long[words];
+        long[] vn = new long[words];
+        long[] d0 = new long[words];
+        long[] previousEq = new long[words];
+        Arrays.fill(vp, -1L);
+        int distance = m;
+
+        for (int j = 0; j < text.length(); j++) {
+            char c = text.charAt(j);
+            // The horizontal delta that enters the current word from the word below; the top row adds +1 per column
+            int carry = 1;
+            long lowerOldD0 = 0;
+            long lowerEq = 0;
+            for (int w = 0; w < words; w++) {
+                long eq = this.match(c, w);
+                long oldD0 = d0[w];
+                long hpIn = (carry > 0) ? 1 : 0;
+                long hnIn = (carry < 0) ? 1 : 0;
+
+                long x = eq | hnIn;
+                long d = (((x & vp[w]) + vp[w]) ^ vp[w]) | x | vn[w];
+                if (withTranspositions)
+                    d |= ((((~oldD0) & eq) << 1) | (((~lowerOldD0) & lowerEq) >>> 63)) & previousEq[w];
+                long hp = vn[w] | ~(d | vp[w]);
+                long hn = vp[w] & d;
+
+                if (w == words - 1) {
+                    if ((hp & last) != 0)
+                        distance++;
+                    else if ((hn & last) != 0)
+                        distance--;
+                }
+                carry = (int) (hp >>> 63) - (int) (hn >>> 63);
+
+                hp = (hp << 1) | hpIn;
+                hn = (hn << 1) | hnIn;
+                vp[w] = hn | ~(d | hp);
+                vn[w] = hp & d;
+                d0[w] = d;
+                previousEq[w] = eq;
+                lowerOldD0 = oldD0;
+                lowerEq = eq;
+            }
+        }
+        return distance;
+    }
+}
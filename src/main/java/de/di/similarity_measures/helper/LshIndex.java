@@ -0,0 +1,234 @@
+package de.di.similarity_measures.helper;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An index for MinHash signatures, e.g., of NumericMinHash, that finds similar items without comparing all pairs: every
+ * signature is split into b bands of r rows, and every band is hashed into a bucket of that band. Two items become
+ * candidates if they share the bucket of at least one band, which happens with probability 1 - (1 - s^r)^b for items
+ * with Jaccard similarity s; this S-curve rises steeply around the threshold (1/b)^(1/r), so that similar items are
+ * found with high probability and dissimilar ones are rarely compared. The candidates are then verified with the
+ * signature estimate.
+ */
+@Getter
+public class LshIndex {
+
+    // The number of bands b.
+    private final int numBands;
+
+    // The number of signature values per band r.
+    private final int rowsPerBand;
+
+    // The signatures of all items; the index of a signature is the id of its item.
+    @Getter(AccessLevel.NONE)
+    private final List<int[]> signatures = new ArrayList<>();
+
+    // Per band, the last item that was added to each bucket; -1 for empty buckets.
+    @Getter(AccessLevel.NONE)
+    private final Long2IntOpenHashMap[] buckets;
+
+    // Per band, the next item of the same bucket for every item; -1 at the end of the bucket's chain.
+    @Getter(AccessLevel.NONE)
+    private final IntArrayList[] nextInBucket;
+
+    /**
+     * Creates an index.
+     * @param numBands The number of bands b.
+     * @param rowsPerBand The number of signature values r per band; signatures need at least b * r values.
+     */
+    public LshIndex(final int numBands, final int rowsPerBand) {
+        this.numBands = numBands;
+        this.rowsPerBand = rowsPerBand;
+        this.buckets = new Long2IntOpenHashMap[numBands];
+        this.nextInBucket = new IntArrayList[numBands];
+        for (int band = 0; band < numBands; band++) {
+            this.buckets[band] = new Long2IntOpenHashMap();
+            this.buckets[band].defaultReturnValue(-1);
+            this.nextInBucket[band] = new IntArrayList();
+        }
+    }
+
+    /**
+     * Creates an index whose bands and rows fit the provided Jaccard threshold best.
+     * @param threshold The Jaccard similarity above which items should become candidates.
+     * @param numHashFunctions The number of values per signature.
+     * @return The index.
+     */
+    public static LshIndex forThreshold(final double threshold, final int numHashFunctions) {
+        int[] bandsAndRows = optimalBandsAndRows(threshold, numHashFunctions, 0.5, 0.5);
+        return new LshIndex(bandsAndRows[0], bandsAndRows[1]);
+    }
+
+    /**
+     * Chooses the number of bands b and rows r with b * r <= numHashFunctions that minimizes the weighted sum of the
+     * probability masses of false positives, i.e., candidates below the threshold, and false negatives, i.e., missed
+     * items above the threshold, under uniformly distributed similarities.
+     * @param threshold The Jaccard similarity above which items should become candidates.
+     * @param numHashFunctions The number of values per signature.
+     * @param falsePositiveWeight The weight of false positives.
+     * @param falseNegativeWeight The weight of false negatives.
+     * @return The pair {b, r}.
+     */
+    public static int[] optimalBandsAndRows(final double threshold, final int numHashFunctions, final double falsePositiveWeight, final double falseNegativeWeight) {
+        int[] best = {numHashFunctions, 1};
+        double bestError = Double.MAX_VALUE;
+        for (int rows = 1; rows <= numHashFunctions; rows++) {
+            int bands = numHashFunctions / rows;
+            double falsePositives = integrate(bands, rows, 0, threshold, false);
+            double falseNegatives = integrate(bands, rows, threshold, 1, true);
+            double error = falsePositiveWeight * falsePositives + falseNegativeWeight * falseNegatives;
+            if (error < bestError) {
+                bestError = error;
+                best = new int[]{bands, rows};
+            }
+        }
+        return best;
+    }
+
+    private static double integrate(final int bands, final int rows, final double from, final double to, final boolean missed) {
+        // Trapezoidal rule over the candidate probability 1 - (1 - s^r)^b or its complement
+        int steps = 100;
+        double width = (to - from) / steps;
+        double area = 0;
+        for (int step = 0; step <= steps; step++) {
+            double similarity = from + step * width;
+            double probability = 1 - Math.pow(1 - Math.pow(similarity, rows), bands);
+            double value = missed ? 1 - probability : probability;
+            area += ((step == 0 || step == steps) ? 0.5 : 1) * value * width;
+        }
+        return area;
+    }
+
+    /**
+     * Adds an item with the provided signature to the index.
+     * @param signature The signature of the item; it is kept for the verification of candidates.
+     * @return The id of the item, which counts the added items from 0.
+     */
+    public int add(final int[] signature) {
+        if (signature.length < this.numBands * this.rowsPerBand)
+            throw new IllegalArgumentException("The signature has " + signature.length + " values, but " + this.numBands + " bands of " + this.rowsPerBand + " rows need " + (this.numBands * this.rowsPerBand));
+
+        int id = this.signatures.size();
+        this.signatures.add(signature);
+        for (int band = 0; band < this.numBands; band++) {
+            long bucket = this.bucketOf(signature, band);
+            this.nextInBucket[band].add(this.buckets[band].put(bucket, id));
+        }
+        return id;
+    }
+
+    /**
+     * Returns the number of items in the index.
+     * @return The number of items.
+     */
+    public int size() {
+        return this.signatures.size();
+    }
+
+    /**
+     * Finds the items that share a bucket with the provided signature in at least one band.
+     * @param signature The signature of the query.
+     * @return The ids of the candidate items.
+     */
+    public IntArrayList query(final int[] signature) {
+        IntOpenHashSet candidates = new IntOpenHashSet();
+        for (int band = 0; band < this.numBands; band++)
+            for (int id = this.buckets[band].get(this.bucketOf(signature, band)); id >= 0; id = this.nextInBucket[band].getInt(id))
+                candidates.add(id);
+        return new IntArrayList(candidates);
+    }
+
+    /**
+     * Finds the items whose estimated Jaccard similarity to the provided signature is at least minSimilarity among the
+     * candidates of query().
+     * @param signature The signature of the query.
+     * @param minSimilarity The smallest estimated similarity of interest.
+     * @return The ids of the similar items.
+     */
+    public IntArrayList query(final int[] signature, final double minSimilarity) {
+        IntArrayList candidates = this.query(signature);
+        IntArrayList neighbours = new IntArrayList();
+        for (int i = 0; i < candidates.size(); i++)
+            if (NumericMinHash.estimate(signature, this.signatures.get(candidates.getInt(i))) >= minSimilarity)
+                neighbours.add(candidates.getInt(i));
+        return neighbours;
+    }
+
+    /**
+     * Finds all pairs of items that share a bucket in at least one band and whose estimated Jaccard similarity is at
+     * least minSimilarity; pass 0 to get all candidate pairs.
+     * @param minSimilarity The smallest estimated similarity of interest.
+     * @return The pairs, each encoded by pairOf().
+     */
+    public LongOpenHashSet candidatePairs(final double minSimilarity) {
+        LongOpenHashSet pairs = new LongOpenHashSet();
+        LongOpenHashSet rejected = new LongOpenHashSet();
+        IntArrayList bucket = new IntArrayList();
+        for (int band = 0; band < this.numBands; band++) {
+            for (IntIterator heads = this.buckets[band].values().iterator(); heads.hasNext(); ) {
+                int head = heads.nextInt();
+                bucket.clear();
+                for (int id = head; id >= 0; id = this.nextInBucket[band].getInt(id))
+                    bucket.add(id);
+                for (int i = 0; i < bucket.size(); i++) {
+                    for (int j = i + 1; j < bucket.size(); j++) {
+                        long pair = pairOf(bucket.getInt(i), bucket.getInt(j));
+                        // Pairs that share several buckets are verified only once
+                        if (pairs.contains(pair) || rejected.contains(pair))
+                            continue;
+                        if (NumericMinHash.estimate(this.signatures.get(bucket.getInt(i)), this.signatures.get(bucket.getInt(j))) >= minSimilarity)
+                            pairs.add(pair);
+                        else
+                            rejected.add(pair);
+                    }
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Encodes a pair of item ids as one long with the smaller id first.
+     * @param id1 The first item id.
+     * @param id2 The second item id.
+     * @return The encoded pair.
+     */
+    public static long pairOf(final int id1, final int id2) {
+        return ((long) Math.min(id1, id2) << 32) | Math.max(id1, id2);
+    }
+
+    /**
+     * Decodes the smaller item id of a pair.
+     * @param pair A pair of pairOf().
+     * @return The smaller item id of the pair.
+     */
+    public static int firstOf(final long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    /**
+     * Decodes the larger item id of a pair.
+     * @param pair A pair of pairOf().
+     * @return The larger item id of the pair.
+     */
+    public static int secondOf(final long pair) {
+        return (int) pair;
+    }
+
+    private long bucketOf(final int[] signature, final int band) {
+        long hash = band;
+        for (int row = band * this.rowsPerBand; row < (band + 1) * this.rowsPerBand; row++)
+            hash = HashCommon.mix(hash * 0x9e3779b97f4a7c15L + signature[row]);
+        return hash;
+    }
+}
@@ -2,6 +2,7 @@ package de.di.similarity_measures.helper;
 
 import it.unimi.dsi.fastutil.chars.Char2IntAVLTreeMap;
 import it.unimi.dsi.fastutil.chars.Char2IntMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 
 import java.util.Comparator;
 import java.util.Random;
@@ -12,6 +13,9 @@ public class MinHash {
     // The comparator for the MinHashing; the comparator defines the sortation for this token-based minhash function
     private final Comparator<String> comparator;
 
+    // The positions of all ASCII chars in the randomized universe; all other chars have position 0 like in the comparator
+    private final int[] ranks = new int[128];
+
     public MinHash(long seed) {
         // Create universe off all ASCI chars
         char[] universe = new char[128];
@@ -34,6 +38,9 @@ public class MinHash {
 
         // Create a comparator for our randomized universe
         this.comparator = this.createComparatorFor(charIndex);
+
+        for (int i = 0; i < 128; i++)
+            this.ranks[i] = charIndex.get((char) i);
     }
 
     public String hash(final String[] strings) {
@@ -45,6 +52,32 @@ public class MinHash {
                 .orElseThrow();
     }
 
+    /**
+     * Finds the minimum token like hash(), but for packed token codes, which are ranked directly on their characters
+     * without creating any String.
+     * @param codes The packed codes of the tokens.
+     * @param tokenizer The tokenizer that created the codes; it needs to be packed.
+     * @return The index of the first minimum token in the codes or -1 if there are no codes.
+     */
+    public int minIndex(final LongArrayList codes, final Tokenizer tokenizer) {
+        int minIndex = -1;
+        long minRank = Long.MAX_VALUE;
+        for (int i = 0; i < codes.size(); i++) {
+            long code = codes.getLong(i);
+            // All tokens have the same length, so the comparator's order is the lexicographic order of the char ranks
+            long rank = 0;
+            for (int position = 0; position < tokenizer.getTokenSize(); position++) {
+                char c = tokenizer.charOf(code, position);
+                rank = (rank << 7) | ((c < 128) ? this.ranks[c] : 0);
+            }
+            if (rank < minRank) {
+                minRank = rank;
+                minIndex = i;
+            }
+        }
+        return minIndex;
+    }
+
     private Comparator<String> createComparatorFor(Char2IntMap charIndex) {
         return (o1, o2) -> {
             if (o1.equals(o2))
@@ -0,0 +1,132 @@
+package de.di.similarity_measures.helper;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A family of MinHash functions on 64-bit token codes, e.g., of Tokenizer.tokenizeCodes(), that produces int
+ * signatures. Unlike the comparator-based MinHash, it ranks tokens with numeric hash functions, works for all
+ * characters, and needs no String per token. The family has two schemes:
+ * <ul>
+ *     <li>k independent universal hash functions h_i(x) = (a_i * x + b_i) >>> 32, whose minima form the signature;
+ *     this costs k hash evaluations per token.</li>
+ *     <li>One permutation hashing, which hashes every token once, uses the hash to assign the token to one of k bins,
+ *     and keeps the minimum per bin; this costs a single pass over the tokens for any k. Bins that received no token
+ *     are densified, i.e., they borrow the value of a bin that a hash of the empty bin's index picks among the filled
+ *     bins, so that the fraction of equal signature values still estimates the Jaccard similarity.</li>
+ * </ul>
+ */
+@Getter
+public class NumericMinHash {
+
+    // The signature value of token lists without tokens.
+    public static final int EMPTY = Integer.MAX_VALUE;
+
+    // The number of values per signature.
+    private final int numHashFunctions;
+
+    // Whether the signature is calculated with one permutation hashing or with numHashFunctions hash functions.
+    private final boolean onePermutation;
+
+    // The odd multipliers and the summands of the universal hash functions; one pair for one permutation hashing.
+    @Getter(AccessLevel.NONE)
+    private final long[] multipliers;
+    @Getter(AccessLevel.NONE)
+    private final long[] summands;
+
+    // The seed of the densification's choice of bins.
+    @Getter(AccessLevel.NONE)
+    private final long densificationSeed;
+
+    /**
+     * Creates a MinHash family.
+     * @param numHashFunctions The number of values per signature.
+     * @param onePermutation Whether the signature is calculated with one permutation hashing.
+     * @param seed The seed of the random hash functions.
+     */
+    public NumericMinHash(final int numHashFunctions, final boolean onePermutation, final long seed) {
+        this.numHashFunctions = numHashFunctions;
+        this.onePermutation = onePermutation;
+
+        int numFunctions = onePermutation ? 1 : numHashFunctions;
+        Random random = new Random(seed);
+        this.multipliers = new long[numFunctions];
+        this.summands = new long[numFunctions];
+        for (int i = 0; i < numFunctions; i++) {
+            this.multipliers[i] = random.nextLong() | 1;
+            this.summands[i] = random.nextLong();
+        }
+        this.densificationSeed = random.nextLong();
+    }
+
+    /**
+     * Calculates the signature of the provided token codes.
+     * @param codes The token codes; the array may be larger than the number of codes.
+     * @param size The number of token codes.
+     * @return The signature with numHashFunctions values; all values are EMPTY if there are no token codes.
+     */
+    public int[] signature(final long[] codes, final int size) {
+        int[] signature = new int[this.numHashFunctions];
+        Arrays.fill(signature, EMPTY);
+        if (size == 0)
+            return signature;
+
+        if (!this.onePermutation) {
+            for (int i = 0; i < size; i++) {
+                // The codes are mixed first, because packed codes of similar tokens differ only in few bits
+                long code = HashCommon.mix(codes[i]);
+                for (int f = 0; f < this.numHashFunctions; f++)
+                    signature[f] = Math.min(signature[f], (int) ((this.multipliers[f] * code + this.summands[f]) >>> 32));
+            }
+            return signature;
+        }
+
+        long[] filled = new long[(this.numHashFunctions + 63) >>> 6];
+        for (int i = 0; i < size; i++) {
+            long hash = this.multipliers[0] * HashCommon.mix(codes[i]) + this.summands[0];
+            // The upper bits choose the bin, the lower bits are the value within the bin
+            int bin = (int) (((hash >>> 32) * this.numHashFunctions) >>> 32);
+            signature[bin] = Math.min(signature[bin], (int) (hash & 0x7fffffffL));
+            filled[bin >>> 6] |= 1L << bin;
+        }
+        this.densify(signature, filled);
+        return signature;
+    }
+
+    private void densify(final int[] signature, final long[] filled) {
+        for (int bin = 0; bin < this.numHashFunctions; bin++) {
+            if ((filled[bin >>> 6] & (1L << bin)) != 0)
+                continue;
+
+            // Probe bins with a hash of the empty bin and the attempt until a filled bin is found; every empty bin
+            // probes its own sequence, so that two signatures with the same filled bins borrow the same values; filled
+            // bins are never overwritten, so every borrowed value is an original minimum
+            for (long attempt = 1; ; attempt++) {
+                long hash = HashCommon.mix(this.densificationSeed ^ ((long) bin << 32) ^ attempt);
+                int candidate = (int) (((hash >>> 32) * this.numHashFunctions) >>> 32);
+                if ((filled[candidate >>> 6] & (1L << candidate)) != 0) {
+                    signature[bin] = signature[candidate];
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimates the Jaccard similarity of two token lists as the fraction of equal values in their signatures.
+     * @param signature1 The signature of the first token list.
+     * @param signature2 The signature of the second token list.
+     * @return The estimated Jaccard similarity.
+     */
+    public static double estimate(final int[] signature1, final int[] signature2) {
+        int matchCount = 0;
+        for (int i = 0; i < signature1.length; i++)
+            if (signature1[i] == signature2[i])
+                matchCount++;
+        return (double) matchCount / signature1.length;
+    }
+}
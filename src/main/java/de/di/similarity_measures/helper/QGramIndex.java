@@ -0,0 +1,270 @@
+package de.di.similarity_measures.helper;
+
+import de.di.similarity_measures.Levenshtein;
+import de.di.similarity_measures.SimilarityMeasure;
+import it.unimi.dsi.fastutil.ints.Int2DoubleOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An inverted index from the q-grams of the Tokenizer to the values of a column that finds all values whose
+ * (Damerau) Levenshtein similarity to a query reaches a threshold without scanning the column. It uses the count
+ * filter: every edit changes at most q q-grams, and a swap of two adjacent characters at most q + 1, so that two
+ * strings with distance d share at least max(|Q(s1)|, |Q(s2)|) - d * q q-grams of their q-gram bags Q. The threshold
+ * translates into a maximum distance per value length, so only values of suitable lengths that share enough q-grams
+ * with the query are verified with Levenshtein; lengths whose bound leaves no q-gram to share are verified entirely.
+ * The index is immutable after its construction, so that queries can run concurrently.
+ */
+@Getter
+public class QGramIndex {
+
+    // The tolerance that keeps values whose bounds equal the threshold despite rounding errors.
+    private static final double EPSILON = 1e-9;
+
+    // The similarity thresholds that the top-k search lowers step by step until it found k values.
+    private static final double[] TOP_K_THRESHOLDS = {1.0, 0.9, 0.8, 0.7, 0.6, 0.5, 0.4, 0.3, 0.2, 0.1, 0.0};
+
+    // The tokenizer that is used to transform the values and queries into q-grams.
+    private final Tokenizer tokenizer;
+
+    // The choice of whether Levenshtein or DamerauLevenshtein should be calculated.
+    private final boolean withDamerau;
+
+    // The indexed values; the index of a value is its id.
+    @Getter(AccessLevel.NONE)
+    private final String[] values;
+
+    // The Levenshtein similarity measure that verifies the candidates.
+    @Getter(AccessLevel.NONE)
+    private final Levenshtein levenshtein;
+
+    // Per q-gram code, the ids of the values that contain it, each followed by the number of its occurrences.
+    @Getter(AccessLevel.NONE)
+    private final Long2ObjectOpenHashMap<IntArrayList> postings = new Long2ObjectOpenHashMap<>();
+
+    // Per value length, the ids of the values of that length and their number of q-grams.
+    @Getter(AccessLevel.NONE)
+    private final Int2ObjectOpenHashMap<IntArrayList> idsByLength = new Int2ObjectOpenHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final Int2IntOpenHashMap gramCountByLength = new Int2IntOpenHashMap();
+
+    // The distinct value lengths in ascending order.
+    @Getter(AccessLevel.NONE)
+    private final int[] lengths;
+
+    // The ids of the null values, which only match queries with a non-positive threshold.
+    @Getter(AccessLevel.NONE)
+    private final IntArrayList nullIds = new IntArrayList();
+
+    /**
+     * Builds the index over the provided values.
+     * @param tokenizer The tokenizer that is used to transform the values and queries into q-grams.
+     * @param withDamerau The choice of whether Levenshtein or DamerauLevenshtein should be calculated.
+     * @param values The values that should be indexed.
+     */
+    public QGramIndex(final Tokenizer tokenizer, final boolean withDamerau, final String[] values) {
+        this.tokenizer = tokenizer;
+        this.withDamerau = withDamerau;
+        this.values = values;
+        this.levenshtein = new Levenshtein(withDamerau);
+
+        LongArrayList codes = new LongArrayList();
+        for (int id = 0; id < values.length; id++) {
+            if (values[id] == null) {
+                this.nullIds.add(id);
+                continue;
+            }
+            this.tokenizer.tokenizeCodes(values[id], codes);
+            this.idsByLength.computeIfAbsent(values[id].length(), length -> new IntArrayList()).add(id);
+            this.gramCountByLength.put(values[id].length(), codes.size());
+
+            long[] grams = codes.elements();
+            Arrays.sort(grams, 0, codes.size());
+            for (int i = 0; i < codes.size(); ) {
+                int count = countRun(grams, codes.size(), i);
+                IntArrayList list = this.postings.computeIfAbsent(grams[i], gram -> new IntArrayList());
+                list.add(id);
+                list.add(count);
+                i += count;
+            }
+        }
+        this.lengths = this.idsByLength.keySet().toIntArray();
+        Arrays.sort(this.lengths);
+    }
+
+    /**
+     * Returns the number of indexed values.
+     * @return The number of values.
+     */
+    public int size() {
+        return this.values.length;
+    }
+
+    /**
+     * Returns an indexed value.
+     * @param id The id of the value.
+     * @return The value.
+     */
+    public String getValue(final int id) {
+        return this.values[id];
+    }
+
+    /**
+     * Finds all values whose Levenshtein similarity to the query is at least minSimilarity.
+     * @param query The string that should be looked up.
+     * @param minSimilarity The smallest similarity of interest.
+     * @return The matches, ordered by descending similarity and ascending id.
+     */
+    public List<Match> query(final String query, final double minSimilarity) {
+        Int2DoubleOpenHashMap similarities = new Int2DoubleOpenHashMap();
+        List<Match> matches = this.collect(query, this.overlapsOf(query), minSimilarity, similarities);
+        matches.sort(Match.ORDER);
+        return matches;
+    }
+
+    /**
+     * Finds the k values with the highest Levenshtein similarity to the query. The search verifies the candidates of
+     * decreasing thresholds until k values reach the current threshold, so that mostly only similar values are verified.
+     * @param query The string that should be looked up.
+     * @param k The number of values of interest.
+     * @return The at most k matches, ordered by descending similarity and ascending id.
+     */
+    public List<Match> query(final String query, final int k) {
+        Int2IntOpenHashMap overlaps = this.overlapsOf(query);
+        // The exact similarities are kept, so that lower thresholds do not verify the same values again
+        Int2DoubleOpenHashMap similarities = new Int2DoubleOpenHashMap();
+        List<Match> matches = new ArrayList<>();
+        for (double threshold : TOP_K_THRESHOLDS) {
+            matches = this.collect(query, overlaps, threshold, similarities);
+            if (matches.size() >= k)
+                break;
+        }
+        matches.sort(Match.ORDER);
+        return new ArrayList<>(matches.subList(0, Math.min(k, matches.size())));
+    }
+
+    private Int2IntOpenHashMap overlapsOf(final String query) {
+        // The number of q-grams that every value shares with the query, counted in the bag semantics of the q-grams
+        Int2IntOpenHashMap overlaps = new Int2IntOpenHashMap();
+        if (query == null)
+            return overlaps;
+        LongArrayList codes = this.tokenizer.tokenizeCodes(query, new LongArrayList());
+        long[] grams = codes.elements();
+        Arrays.sort(grams, 0, codes.size());
+        for (int i = 0; i < codes.size(); ) {
+            int count = countRun(grams, codes.size(), i);
+            IntArrayList list = this.postings.get(grams[i]);
+            for (int e = 0; list != null && e < list.size(); e += 2)
+                overlaps.addTo(list.getInt(e), Math.min(count, list.getInt(e + 1)));
+            i += count;
+        }
+        return overlaps;
+    }
+
+    private List<Match> collect(final String query, final Int2IntOpenHashMap overlaps, final double minSimilarity, final Int2DoubleOpenHashMap similarities) {
+        List<Match> matches = new ArrayList<>();
+        if (minSimilarity <= 0)
+            for (int i = 0; i < this.nullIds.size(); i++)
+                this.verify(query, this.nullIds.getInt(i), minSimilarity, similarities, matches);
+        if (query == null) {
+            // Levenshtein rates null queries 0 to all values, so that only non-positive thresholds match
+            if (minSimilarity <= 0)
+                for (int length : this.lengths)
+                    this.verifyAll(query, this.idsByLength.get(length), minSimilarity, similarities, matches);
+            return matches;
+        }
+
+        int queryGramCount = this.tokenizer.tokenizeCodes(query, new LongArrayList()).size();
+        int gramsPerEdit = this.withDamerau ? this.tokenizer.getTokenSize() + 1 : this.tokenizer.getTokenSize();
+        IntArrayList countFiltered = new IntArrayList();
+        for (int length : this.lengths) {
+            int maxDistance = maxDistance(query.length(), length, minSimilarity);
+            if (Math.abs(query.length() - length) > maxDistance)
+                continue;
+
+            int minOverlap = Math.max(queryGramCount, this.gramCountByLength.get(length)) - maxDistance * gramsPerEdit;
+            if (minOverlap <= 0)
+                this.verifyAll(query, this.idsByLength.get(length), minSimilarity, similarities, matches);
+            else
+                countFiltered.add(length);
+        }
+        if (countFiltered.isEmpty())
+            return matches;
+
+        // The lengths whose values need enough common q-grams are served from the overlaps of the postings
+        Int2IntOpenHashMap minOverlaps = new Int2IntOpenHashMap();
+        for (int i = 0; i < countFiltered.size(); i++) {
+            int length = countFiltered.getInt(i);
+            int maxDistance = maxDistance(query.length(), length, minSimilarity);
+            minOverlaps.put(length, Math.max(queryGramCount, this.gramCountByLength.get(length)) - maxDistance * gramsPerEdit);
+        }
+        for (Int2IntMap.Entry entry : overlaps.int2IntEntrySet()) {
+            int length = this.values[entry.getIntKey()].length();
+            if (minOverlaps.containsKey(length) && entry.getIntValue() >= minOverlaps.get(length))
+                this.verify(query, entry.getIntKey(), minSimilarity, similarities, matches);
+        }
+        return matches;
+    }
+
+    private static int maxDistance(final int length1, final int length2, final double minSimilarity) {
+        // No distance exceeds the longer length, so that low minimum similarities neither saturate the int range nor
+        // overflow the q-gram bound that is derived from the distance
+        int maxLength = Math.max(length1, length2);
+        return (int) Math.min(maxLength, Math.floor((1 - minSimilarity) * maxLength + EPSILON));
+    }
+
+    private void verifyAll(final String query, final IntArrayList ids, final double minSimilarity, final Int2DoubleOpenHashMap similarities, final List<Match> matches) {
+        for (int i = 0; i < ids.size(); i++)
+            this.verify(query, ids.getInt(i), minSimilarity, similarities, matches);
+    }
+
+    private void verify(final String query, final int id, final double minSimilarity, final Int2DoubleOpenHashMap similarities, final List<Match> matches) {
+        double similarity;
+        if (similarities.containsKey(id)) {
+            similarity = similarities.get(id);
+        } else {
+            similarity = this.levenshtein.calculate(query, this.values[id], minSimilarity);
+            // Similarities below the threshold are not cached, because a lower threshold needs their exact value
+            if (similarity != SimilarityMeasure.BELOW_THRESHOLD)
+                similarities.put(id, similarity);
+        }
+        if (similarity != SimilarityMeasure.BELOW_THRESHOLD && similarity >= minSimilarity)
+            matches.add(new Match(id, similarity));
+    }
+
+    private static int countRun(final long[] sorted, final int size, final int start) {
+        int end = start + 1;
+        while (end < size && sorted[end] == sorted[start])
+            end++;
+        return end - start;
+    }
+
+    /**
+     * An indexed value that matches a query, identified by its id, and its similarity to the query.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Match {
+
+        // The order of descending similarity and ascending id.
+        private static final Comparator<Match> ORDER = Comparator.comparingDouble((Match match) -> -match.getSimilarity()).thenComparingInt(Match::getId);
+
+        // The id of the matching value.
+        private final int id;
+
+        // The Levenshtein similarity of the value and the query.
+        private final double similarity;
+    }
+}
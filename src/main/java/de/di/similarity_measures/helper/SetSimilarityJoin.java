@@ -0,0 +1,295 @@
+package de.di.similarity_measures.helper;
+
+import de.di.similarity_measures.Jaccard;
+import de.di.similarity_measures.PreparedValue;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A set similarity join that finds all pairs of strings or string lists whose Jaccard similarity is at least a threshold
+ * without comparing all pairs, following the PPJoin algorithm of Xiao et al.: the tokens of all records are ordered
+ * globally by ascending frequency, so that every record starts with its rarest tokens. Two records can only reach the
+ * threshold if they share a token in their prefixes, i.e., their first |x| - ceil(t * |x|) + 1 tokens, so that only the
+ * prefixes are indexed and probed. The candidates are further pruned by their lengths and by the positions of their
+ * common prefix tokens, which bound the overlap that the rest of the records can still add; the survivors are verified
+ * with the Jaccard similarity measure, so that the join finds exactly the pairs of a nested loop.
+ */
+@Getter
+public class SetSimilarityJoin {
+
+    // The tolerance that keeps records whose bounds equal the threshold despite rounding errors.
+    private static final double EPSILON = 1e-9;
+
+    // The tokenizer that is used to transform string inputs into token lists.
+    private final Tokenizer tokenizer;
+
+    // A flag indicating whether the join should use set or bag semantics for the Jaccard similarity.
+    private final boolean bagSemantics;
+
+    // The Jaccard similarity measure that verifies the candidate pairs.
+    @Getter(AccessLevel.NONE)
+    private final Jaccard jaccard;
+
+    public SetSimilarityJoin(final Tokenizer tokenizer, final boolean bagSemantics) {
+        this.tokenizer = tokenizer;
+        this.bagSemantics = bagSemantics;
+        this.jaccard = new Jaccard(tokenizer, bagSemantics);
+    }
+
+    /**
+     * Finds all pairs of distinct strings whose Jaccard similarity is at least the threshold.
+     * @param strings The strings that should be joined with themselves.
+     * @param threshold The smallest Jaccard similarity of interest; must be positive.
+     * @return The matches with index1 < index2, ordered by their indexes.
+     */
+    public List<Match> selfJoin(final String[] strings, final double threshold) {
+        PreparedValue[] prepared = this.prepare(strings);
+        return this.join(this.codesOf(strings), null, threshold, (index1, index2) -> this.jaccard.calculate(prepared[index1], prepared[index2]));
+    }
+
+    /**
+     * Finds all pairs of a string of the first and a string of the second array whose Jaccard similarity is at least
+     * the threshold.
+     * @param strings1 The first strings of the join.
+     * @param strings2 The second strings of the join.
+     * @param threshold The smallest Jaccard similarity of interest; must be positive.
+     * @return The matches with index1 in strings1 and index2 in strings2, ordered by their indexes.
+     */
+    public List<Match> join(final String[] strings1, final String[] strings2, final double threshold) {
+        PreparedValue[] prepared1 = this.prepare(strings1);
+        PreparedValue[] prepared2 = this.prepare(strings2);
+        return this.join(this.codesOf(strings1), this.codesOf(strings2), threshold, (index1, index2) -> this.jaccard.calculate(prepared1[index1], prepared2[index2]));
+    }
+
+    /**
+     * Finds all pairs of distinct string lists, e.g., the value lists of columns, whose Jaccard similarity is at least
+     * the threshold; the strings of the lists are the tokens and are not tokenized any further.
+     * @param stringLists The string lists that should be joined with themselves.
+     * @param threshold The smallest Jaccard similarity of interest; must be positive.
+     * @return The matches with index1 < index2, ordered by their indexes.
+     */
+    public List<Match> selfJoin(final String[][] stringLists, final double threshold) {
+        Object2IntOpenHashMap<String> tokenIds = new Object2IntOpenHashMap<>();
+        return this.join(this.codesOf(stringLists, tokenIds), null, threshold, (index1, index2) -> this.jaccard.calculate(stringLists[index1], stringLists[index2]));
+    }
+
+    /**
+     * Finds all pairs of a string list of the first and a string list of the second array whose Jaccard similarity is
+     * at least the threshold; the strings of the lists are the tokens and are not tokenized any further.
+     * @param stringLists1 The first string lists of the join.
+     * @param stringLists2 The second string lists of the join.
+     * @param threshold The smallest Jaccard similarity of interest; must be positive.
+     * @return The matches with index1 in stringLists1 and index2 in stringLists2, ordered by their indexes.
+     */
+    public List<Match> join(final String[][] stringLists1, final String[][] stringLists2, final double threshold) {
+        Object2IntOpenHashMap<String> tokenIds = new Object2IntOpenHashMap<>();
+        long[][] codes1 = this.codesOf(stringLists1, tokenIds);
+        long[][] codes2 = this.codesOf(stringLists2, tokenIds);
+        return this.join(codes1, codes2, threshold, (index1, index2) -> this.jaccard.calculate(stringLists1[index1], stringLists2[index2]));
+    }
+
+    private PreparedValue[] prepare(final String[] strings) {
+        return Arrays.stream(strings).parallel().map(this.jaccard::prepare).toArray(PreparedValue[]::new);
+    }
+
+    private long[][] codesOf(final String[] strings) {
+        return Arrays.stream(strings).parallel()
+                .map(string -> this.tokenizer.tokenizeCodes((string == null) ? "" : string, new LongArrayList()).toLongArray())
+                .toArray(long[][]::new);
+    }
+
+    private long[][] codesOf(final String[][] stringLists, final Object2IntOpenHashMap<String> tokenIds) {
+        // Dense ids instead of hashes, because the lists' strings are compared by equality
+        tokenIds.defaultReturnValue(-1);
+        long[][] codes = new long[stringLists.length][];
+        for (int i = 0; i < stringLists.length; i++) {
+            String[] strings = (stringLists[i] == null) ? new String[0] : stringLists[i];
+            codes[i] = new long[strings.length];
+            for (int t = 0; t < strings.length; t++) {
+                int tokenId = tokenIds.getInt(strings[t]);
+                if (tokenId < 0) {
+                    tokenId = tokenIds.size();
+                    tokenIds.put(strings[t], tokenId);
+                }
+                codes[i][t] = tokenId;
+            }
+        }
+        return codes;
+    }
+
+    private List<Match> join(final long[][] codes1, final long[][] codes2, final double threshold, final Verifier verifier) {
+        if (threshold <= 0)
+            throw new IllegalArgumentException("The join needs a positive threshold, but got " + threshold);
+        // Bags whose repeated tokens are numbered, i.e., become distinct, have the same overlap I as sets, so that the
+        // bag similarity I / (|x| + |y|) >= t translates into the set similarity I / (|x| + |y| - I) >= t / (1 - t);
+        // bag similarities never exceed 1/2
+        if (this.bagSemantics && threshold > 0.5)
+            return new ArrayList<>();
+        double setThreshold = this.bagSemantics ? Math.min(1, threshold / (1 - threshold)) : threshold;
+        boolean selfJoin = (codes2 == null);
+
+        // Order all tokens globally by ascending frequency, so that the prefixes hold the rarest tokens
+        Long2IntOpenHashMap codeIds = new Long2IntOpenHashMap();
+        Long2IntOpenHashMap elementIds = new Long2IntOpenHashMap();
+        IntArrayList frequencies = new IntArrayList();
+        int[][] records1 = this.elementsOf(codes1, codeIds, elementIds, frequencies);
+        int[][] records2 = selfJoin ? records1 : this.elementsOf(codes2, codeIds, elementIds, frequencies);
+        int[] ranks = ranksOf(frequencies);
+        sortByRank(records1, ranks);
+        if (!selfJoin)
+            sortByRank(records2, ranks);
+
+        // Index the prefixes of the second records in ascending length, which lets self-joins probe only shorter records
+        int[] order = IntStream.range(0, records2.length).boxed()
+                .sorted(Comparator.comparingInt((Integer index) -> records2[index].length).thenComparingInt(index -> index))
+                .mapToInt(Integer::intValue).toArray();
+        IntArrayList[] index = new IntArrayList[frequencies.size()];
+        for (int position = 0; position < order.length; position++) {
+            int[] record = records2[order[position]];
+            for (int j = 0; j < prefixLength(record.length, setThreshold); j++) {
+                if (index[record[j]] == null)
+                    index[record[j]] = new IntArrayList();
+                index[record[j]].add(position);
+                index[record[j]].add(j);
+            }
+        }
+
+        // Per thread, the overlaps of the candidates found so far, indexed by their position; -1 for pruned candidates
+        ThreadLocal<int[]> overlapBuffers = ThreadLocal.withInitial(() -> new int[order.length]);
+        ThreadLocal<IntArrayList> candidateBuffers = ThreadLocal.withInitial(IntArrayList::new);
+
+        // The parallel stream keeps the probes' order, so that the result is deterministic
+        List<List<Match>> matches = IntStream.range(0, records1.length).parallel().mapToObj(probe -> {
+            int index1 = selfJoin ? order[probe] : probe;
+            int[] x = records1[index1];
+            int[] overlaps = overlapBuffers.get();
+            IntArrayList candidates = candidateBuffers.get();
+            int minLength = (int) Math.ceil(setThreshold * x.length - EPSILON);
+            int maxLength = (int) Math.floor(x.length / setThreshold + EPSILON);
+
+            for (int i = 0; i < prefixLength(x.length, setThreshold); i++) {
+                IntArrayList postings = index[x[i]];
+                if (postings == null)
+                    continue;
+                for (int e = 0; e < postings.size(); e += 2) {
+                    int position = postings.getInt(e);
+                    if (selfJoin && position >= probe)
+                        break;
+                    int[] y = records2[order[position]];
+                    if (y.length < minLength || y.length > maxLength || overlaps[position] < 0)
+                        continue;
+
+                    // The overlap needed for the threshold and the overlap that the rest of both records can still add
+                    int j = postings.getInt(e + 1);
+                    int requiredOverlap = (int) Math.ceil(setThreshold / (1 + setThreshold) * (x.length + y.length) - EPSILON);
+                    int remainingOverlap = 1 + Math.min(x.length - i - 1, y.length - j - 1);
+                    if (overlaps[position] == 0)
+                        candidates.add(position);
+                    overlaps[position] = (overlaps[position] + remainingOverlap >= requiredOverlap) ? overlaps[position] + 1 : -1;
+                }
+            }
+
+            List<Match> found = new ArrayList<>();
+            for (int c = 0; c < candidates.size(); c++) {
+                int position = candidates.getInt(c);
+                if (overlaps[position] > 0) {
+                    int index2 = order[position];
+                    double similarity = verifier.similarity(index1, index2);
+                    if (similarity >= threshold)
+                        found.add(selfJoin ? new Match(Math.min(index1, index2), Math.max(index1, index2), similarity) : new Match(index1, index2, similarity));
+                }
+                overlaps[position] = 0;
+            }
+            candidates.clear();
+            return found;
+        }).collect(Collectors.toList());
+
+        List<Match> result = new ArrayList<>();
+        for (List<Match> found : matches)
+            result.addAll(found);
+        result.sort(Comparator.comparingInt(Match::getIndex1).thenComparingInt(Match::getIndex2));
+        return result;
+    }
+
+    private int[][] elementsOf(final long[][] codes, final Long2IntOpenHashMap codeIds, final Long2IntOpenHashMap elementIds, final IntArrayList frequencies) {
+        int[][] records = new int[codes.length][];
+        IntArrayList elements = new IntArrayList();
+        for (int r = 0; r < codes.length; r++) {
+            long[] sorted = codes[r].clone();
+            Arrays.sort(sorted);
+            elements.clear();
+            int occurrence = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                // Bags number their repeated tokens, sets keep every token once
+                occurrence = (i > 0 && sorted[i] == sorted[i - 1]) ? occurrence + 1 : 0;
+                if (occurrence > 0 && !this.bagSemantics)
+                    continue;
+                int codeId = codeIds.computeIfAbsent(sorted[i], code -> codeIds.size());
+                int elementId = elementIds.computeIfAbsent(((long) codeId << 32) | occurrence, element -> elementIds.size());
+                if (elementId == frequencies.size())
+                    frequencies.add(0);
+                frequencies.set(elementId, frequencies.getInt(elementId) + 1);
+                elements.add(elementId);
+            }
+            records[r] = elements.toIntArray();
+        }
+        return records;
+    }
+
+    private static int[] ranksOf(final IntArrayList frequencies) {
+        // Ascending frequency, ties broken by the element id
+        long[] keys = new long[frequencies.size()];
+        for (int id = 0; id < keys.length; id++)
+            keys[id] = ((long) frequencies.getInt(id) << 32) | id;
+        Arrays.sort(keys);
+        int[] ranks = new int[keys.length];
+        for (int rank = 0; rank < keys.length; rank++)
+            ranks[(int) keys[rank]] = rank;
+        return ranks;
+    }
+
+    private static void sortByRank(final int[][] records, final int[] ranks) {
+        for (int[] record : records) {
+            for (int i = 0; i < record.length; i++)
+                record[i] = ranks[record[i]];
+            Arrays.sort(record);
+        }
+    }
+
+    private static int prefixLength(final int length, final double setThreshold) {
+        return Math.min(length, length - (int) Math.ceil(setThreshold * length - EPSILON) + 1);
+    }
+
+    private interface Verifier {
+        double similarity(int index1, int index2);
+    }
+
+    /**
+     * A pair of joined records and their Jaccard similarity.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Match {
+
+        // The index of the first record of the pair.
+        private final int index1;
+
+        // The index of the second record of the pair.
+        private final int index2;
+
+        // The Jaccard similarity of the two records.
+        private final double similarity;
+    }
+}
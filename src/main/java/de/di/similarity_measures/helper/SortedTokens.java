@@ -0,0 +1,126 @@
+package de.di.similarity_measures.helper;
+
+/**
+ * Set and bag operations on sorted arrays of primitive token ids, which replace hash sets and hash maps of token
+ * Strings in the token-based similarity measures. Two arrays of similar sizes are intersected with a linear merge;
+ * if one array is much larger than the other, every token of the smaller array is searched in the larger one with
+ * galloping, i.e., exponential search, so that the cost grows only logarithmically with the larger array.
+ */
+public class SortedTokens {
+
+    // The size ratio above which the intersection gallops through the larger array instead of merging both arrays
+    public static final int GALLOPING_RATIO = 16;
+
+    private SortedTokens() {
+    }
+
+    /**
+     * Counts the distinct tokens of a sorted token array.
+     * @param tokens The sorted token array.
+     * @param size The number of tokens in the array.
+     * @return The number of distinct tokens.
+     */
+    public static int distinct(final long[] tokens, final int size) {
+        int distinct = (size > 0) ? 1 : 0;
+        for (int i = 1; i < size; i++)
+            if (tokens[i] != tokens[i - 1])
+                distinct++;
+        return distinct;
+    }
+
+    /**
+     * Calculates the size of the intersection of two sorted token arrays.
+     * @param tokens1 The first sorted token array.
+     * @param size1 The number of tokens in the first array.
+     * @param tokens2 The second sorted token array.
+     * @param size2 The number of tokens in the second array.
+     * @param bagSemantics Whether the arrays are bags, whose common tokens count with their smaller multiplicity, or
+     *                     sets, whose common tokens count once.
+     * @return The size of the intersection.
+     */
+    public static int intersection(final long[] tokens1, final int size1, final long[] tokens2, final int size2, final boolean bagSemantics) {
+        if (size1 > size2)
+            return intersection(tokens2, size2, tokens1, size1, bagSemantics);
+        // Arrays whose token ranges do not overlap have no common token
+        if (size1 == 0 || tokens1[size1 - 1] < tokens2[0] || tokens2[size2 - 1] < tokens1[0])
+            return 0;
+        if ((long) size1 * GALLOPING_RATIO < size2)
+            return gallopingIntersection(tokens1, size1, tokens2, size2, bagSemantics);
+
+        int intersection = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size1 && j < size2) {
+            long token = tokens1[i];
+            if (token < tokens2[j]) {
+                i++;
+            } else if (token > tokens2[j]) {
+                j++;
+            } else {
+                int count1 = 0;
+                int count2 = 0;
+                while (i < size1 && tokens1[i] == token) {
+                    count1++;
+                    i++;
+                }
+                while (j < size2 && tokens2[j] == token) {
+                    count2++;
+                    j++;
+                }
+                intersection += bagSemantics ? Math.min(count1, count2) : 1;
+            }
+        }
+        return intersection;
+    }
+
+    private static int gallopingIntersection(final long[] small, final int smallSize, final long[] large, final int largeSize, final boolean bagSemantics) {
+        int intersection = 0;
+        int j = 0;
+        int i = 0;
+        while (i < smallSize && j < largeSize) {
+            long token = small[i];
+            int count1 = 0;
+            while (i < smallSize && small[i] == token) {
+                count1++;
+                i++;
+            }
+
+            j = gallop(large, j, largeSize, token);
+            int count2 = 0;
+            while (j < largeSize && large[j] == token && count2 < count1) {
+                count2++;
+                j++;
+            }
+            if (count2 > 0)
+                intersection += bagSemantics ? count2 : 1;
+        }
+        return intersection;
+    }
+
+    /**
+     * Finds the first position at or after from whose token is not smaller than the provided token by doubling the
+     * step width until the token is passed and then searching the last step binarily.
+     */
+    private static int gallop(final long[] tokens, final int from, final int size, final long token) {
+        int low = from;
+        int step = 1;
+        while (low + step < size && tokens[low + step] < token) {
+            low += step;
+            step <<= 1;
+        }
+        if (tokens[low] >= token)
+            return low;
+
+        // The answer lies in (low, min(low + step, size)]
+        int high = Math.min(low + step, size);
+        low++;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokens[middle] < token)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+}
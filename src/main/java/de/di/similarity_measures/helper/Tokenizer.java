@@ -1,5 +1,7 @@
 package de.di.similarity_measures.helper;
 
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import lombok.Getter;
 
 @Getter
@@ -8,6 +10,12 @@ public class Tokenizer {
     // The symbol that should be used for padding, if "usePadding == true"
     public static String paddingSymbol = "$";
 
+    // The largest token size whose tokens can be packed into one long code with 16 bits per character
+    public static final int MAX_PACKED_TOKEN_SIZE = 4;
+
+    // The odd multiplier of the polynomial rolling hash for tokens that are too long to be packed
+    private static final long ROLLING_BASE = 0x100000001b3L;
+
     // The size of the tokens that the tokenizer should use
     private final int tokenSize;
 
@@ -41,4 +49,89 @@ public class Tokenizer {
             tokens[i] = s.substring(i, i + this.tokenSize);
         return tokens;
     }
+
+    /**
+     * Checks whether the codes of tokenizeCodes() are the tokens' characters packed into one long each, i.e., whether
+     * equal codes always mean equal tokens and the characters can be unpacked again with charOf().
+     * @return true if the tokens are short enough to be packed.
+     */
+    public boolean isPacked() {
+        return this.tokenSize <= MAX_PACKED_TOKEN_SIZE;
+    }
+
+    /**
+     * Tokenizes the input string like tokenize(), but emits every token as a long code into the provided buffer
+     * instead of creating a String per token. Tokens of up to MAX_PACKED_TOKEN_SIZE characters are packed losslessly
+     * with 16 bits per character; longer tokens are represented by a 64-bit rolling hash, so that different tokens
+     * receive equal codes only with negligible probability.
+     * @param string The string argument that should be tokenized.
+     * @param codes The buffer that receives the codes; it is cleared first and can be reused across calls.
+     * @return The provided buffer with the codes of all tokens in token order.
+     */
+    public LongArrayList tokenizeCodes(final String string, final LongArrayList codes) {
+        codes.clear();
+        int paddingLength = this.usePadding ? paddingSymbol.length() * Math.max(0, this.tokenSize - 1) : 0;
+        int length = string.length() + 2 * paddingLength;
+        if (length < this.tokenSize)
+            return codes;
+
+        long code = 0;
+        if (this.isPacked()) {
+            long mask = (this.tokenSize == MAX_PACKED_TOKEN_SIZE) ? -1L : (1L << (16 * this.tokenSize)) - 1;
+            for (int i = 0; i < length; i++) {
+                code = ((code << 16) | this.charAt(string, paddingLength, i)) & mask;
+                if (i >= this.tokenSize - 1)
+                    codes.add(code);
+            }
+        } else {
+            // The weight of the character that leaves the window: ROLLING_BASE^(tokenSize - 1)
+            long outWeight = 1;
+            for (int i = 1; i < this.tokenSize; i++)
+                outWeight *= ROLLING_BASE;
+            for (int i = 0; i < length; i++) {
+                if (i >= this.tokenSize)
+                    code -= outWeight * this.charAt(string, paddingLength, i - this.tokenSize);
+                code = code * ROLLING_BASE + this.charAt(string, paddingLength, i);
+                if (i >= this.tokenSize - 1)
+                    codes.add(HashCommon.mix(code));
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Calculates the code of a single token, which equals the code that tokenizeCodes() emits for this token.
+     * @param token The token whose code should be calculated.
+     * @return The packed code of the token if it has at most MAX_PACKED_TOKEN_SIZE characters; its hash otherwise.
+     */
+    public static long codeOf(final String token) {
+        long code = 0;
+        if (token.length() <= MAX_PACKED_TOKEN_SIZE) {
+            for (int i = 0; i < token.length(); i++)
+                code = (code << 16) | token.charAt(i);
+            return code;
+        }
+        for (int i = 0; i < token.length(); i++)
+            code = code * ROLLING_BASE + token.charAt(i);
+        return HashCommon.mix(code);
+    }
+
+    /**
+     * Unpacks one character of a packed token code.
+     * @param code A code of tokenizeCodes() of a tokenizer that isPacked().
+     * @param position The position of the character in the token.
+     * @return The character at the position.
+     */
+    public char charOf(final long code, final int position) {
+        return (char) (code >>> (16 * (this.tokenSize - 1 - position)));
+    }
+
+    private char charAt(final String string, final int paddingLength, final int index) {
+        // The padding is paddingSymbol repeated, so its characters follow from the index without building it
+        if (index < paddingLength)
+            return paddingSymbol.charAt(index % paddingSymbol.length());
+        if (index < paddingLength + string.length())
+            return string.charAt(index - paddingLength);
+        return paddingSymbol.charAt((index - paddingLength - string.length()) % paddingSymbol.length());
+    }
 }
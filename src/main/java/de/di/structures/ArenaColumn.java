@@ -0,0 +1,112 @@
+package de.di.structures;
+
+import lombok.Getter;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An ArenaColumn stores the values of one attribute as encoded byte slices in a (possibly shared) ByteArena. Values
+ * are compared, hashed, and grouped on their bytes; Strings are only created when a value is read with get().
+ * Compared to one String per value, this saves the per-object overhead of millions of small Strings; with an off-heap
+ * arena, the values' bytes are not even part of the Java heap.
+ */
+@Getter
+public class ArenaColumn implements ValueAccessor {
+
+    // The arena that holds the values' bytes; typically shared by all columns of a relation.
+    private final ByteArena arena;
+
+    // The charset in which the values are encoded.
+    private final Charset charset;
+
+    // The arena address and byte length of every record's value in this column.
+    private final long[] addresses;
+    private final int[] lengths;
+
+    public ArenaColumn(final ByteArena arena, final Charset charset, final long[] addresses, final int[] lengths) {
+        this.arena = arena;
+        this.charset = charset;
+        this.addresses = addresses;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Returns the number of records, i.e., values in this column.
+     * @return The number of records in this column.
+     */
+    @Override
+    public int size() {
+        return this.addresses.length;
+    }
+
+    /**
+     * Decodes the value of the given record.
+     * @param recordIndex The index of the record.
+     * @return The record's value.
+     */
+    @Override
+    public String get(final int recordIndex) {
+        return this.arena.toString(this.addresses[recordIndex], this.lengths[recordIndex], this.charset);
+    }
+
+    @Override
+    public boolean valueEquals(final int recordIndex1, final int recordIndex2) {
+        return this.arena.equals(this.addresses[recordIndex1], this.lengths[recordIndex1], this.addresses[recordIndex2], this.lengths[recordIndex2]);
+    }
+
+    public int compareValues(final int recordIndex1, final int recordIndex2) {
+        return this.arena.compare(this.addresses[recordIndex1], this.lengths[recordIndex1], this.addresses[recordIndex2], this.lengths[recordIndex2]);
+    }
+
+    @Override
+    public int hashValue(final int recordIndex) {
+        return this.arena.hash(this.addresses[recordIndex], this.lengths[recordIndex]);
+    }
+
+    /**
+     * Returns the column of the provided records in the provided order; it shares this column's arena, so that no bytes
+     * are copied.
+     * @param recordIndexes The indexes of the records that the column should contain.
+     * @return The column of the selected records.
+     */
+    @Override
+    public ArenaColumn select(final int[] recordIndexes) {
+        long[] addresses = new long[recordIndexes.length];
+        int[] lengths = new int[recordIndexes.length];
+        for (int i = 0; i < recordIndexes.length; i++) {
+            addresses[i] = this.addresses[recordIndexes[i]];
+            lengths[i] = this.lengths[recordIndexes[i]];
+        }
+        return new ArenaColumn(this.arena, this.charset, addresses, lengths);
+    }
+
+    /**
+     * Dictionary-encodes this column by hashing and comparing the values' bytes; only the distinct values are decoded.
+     * Codes are assigned in the order of first occurrence, as DictionaryColumn.encode() does.
+     * @return The dictionary-encoded column.
+     */
+    public DictionaryColumn toDictionaryColumn() {
+        return this.toDictionaryColumn(this.encode());
+    }
+
+    /**
+     * Dictionary-encodes this column like toDictionaryColumn(), but only if it has at most the provided number of
+     * distinct values; the grouping stops as soon as the column exceeds that number.
+     * @param cardinalityCutoff The maximum number of distinct values.
+     * @return The dictionary-encoded column or null if the column has more distinct values.
+     */
+    public DictionaryColumn toDictionaryColumn(final int cardinalityCutoff) {
+        int[] codes = ValueGrouping.encode(this, cardinalityCutoff);
+        return (codes == null) ? null : this.toDictionaryColumn(codes);
+    }
+
+    private DictionaryColumn toDictionaryColumn(final int[] codes) {
+        List<String> dictionary = new ArrayList<>();
+        for (int recordIndex = 0; recordIndex < codes.length; recordIndex++)
+            if (codes[recordIndex] == dictionary.size())
+                dictionary.add(this.get(recordIndex));
+        return new DictionaryColumn(dictionary.toArray(new String[0]), codes);
+    }
+}
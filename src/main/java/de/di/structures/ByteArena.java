@@ -0,0 +1,210 @@
+package de.di.structures;
+
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A ByteArena stores many small byte sequences, e.g., the encoded values of a relation, back to back in a few large
+ * pages instead of one array per value. A value is identified by its address, which combines the index of its page
+ * (upper 32 bits) and its offset within that page (lower 32 bits), and by its length. Equality, hashing, and ordering
+ * work directly on the stored bytes, so values only need to be decoded into Strings when they are actually read.
+ * Empty values do not need to be stored; any address with length 0 denotes the empty value.
+ * The pages are either heap arrays or off-heap direct buffers; off-heap pages are invisible to the garbage collector,
+ * so even huge arenas add nothing to its marking work. Direct memory is limited by -XX:MaxDirectMemorySize and is
+ * released when the arena becomes unreachable.
+ */
+public class ByteArena {
+
+    // The default number of bytes per page; values that are larger get a page of their own.
+    public static final int DEFAULT_PAGE_SIZE = 1 << 20;
+
+    private final int pageSize;
+    private final List<ByteBuffer> pages = new ArrayList<>();
+
+    // Whether new pages are allocated off-heap.
+    @Getter
+    private final boolean offHeap;
+
+    // The number of used bytes in the last page.
+    private int pageFill;
+
+    public ByteArena() {
+        this(DEFAULT_PAGE_SIZE);
+    }
+
+    public ByteArena(final int pageSize) {
+        this(pageSize, false);
+    }
+
+    public ByteArena(final int pageSize, final boolean offHeap) {
+        this.pageSize = Math.max(1, pageSize);
+        this.offHeap = offHeap;
+        this.pageFill = 0;
+    }
+
+    /**
+     * Copies the provided bytes into the arena.
+     * @param bytes The array that holds the value.
+     * @param from The position of the value's first byte in the array.
+     * @param length The number of bytes of the value.
+     * @return The address of the stored value.
+     */
+    public long add(final byte[] bytes, final int from, final int length) {
+        if (this.pages.isEmpty() || length > this.pages.get(this.pages.size() - 1).capacity() - this.pageFill) {
+            int capacity = Math.max(this.pageSize, length);
+            this.pages.add(this.offHeap ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.wrap(new byte[capacity]));
+            this.pageFill = 0;
+        }
+        int pageIndex = this.pages.size() - 1;
+        view(this.pages.get(pageIndex), this.pageFill, length).put(bytes, from, length);
+        long address = address(pageIndex, this.pageFill);
+        this.pageFill += length;
+        return address;
+    }
+
+    /**
+     * Moves all pages of the other arena behind the pages of this arena; the other arena must not be used afterwards.
+     * Addresses of the other arena stay valid in this arena after adding the returned shift to them.
+     * @param other The arena whose values should be taken over.
+     * @return The shift that translates addresses of the other arena into addresses of this arena.
+     */
+    public long append(final ByteArena other) {
+        long shift = address(this.pages.size(), 0);
+        this.pages.addAll(other.pages);
+        // Start a new page with the next value so that the appended pages are never written to
+        this.pageFill = this.pages.isEmpty() ? 0 : this.pages.get(this.pages.size() - 1).capacity();
+        return shift;
+    }
+
+    /**
+     * Returns the number of bytes that the arena's pages occupy.
+     * @return The capacity of the arena in bytes.
+     */
+    public long capacity() {
+        long capacity = 0;
+        for (ByteBuffer page : this.pages)
+            capacity += page.capacity();
+        return capacity;
+    }
+
+    public boolean equals(final long address1, final int length1, final long address2, final int length2) {
+        return equals(this, address1, length1, this, address2, length2);
+    }
+
+    /**
+     * Checks whether two values, which may be stored in different arenas, consist of the same bytes.
+     * @return true if the values are equal.
+     */
+    public static boolean equals(final ByteArena arena1, final long address1, final int length1, final ByteArena arena2, final long address2, final int length2) {
+        if (length1 != length2)
+            return false;
+        if (length1 == 0)
+            return true;
+        ByteBuffer page1 = arena1.page(address1);
+        ByteBuffer page2 = arena2.page(address2);
+        int offset1 = offset(address1);
+        int offset2 = offset(address2);
+        if (page1.hasArray() && page2.hasArray())
+            return Arrays.equals(page1.array(), offset1, offset1 + length1, page2.array(), offset2, offset2 + length2);
+        return view(page1, offset1, length1).equals(view(page2, offset2, length2));
+    }
+
+    /**
+     * Compares two values by their unsigned bytes; for Latin-1 this is the order of the decoded Strings, for UTF-8 the
+     * order of their code points.
+     * @return A negative number, zero, or a positive number if the first value is smaller, equal, or larger.
+     */
+    public int compare(final long address1, final int length1, final long address2, final int length2) {
+        if (length1 == 0 || length2 == 0)
+            return Integer.compare(length1, length2);
+        ByteBuffer page1 = this.page(address1);
+        ByteBuffer page2 = this.page(address2);
+        int offset1 = offset(address1);
+        int offset2 = offset(address2);
+        if (page1.hasArray() && page2.hasArray())
+            return Arrays.compareUnsigned(page1.array(), offset1, offset1 + length1, page2.array(), offset2, offset2 + length2);
+
+        int mismatch = view(page1, offset1, length1).mismatch(view(page2, offset2, length2));
+        if (mismatch < 0)
+            return 0;
+        if (mismatch >= Math.min(length1, length2))
+            return Integer.compare(length1, length2);
+        return Integer.compare(page1.get(offset1 + mismatch) & 0xff, page2.get(offset2 + mismatch) & 0xff);
+    }
+
+    /**
+     * Calculates a well-distributed hash of the value's bytes; equal values have equal hashes in all arenas.
+     * @return The hash of the value.
+     */
+    public int hash(final long address, final int length) {
+        int hash = 0x9747b28c ^ length;
+        if (length > 0) {
+            ByteBuffer page = this.page(address);
+            int offset = offset(address);
+            if (page.hasArray()) {
+                byte[] bytes = page.array();
+                for (int i = offset; i < offset + length; i++)
+                    hash = (hash ^ (bytes[i] & 0xff)) * 0x01000193;
+            } else {
+                for (int i = offset; i < offset + length; i++)
+                    hash = (hash ^ (page.get(i) & 0xff)) * 0x01000193;
+            }
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash;
+    }
+
+    /**
+     * Reads one byte of a value.
+     * @param address The address of the value.
+     * @param index The position of the byte within the value.
+     * @return The byte.
+     */
+    public byte get(final long address, final int index) {
+        return this.page(address).get(offset(address) + index);
+    }
+
+    /**
+     * Decodes the value into a String.
+     * @param charset The charset in which the value was encoded.
+     * @return The decoded value.
+     */
+    public String toString(final long address, final int length, final Charset charset) {
+        if (length == 0)
+            return "";
+        ByteBuffer page = this.page(address);
+        if (page.hasArray())
+            return new String(page.array(), offset(address), length, charset);
+        byte[] bytes = new byte[length];
+        view(page, offset(address), length).get(bytes);
+        return new String(bytes, charset);
+    }
+
+    private static ByteBuffer view(final ByteBuffer page, final int offset, final int length) {
+        // An independent window on the page, so that relative reads and writes neither move nor race with the page's
+        // own position; unlike the absolute bulk methods of JDK 13 and 16, this works on every supported JDK
+        ByteBuffer view = page.duplicate();
+        view.limit(offset + length);
+        view.position(offset);
+        return view;
+    }
+
+    private ByteBuffer page(final long address) {
+        return this.pages.get((int) (address >>> 32));
+    }
+
+    private static int offset(final long address) {
+        return (int) address;
+    }
+
+    private static long address(final int pageIndex, final int offset) {
+        return ((long) pageIndex << 32) | (offset & 0xffffffffL);
+    }
+}
@@ -0,0 +1,365 @@
+package de.di.structures;
+
+import lombok.Getter;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * ColumnStatistics describe the values of one column: the number of values and empty values, the smallest and largest
+ * non-empty value, a histogram of the values' lengths, the inferred data type, and the number of distinct values. The
+ * distinct count is exact for dictionary-encoded columns and a HyperLogLog estimate for all other columns. Algorithms
+ * can use the statistics to prune candidates before they touch a column's values.
+ */
+@Getter
+public class ColumnStatistics {
+
+    /**
+     * The most specific type that all non-empty values of a column have; every type includes the types before it.
+     */
+    public enum DataType {
+        EMPTY, INTEGER, DECIMAL, STRING;
+
+        public static DataType of(final CharSequence value) {
+            if (value.length() == 0)
+                return EMPTY;
+            int position = (value.charAt(0) == '+' || value.charAt(0) == '-') ? 1 : 0;
+            int numDigits = 0;
+            while (position < value.length() && isDigit(value.charAt(position))) {
+                position++;
+                numDigits++;
+            }
+            if (position == value.length())
+                return (numDigits > 0) ? INTEGER : STRING;
+            if (value.charAt(position) == '.') {
+                position++;
+                while (position < value.length() && isDigit(value.charAt(position))) {
+                    position++;
+                    numDigits++;
+                }
+            }
+            if (numDigits == 0)
+                return STRING;
+            if (position < value.length() && (value.charAt(position) == 'e' || value.charAt(position) == 'E')) {
+                position++;
+                if (position < value.length() && (value.charAt(position) == '+' || value.charAt(position) == '-'))
+                    position++;
+                int numExponentDigits = 0;
+                while (position < value.length() && isDigit(value.charAt(position))) {
+                    position++;
+                    numExponentDigits++;
+                }
+                if (numExponentDigits == 0)
+                    return STRING;
+            }
+            return (position == value.length()) ? DECIMAL : STRING;
+        }
+
+        private static boolean isDigit(final char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private DataType generalize(final DataType other) {
+            return (other.ordinal() > this.ordinal()) ? other : this;
+        }
+    }
+
+    // The number of buckets of the length histogram: bucket 0 counts empty values, bucket b > 0 counts values with a
+    // length in [2^(b-1), 2^b).
+    public static final int NUM_LENGTH_BUCKETS = 32;
+
+    // The number of values, i.e., records and the number of empty values among them.
+    private long numValues;
+    private long numEmptyValues;
+
+    // The lexicographically smallest and largest non-empty value; null if the column has no non-empty values.
+    private String min;
+    private String max;
+
+    // The length of the shortest and longest non-empty value; 0 if the column has no non-empty values.
+    private int minLength;
+    private int maxLength;
+
+    // The number of values per length bucket.
+    private final long[] lengthHistogram = new long[NUM_LENGTH_BUCKETS];
+
+    // The most specific data type of the column's non-empty values.
+    private DataType dataType = DataType.EMPTY;
+
+    // The exact number of distinct values or -1 if only the HyperLogLog estimate is known.
+    private long exactDistinctCount;
+
+    // The distinct value sketch; null if the exact distinct count is known.
+    private HyperLogLog distinctSketch;
+
+    private ColumnStatistics(final long exactDistinctCount, final HyperLogLog distinctSketch) {
+        this.exactDistinctCount = exactDistinctCount;
+        this.distinctSketch = distinctSketch;
+    }
+
+    /**
+     * Calculates the statistics of a dictionary-encoded column; the distinct count is exact and every distinct value is
+     * inspected only once.
+     * @param column The dictionary-encoded column.
+     * @return The statistics of the column.
+     */
+    public static ColumnStatistics of(final DictionaryColumn column) {
+        long[] counts = new long[column.cardinality()];
+        for (int code : column.getCodes())
+            counts[code]++;
+        ColumnStatistics statistics = new ColumnStatistics(column.cardinality(), null);
+        String[] dictionary = column.getDictionary();
+        for (int code = 0; code < dictionary.length; code++)
+            statistics.add(dictionary[code], counts[code]);
+        return statistics;
+    }
+
+    /**
+     * Calculates the statistics of a plain column; the distinct count is estimated with a HyperLogLog sketch.
+     * @param column The values of the column; null values count as empty values.
+     * @return The statistics of the column.
+     */
+    public static ColumnStatistics of(final String[] column) {
+        ColumnStatistics statistics = new ColumnStatistics(-1, new HyperLogLog());
+        for (String value : column) {
+            value = (value == null) ? "" : value;
+            statistics.add(value, 1);
+            statistics.distinctSketch.add(value);
+        }
+        return statistics;
+    }
+
+    /**
+     * Calculates the statistics of a byte-encoded column on the values' bytes; the distinct count is estimated with a
+     * HyperLogLog sketch. All supported charsets are ASCII-compatible, so the data types are inferred from the bytes,
+     * and the bytes' order is the order of the decoded Strings for ASCII, Latin-1, and UTF-8 without supplementary
+     * characters. Then, only the smallest and the largest value are decoded; otherwise, every value is decoded to find
+     * them.
+     * @param column The byte-encoded column.
+     * @return The statistics of the column.
+     */
+    public static ColumnStatistics of(final ArenaColumn column) {
+        ColumnStatistics statistics = new ColumnStatistics(-1, new HyperLogLog());
+        Charset charset = column.getCharset();
+        boolean utf8 = charset.equals(StandardCharsets.UTF_8);
+        boolean byteOrdered = utf8 || charset.equals(StandardCharsets.US_ASCII) || charset.equals(StandardCharsets.ISO_8859_1);
+        ArenaBytes bytes = new ArenaBytes(column.getArena());
+        int minIndex = -1;
+        int maxIndex = -1;
+        for (int i = 0; i < column.size(); i++) {
+            bytes.reset(column.getAddresses()[i], column.getLengths()[i]);
+            statistics.distinctSketch.addHash(HyperLogLog.hash(bytes));
+
+            // The length of the decoded String, i.e., its number of UTF-16 chars
+            int length = bytes.length();
+            if (utf8) {
+                length = 0;
+                for (int b = 0; b < bytes.length(); b++) {
+                    int value = bytes.charAt(b);
+                    if ((value & 0xc0) != 0x80)
+                        length++;
+                    if ((value & 0xf8) == 0xf0) {
+                        // A supplementary character, which is a surrogate pair in the String
+                        length++;
+                        byteOrdered = false;
+                    }
+                }
+            }
+            statistics.addLength(length, 1);
+            if (length == 0)
+                continue;
+
+            if (minIndex < 0 || column.compareValues(i, minIndex) < 0)
+                minIndex = i;
+            if (maxIndex < 0 || column.compareValues(i, maxIndex) > 0)
+                maxIndex = i;
+            if (statistics.dataType != DataType.STRING)
+                statistics.dataType = statistics.dataType.generalize(DataType.of(bytes));
+        }
+
+        if (byteOrdered && minIndex >= 0) {
+            statistics.min = column.get(minIndex);
+            statistics.max = column.get(maxIndex);
+        } else if (minIndex >= 0) {
+            for (int i = 0; i < column.size(); i++)
+                if (column.getLengths()[i] > 0)
+                    statistics.addToRange(column.get(i));
+        }
+        return statistics;
+    }
+
+    /**
+     * Calculates the statistics of a column in any storage layout; the records are grouped on the stored representation
+     * of their values, so that the distinct count is exact and only one value per distinct value is decoded.
+     * @param values The values of the column; null values count as empty values.
+     * @return The statistics of the column.
+     */
+    public static ColumnStatistics of(final ValueAccessor values) {
+        int[] codes = values.encode();
+        int cardinality = 0;
+        for (int code : codes)
+            cardinality = Math.max(cardinality, code + 1);
+        long[] counts = new long[cardinality];
+        String[] distinctValues = new String[cardinality];
+        for (int recordIndex = 0; recordIndex < codes.length; recordIndex++)
+            if (counts[codes[recordIndex]]++ == 0)
+                distinctValues[codes[recordIndex]] = values.get(recordIndex);
+
+        ColumnStatistics statistics = new ColumnStatistics(cardinality, null);
+        boolean hasEmptyValue = false;
+        for (int code = 0; code < cardinality; code++) {
+            String value = (distinctValues[code] == null) ? "" : distinctValues[code];
+            // null and the empty value are distinct in the grouping, but count as one empty value
+            if (value.isEmpty() && hasEmptyValue)
+                statistics.exactDistinctCount--;
+            hasEmptyValue |= value.isEmpty();
+            statistics.add(value, counts[code]);
+        }
+        return statistics;
+    }
+
+    private void add(final String value, final long count) {
+        this.addLength(value.length(), count);
+        if (value.isEmpty())
+            return;
+        this.addToRange(value);
+        if (this.dataType != DataType.STRING)
+            this.dataType = this.dataType.generalize(DataType.of(value));
+    }
+
+    private void addLength(final int length, final long count) {
+        this.numValues += count;
+        if (length == 0) {
+            this.numEmptyValues += count;
+            this.lengthHistogram[0] += count;
+            return;
+        }
+        this.lengthHistogram[Math.min(NUM_LENGTH_BUCKETS - 1, 32 - Integer.numberOfLeadingZeros(length))] += count;
+
+        // Non-empty values have a positive length, so a maximum length of 0 means that this is the first one
+        if (this.maxLength == 0) {
+            this.minLength = length;
+            this.maxLength = length;
+        } else {
+            this.minLength = Math.min(this.minLength, length);
+            this.maxLength = Math.max(this.maxLength, length);
+        }
+    }
+
+    private void addToRange(final String value) {
+        if (this.min == null || value.compareTo(this.min) < 0)
+            this.min = value;
+        if (this.max == null || value.compareTo(this.max) > 0)
+            this.max = value;
+    }
+
+    /**
+     * Checks whether the distinct count of this column is exact.
+     * @return true if the distinct count is exact, false if it is an estimate.
+     */
+    public boolean isDistinctCountExact() {
+        return this.exactDistinctCount >= 0;
+    }
+
+    /**
+     * Returns the number of distinct values of this column, which is an estimate if the count is not exact.
+     * @return The (estimated) number of distinct values.
+     */
+    public long getDistinctCount() {
+        if (this.isDistinctCountExact())
+            return this.exactDistinctCount;
+        return Math.min(this.numValues, Math.max(1, this.distinctSketch.estimate()));
+    }
+
+    /**
+     * Checks whether the values of this column may all occur in the other column. A negative answer is exact, because
+     * it is only derived from exact statistics: value ranges, lengths, data types, empty values, and exact distinct
+     * counts.
+     * @param other The statistics of the potentially referenced column.
+     * @return false if this column is definitely not included in the other column.
+     */
+    public boolean mayBeIncludedIn(final ColumnStatistics other) {
+        if (this.numEmptyValues > 0 && other.numEmptyValues == 0)
+            return false;
+        if (this.isDistinctCountExact() && other.isDistinctCountExact() && this.exactDistinctCount > other.exactDistinctCount)
+            return false;
+        if (this.min == null)
+            return true;
+        if (other.min == null)
+            return false;
+        if (this.dataType.ordinal() > other.dataType.ordinal())
+            return false;
+        if (this.minLength < other.minLength || this.maxLength > other.maxLength)
+            return false;
+        return this.min.compareTo(other.min) >= 0 && this.max.compareTo(other.max) <= 0;
+    }
+
+    /**
+     * Checks whether this column and the other column may share a value; a negative answer is exact.
+     * @param other The statistics of the other column.
+     * @return false if the two columns definitely have no value in common.
+     */
+    public boolean mayOverlap(final ColumnStatistics other) {
+        if (this.numEmptyValues > 0 && other.numEmptyValues > 0)
+            return true;
+        if (this.min == null || other.min == null)
+            return false;
+        if (this.maxLength < other.minLength || other.maxLength < this.minLength)
+            return false;
+        return this.min.compareTo(other.max) <= 0 && other.min.compareTo(this.max) <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnStatistics(" + this.numValues + " values, " + this.numEmptyValues + " empty, " +
+                (this.isDistinctCountExact() ? "" : "~") + this.getDistinctCount() + " distinct, " + this.dataType +
+                ", [" + this.min + ", " + this.max + "], lengths [" + this.minLength + ", " + this.maxLength + "])";
+    }
+
+    /**
+     * The bytes of one value in a ByteArena as a sequence of chars in [0, 255], so that the data type inference and the
+     * HyperLogLog hash read them without decoding the value; the instance is reused for all values of a column.
+     */
+    private static class ArenaBytes implements CharSequence {
+
+        private final ByteArena arena;
+
+        private long address;
+        private int length;
+
+        private ArenaBytes(final ByteArena arena) {
+            this.arena = arena;
+        }
+
+        private void reset(final long address, final int length) {
+            this.address = address;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return this.length;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            return (char) (this.arena.get(this.address, index) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            Objects.checkFromToIndex(start, end, this.length);
+            // ISO-8859-1 maps every byte to the char that charAt() returns for it
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++)
+                bytes[i] = this.arena.get(this.address, start + i);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return this.subSequence(0, this.length).toString();
+        }
+    }
+}
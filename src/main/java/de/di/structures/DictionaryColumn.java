@@ -0,0 +1,313 @@
+package de.di.structures;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A DictionaryColumn stores the values of one attribute as an array of integer codes that point into a per-column
+ * dictionary of distinct values. Equal values always receive the same code, so algorithms can test value equality,
+ * group records, and count distinct values on the codes alone without hashing or comparing strings.
+ */
+@Getter
+public class DictionaryColumn implements ValueAccessor {
+
+    // The distinct values of this column; the position of a value in this array is its code.
+    private final String[] dictionary;
+
+    // The code of every record's value in this column, i.e., codes[recordIndex] is an index into the dictionary.
+    private final int[] codes;
+
+    // The lookup from values to codes that append() needs; built on the first append and handed on to the new column.
+    @Getter(AccessLevel.NONE)
+    private Object2IntOpenHashMap<String> valueToCode;
+
+    public DictionaryColumn(final String[] dictionary, final int[] codes) {
+        this.dictionary = dictionary;
+        this.codes = codes;
+    }
+
+    /**
+     * Creates a new column with the records of this column followed by the provided values; existing values keep their
+     * codes and new values are appended to the dictionary. The value-to-code lookup moves to the new column, so a
+     * series of appends only pays for building it once.
+     * @param values The values of the appended records; null values are stored as empty values.
+     * @return The extended column.
+     */
+    public synchronized DictionaryColumn append(final String[] values) {
+        Object2IntOpenHashMap<String> valueToCode = this.valueToCode;
+        if (valueToCode == null) {
+            valueToCode = new Object2IntOpenHashMap<>(this.dictionary.length);
+            valueToCode.defaultReturnValue(-1);
+            for (int code = 0; code < this.dictionary.length; code++)
+                valueToCode.put(this.dictionary[code], code);
+        }
+        this.valueToCode = null;
+
+        List<String> newValues = new ArrayList<>();
+        int[] codes = Arrays.copyOf(this.codes, this.codes.length + values.length);
+        for (int i = 0; i < values.length; i++) {
+            String value = (values[i] == null) ? "" : values[i];
+            int code = valueToCode.getInt(value);
+            if (code < 0) {
+                code = this.dictionary.length + newValues.size();
+                valueToCode.put(value, code);
+                newValues.add(value);
+            }
+            codes[this.codes.length + i] = code;
+        }
+
+        String[] dictionary = Arrays.copyOf(this.dictionary, this.dictionary.length + newValues.size());
+        for (int i = 0; i < newValues.size(); i++)
+            dictionary[this.dictionary.length + i] = newValues.get(i);
+        DictionaryColumn column = new DictionaryColumn(dictionary, codes);
+        column.valueToCode = valueToCode;
+        return column;
+    }
+
+    /**
+     * Dictionary-encodes the provided column values. Codes are assigned in the order of first occurrence.
+     * @param values The column values that should be encoded.
+     * @return The dictionary-encoded column.
+     */
+    public static DictionaryColumn encode(final String[] values) {
+        Encoder encoder = new Encoder(values.length);
+        for (String value : values)
+            encoder.add(value);
+        return encoder.build();
+    }
+
+    /**
+     * Concatenates the provided columns into one column whose records are the records of all parts in the given order.
+     * The parts' dictionaries are merged such that codes are again assigned in the order of first occurrence.
+     * @param parts The columns that should be concatenated.
+     * @return The concatenated column.
+     */
+    public static DictionaryColumn concat(final List<DictionaryColumn> parts) {
+        if (parts.size() == 1)
+            return parts.get(0);
+
+        Object2IntOpenHashMap<String> valueToCode = new Object2IntOpenHashMap<>();
+        valueToCode.defaultReturnValue(-1);
+        List<String> dictionary = new ArrayList<>();
+        int size = 0;
+        for (DictionaryColumn part : parts)
+            size += part.size();
+
+        int[] codes = new int[size];
+        int offset = 0;
+        for (DictionaryColumn part : parts) {
+            // Translate the part's local codes into codes of the merged dictionary
+            int[] translation = new int[part.cardinality()];
+            for (int localCode = 0; localCode < translation.length; localCode++) {
+                String value = part.getDictionary()[localCode];
+                int code = valueToCode.getInt(value);
+                if (code < 0) {
+                    code = dictionary.size();
+                    valueToCode.put(value, code);
+                    dictionary.add(value);
+                }
+                translation[localCode] = code;
+            }
+            for (int localCode : part.getCodes())
+                codes[offset++] = translation[localCode];
+        }
+        return new DictionaryColumn(dictionary.toArray(new String[0]), codes);
+    }
+
+    /**
+     * Returns the number of records, i.e., codes in this column.
+     * @return The number of records in this column.
+     */
+    @Override
+    public int size() {
+        return this.codes.length;
+    }
+
+    /**
+     * Returns the number of distinct values in this column.
+     * @return The number of distinct values in this column.
+     */
+    public int cardinality() {
+        return this.dictionary.length;
+    }
+
+    /**
+     * Checks whether all values in this column are distinct.
+     * @return true if no two records share the same value in this column.
+     */
+    public boolean isUnique() {
+        return this.dictionary.length == this.codes.length;
+    }
+
+    /**
+     * Returns the value of the given record in this column.
+     * @param recordIndex The index of the record.
+     * @return The record's value.
+     */
+    @Override
+    public String get(final int recordIndex) {
+        return this.dictionary[this.codes[recordIndex]];
+    }
+
+    @Override
+    public boolean valueEquals(final int recordIndex1, final int recordIndex2) {
+        return this.codes[recordIndex1] == this.codes[recordIndex2];
+    }
+
+    @Override
+    public int hashValue(final int recordIndex) {
+        return HashCommon.mix(this.codes[recordIndex]);
+    }
+
+    /**
+     * Returns the codes of this column, which already group the records by their values.
+     * @return The code of every record's value.
+     */
+    @Override
+    public int[] encode() {
+        return this.codes;
+    }
+
+    /**
+     * Returns the column of the provided records in the provided order; the dictionary keeps only the values of these
+     * records, and codes are assigned in the order of their first occurrence.
+     * @param recordIndexes The indexes of the records that the column should contain.
+     * @return The column of the selected records.
+     */
+    @Override
+    public DictionaryColumn select(final int[] recordIndexes) {
+        int[] newCodes = new int[this.dictionary.length];
+        Arrays.fill(newCodes, -1);
+        List<String> dictionary = new ArrayList<>();
+        int[] codes = new int[recordIndexes.length];
+        for (int i = 0; i < recordIndexes.length; i++) {
+            int code = this.codes[recordIndexes[i]];
+            if (newCodes[code] < 0) {
+                newCodes[code] = dictionary.size();
+                dictionary.add(this.dictionary[code]);
+            }
+            codes[i] = newCodes[code];
+        }
+        return new DictionaryColumn(dictionary.toArray(new String[0]), codes);
+    }
+
+    /**
+     * Decodes this column into a plain value array. Equal values share the same String instance.
+     * @return The decoded values of this column.
+     */
+    @Override
+    public String[] toArray() {
+        String[] values = new String[this.codes.length];
+        for (int i = 0; i < this.codes.length; i++)
+            values[i] = this.dictionary[this.codes[i]];
+        return values;
+    }
+
+    /**
+     * An Encoder builds a DictionaryColumn incrementally from a stream of values, e.g., while a file is being parsed.
+     * Interning values only pays off for columns with few distinct values; once the number of distinct values exceeds
+     * the encoder's cardinality cutoff, the encoder stops interning and collects the remaining values as they are.
+     */
+    public static class Encoder {
+
+        private final int cardinalityCutoff;
+
+        private Object2IntOpenHashMap<String> valueToCode;
+        private List<String> dictionary;
+        private IntArrayList codes;
+
+        // The plain values of the column once the encoder has stopped interning; null while it is interning.
+        private List<String> values;
+
+        public Encoder() {
+            this(16);
+        }
+
+        public Encoder(final int expectedSize) {
+            this(expectedSize, Integer.MAX_VALUE);
+        }
+
+        public Encoder(final int expectedSize, final int cardinalityCutoff) {
+            this.cardinalityCutoff = cardinalityCutoff;
+            this.valueToCode = new Object2IntOpenHashMap<>();
+            this.valueToCode.defaultReturnValue(-1);
+            this.dictionary = new ArrayList<>();
+            this.codes = new IntArrayList(expectedSize);
+        }
+
+        /**
+         * Appends the provided value to the column that is being encoded.
+         * @param value The value to append; null values are stored as empty strings.
+         * @return The code that was assigned to the value or -1 if the encoder has stopped interning.
+         */
+        public int add(final String value) {
+            String v = (value == null) ? "" : value;
+            if (this.values != null) {
+                this.values.add(v);
+                return -1;
+            }
+
+            int code = this.valueToCode.getInt(v);
+            if (code < 0) {
+                if (this.dictionary.size() == this.cardinalityCutoff) {
+                    this.stopInterning();
+                    this.values.add(v);
+                    return -1;
+                }
+                code = this.dictionary.size();
+                this.valueToCode.put(v, code);
+                this.dictionary.add(v);
+            }
+            this.codes.add(code);
+            return code;
+        }
+
+        private void stopInterning() {
+            this.values = new ArrayList<>(Math.max(16, this.codes.size() * 2));
+            for (int i = 0; i < this.codes.size(); i++)
+                this.values.add(this.dictionary.get(this.codes.getInt(i)));
+            this.valueToCode = null;
+            this.dictionary = null;
+            this.codes = null;
+        }
+
+        /**
+         * Checks whether the encoder still interns values, i.e., whether the cardinality cutoff has not been exceeded.
+         * @return true if the encoder can build a DictionaryColumn.
+         */
+        public boolean isInterning() {
+            return this.values == null;
+        }
+
+        public int size() {
+            return (this.values != null) ? this.values.size() : this.codes.size();
+        }
+
+        /**
+         * Builds the dictionary-encoded column; only possible while the encoder is interning.
+         * @return The dictionary-encoded column.
+         */
+        public DictionaryColumn build() {
+            if (this.values != null)
+                throw new IllegalStateException("The encoder has stopped interning after " + this.cardinalityCutoff + " distinct values");
+            return new DictionaryColumn(this.dictionary.toArray(new String[0]), this.codes.toIntArray());
+        }
+
+        /**
+         * Builds the plain value array of the column; values that were interned share the same String instance.
+         * @return The values of the column.
+         */
+        public String[] buildValues() {
+            if (this.values != null)
+                return this.values.toArray(new String[0]);
+            return this.build().toArray();
+        }
+    }
+}
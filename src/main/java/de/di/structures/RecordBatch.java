@@ -0,0 +1,49 @@
+package de.di.structures;
+
+import lombok.Getter;
+
+/**
+ * A RecordBatch is a consecutive slice of a relation's records, as it is handed out by streaming readers. The records
+ * are stored row-major; the column-major view is derived on first access.
+ */
+@Getter
+public class RecordBatch {
+
+    // The index of this batch's first record in the whole relation.
+    private final long firstRecordIndex;
+
+    // The records of this batch; every record has one value per attribute and no value is null.
+    private final String[][] records;
+
+    // The lazily transposed column-major view of the records.
+    private String[][] columns;
+
+    public RecordBatch(final long firstRecordIndex, final String[][] records) {
+        this.firstRecordIndex = firstRecordIndex;
+        this.records = records;
+    }
+
+    /**
+     * Returns the number of records in this batch.
+     * @return The number of records in this batch.
+     */
+    public int size() {
+        return this.records.length;
+    }
+
+    /**
+     * Returns the values of this batch in column-major order, i.e., columns[attribute][record].
+     * @return The columns of this batch.
+     */
+    public String[][] getColumns() {
+        if (this.columns == null) {
+            int numAttributes = (this.records.length == 0) ? 0 : this.records[0].length;
+            String[][] columns = new String[numAttributes][this.records.length];
+            for (int j = 0; j < this.records.length; j++)
+                for (int i = 0; i < numAttributes; i++)
+                    columns[i][j] = this.records[j][i];
+            this.columns = columns;
+        }
+        return this.columns;
+    }
+}
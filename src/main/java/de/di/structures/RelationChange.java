@@ -0,0 +1,30 @@
+package de.di.structures;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * A RelationChange is one entry of a relation's change log: the records that one append or delete inserted into or
+ * deleted from the relation. Record indexes are stable, i.e., a record keeps its index for the lifetime of the
+ * relation, so incremental algorithms can update their state with the indexes of a change alone.
+ */
+@Getter
+@AllArgsConstructor
+public class RelationChange {
+
+    // The version of the relation that this change created; the relation had version - 1 before the change.
+    private final long version;
+
+    // The indexes of the inserted records in ascending order.
+    private final int[] insertedRecords;
+
+    // The indexes of the deleted records in ascending order.
+    private final int[] deletedRecords;
+
+    @Override
+    public String toString() {
+        return "RelationChange(version " + this.version + ": +" + Arrays.toString(this.insertedRecords) + " -" + Arrays.toString(this.deletedRecords) + ")";
+    }
+}
@@ -0,0 +1,138 @@
+package de.di.structures;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * A ValueAccessor gives algorithms access to the values of one column without fixing how the column is stored: as
+ * plain Strings, dictionary-encoded, or as encoded bytes in an on- or off-heap ByteArena. Equality and hashing work on
+ * the stored representation, so grouping values does not decode them; Strings are only created by get().
+ */
+public interface ValueAccessor {
+
+    /**
+     * Returns the number of records, i.e., values in the column.
+     * @return The number of records in the column.
+     */
+    int size();
+
+    /**
+     * Decodes the value of the given record.
+     * @param recordIndex The index of the record.
+     * @return The record's value.
+     */
+    String get(int recordIndex);
+
+    /**
+     * Checks whether two records have the same value.
+     * @param recordIndex1 The index of the first record.
+     * @param recordIndex2 The index of the second record.
+     * @return true if the values are equal.
+     */
+    boolean valueEquals(int recordIndex1, int recordIndex2);
+
+    /**
+     * Hashes the value of the given record; records with equal values have equal hashes.
+     * @param recordIndex The index of the record.
+     * @return The hash of the record's value.
+     */
+    int hashValue(int recordIndex);
+
+    /**
+     * Groups the records by their values: records with equal values receive the same code and the codes are dense, i.e.,
+     * they range from 0 to the number of distinct values - 1. By default, codes are assigned in the order of the values'
+     * first occurrence.
+     * @return The code of every record's value.
+     */
+    default int[] encode() {
+        return ValueGrouping.encode(this);
+    }
+
+    /**
+     * Sorts the records stably by their values: only one value per distinct value is decoded and sorted, the records are
+     * then distributed by the rank of their value. Values that the comparator considers equal share one rank.
+     * @param comparator The order of the values.
+     * @return The record indexes in sorted order.
+     */
+    default int[] sortedOrder(final Comparator<String> comparator) {
+        return ValueGrouping.sortedOrder(this, comparator);
+    }
+
+    /**
+     * Decodes all values of the column.
+     * @return The values of the column.
+     */
+    default String[] toArray() {
+        String[] values = new String[this.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = this.get(i);
+        return values;
+    }
+
+    /**
+     * Returns a view of the provided records' values in the provided order; the view's record i is the record
+     * recordIndexes[i] of this column. Values are neither copied nor decoded.
+     * @param recordIndexes The indexes of the records that the view should contain.
+     * @return The accessor for the selected records' values.
+     */
+    default ValueAccessor select(final int[] recordIndexes) {
+        ValueAccessor values = this;
+        return new ValueAccessor() {
+            @Override
+            public int size() {
+                return recordIndexes.length;
+            }
+
+            @Override
+            public String get(final int recordIndex) {
+                return values.get(recordIndexes[recordIndex]);
+            }
+
+            @Override
+            public boolean valueEquals(final int recordIndex1, final int recordIndex2) {
+                return values.valueEquals(recordIndexes[recordIndex1], recordIndexes[recordIndex2]);
+            }
+
+            @Override
+            public int hashValue(final int recordIndex) {
+                return values.hashValue(recordIndexes[recordIndex]);
+            }
+        };
+    }
+
+    /**
+     * Wraps a plain value array; null is a value of its own.
+     * @param values The values of the column.
+     * @return The accessor for the values.
+     */
+    static ValueAccessor of(final String[] values) {
+        return new ValueAccessor() {
+            @Override
+            public int size() {
+                return values.length;
+            }
+
+            @Override
+            public String get(final int recordIndex) {
+                return values[recordIndex];
+            }
+
+            @Override
+            public boolean valueEquals(final int recordIndex1, final int recordIndex2) {
+                return Objects.equals(values[recordIndex1], values[recordIndex2]);
+            }
+
+            @Override
+            public int hashValue(final int recordIndex) {
+                return HashCommon.mix(Objects.hashCode(values[recordIndex]));
+            }
+
+            @Override
+            public String[] toArray() {
+                return values;
+            }
+        };
+    }
+}
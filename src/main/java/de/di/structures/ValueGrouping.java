@@ -0,0 +1,142 @@
+package de.di.structures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Groups the values of a ValueAccessor with an open-addressing hash table from a value's hash to the index of the
+ * first record with that value, so that values are only compared through the accessor and never decoded.
+ */
+class ValueGrouping {
+
+    private final ValueAccessor values;
+
+    private int[] hashes;
+    private int[] recordIndexes;
+    private int size = 0;
+
+    private ValueGrouping(final ValueAccessor values, final int expectedSize) {
+        this.values = values;
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        this.hashes = new int[capacity];
+        this.recordIndexes = new int[capacity];
+        Arrays.fill(this.recordIndexes, -1);
+    }
+
+    /**
+     * Assigns every record the code of its value in the order of the values' first occurrence.
+     * @param values The values to encode.
+     * @return The code of every record's value.
+     */
+    static int[] encode(final ValueAccessor values) {
+        return encode(values, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Assigns every record the code of its value in the order of the values' first occurrence, unless the values have
+     * more distinct values than the provided maximum; the grouping then stops as soon as the maximum is exceeded.
+     * @param values The values to encode.
+     * @param maxCardinality The maximum number of distinct values.
+     * @return The code of every record's value or null if the values have more distinct values than the maximum.
+     */
+    static int[] encode(final ValueAccessor values, final int maxCardinality) {
+        int[] codes = new int[values.size()];
+        int numCodes = 0;
+        ValueGrouping representatives = new ValueGrouping(values, Math.max(16, Math.min(codes.length / 4, maxCardinality)));
+        for (int recordIndex = 0; recordIndex < codes.length; recordIndex++) {
+            int hash = values.hashValue(recordIndex);
+            int representative = representatives.find(hash, recordIndex);
+            if (representative < 0) {
+                if (numCodes == maxCardinality)
+                    return null;
+                representatives.insert(hash, recordIndex);
+                codes[recordIndex] = numCodes++;
+            } else {
+                codes[recordIndex] = codes[representative];
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Sorts the records stably by their values with a counting sort over the ranks of the distinct values.
+     * @param values The values to sort.
+     * @param comparator The order of the values.
+     * @return The record indexes in sorted order.
+     */
+    static int[] sortedOrder(final ValueAccessor values, final Comparator<String> comparator) {
+        int[] codes = values.encode();
+        List<String> distinctValues = new ArrayList<>();
+        for (int recordIndex = 0; recordIndex < codes.length; recordIndex++) {
+            while (codes[recordIndex] >= distinctValues.size())
+                distinctValues.add(null);
+            if (distinctValues.get(codes[recordIndex]) == null)
+                distinctValues.set(codes[recordIndex], values.get(recordIndex));
+        }
+
+        Integer[] sortedCodes = new Integer[distinctValues.size()];
+        for (int code = 0; code < sortedCodes.length; code++)
+            sortedCodes[code] = code;
+        Arrays.sort(sortedCodes, (code1, code2) -> comparator.compare(distinctValues.get(code1), distinctValues.get(code2)));
+
+        // Values that the comparator considers equal share one rank, so that their records keep their order
+        int[] rankOfCode = new int[sortedCodes.length];
+        int numRanks = 0;
+        for (int i = 0; i < sortedCodes.length; i++) {
+            if (i > 0 && comparator.compare(distinctValues.get(sortedCodes[i - 1]), distinctValues.get(sortedCodes[i])) != 0)
+                numRanks++;
+            rankOfCode[sortedCodes[i]] = numRanks;
+        }
+
+        int[] rankStarts = new int[sortedCodes.length + 1];
+        for (int code : codes)
+            rankStarts[rankOfCode[code] + 1]++;
+        for (int rank = 0; rank < sortedCodes.length; rank++)
+            rankStarts[rank + 1] += rankStarts[rank];
+
+        int[] order = new int[codes.length];
+        for (int recordIndex = 0; recordIndex < order.length; recordIndex++)
+            order[rankStarts[rankOfCode[codes[recordIndex]]]++] = recordIndex;
+        return order;
+    }
+
+    private int find(final int hash, final int recordIndex) {
+        int mask = this.hashes.length - 1;
+        for (int slot = hash & mask; this.recordIndexes[slot] >= 0; slot = (slot + 1) & mask)
+            if (this.hashes[slot] == hash && this.values.valueEquals(this.recordIndexes[slot], recordIndex))
+                return this.recordIndexes[slot];
+        return -1;
+    }
+
+    private void insert(final int hash, final int recordIndex) {
+        if (2 * (this.size + 1) > this.hashes.length)
+            this.grow();
+        int mask = this.hashes.length - 1;
+        int slot = hash & mask;
+        while (this.recordIndexes[slot] >= 0)
+            slot = (slot + 1) & mask;
+        this.hashes[slot] = hash;
+        this.recordIndexes[slot] = recordIndex;
+        this.size++;
+    }
+
+    private void grow() {
+        int[] oldHashes = this.hashes;
+        int[] oldRecordIndexes = this.recordIndexes;
+        this.hashes = new int[oldHashes.length * 2];
+        this.recordIndexes = new int[oldHashes.length * 2];
+        Arrays.fill(this.recordIndexes, -1);
+        int mask = this.hashes.length - 1;
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldRecordIndexes[i] < 0)
+                continue;
+            int slot = oldHashes[i] & mask;
+            while (this.recordIndexes[slot] >= 0)
+                slot = (slot + 1) & mask;
+            this.hashes[slot] = oldHashes[i];
+            this.recordIndexes[slot] = oldRecordIndexes[i];
+        }
+    }
+}
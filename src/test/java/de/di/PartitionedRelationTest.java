@@ -0,0 +1,115 @@
+package de.di;
+
+import de.di.data_profiling.structures.PositionListIndex;
+import de.di.duplicate_detection.RecordComparator;
+import de.di.duplicate_detection.SortedNeighborhood;
+import de.di.duplicate_detection.structures.AttrSimWeight;
+import de.di.duplicate_detection.structures.Duplicate;
+import de.di.helper.ParallelCsvReader;
+import de.di.similarity_measures.Levenshtein;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class PartitionedRelationTest {
+
+    private static final Path SUPPLIER = Paths.get("data" + File.separator + "data_profiling" + File.separator + "tpch_supplier.csv");
+
+    @Test
+    public void testPartitionParallelOperators() {
+        Relation relation = new Relation(SUPPLIER, true, ';', StandardCharsets.UTF_8);
+        PartitionedRelation partitioned = PartitionedRelation.split(relation, 7);
+
+        assertEquals(7, partitioned.getNumPartitions());
+        assertEquals(relation.getNumRecords(), partitioned.getNumRecords());
+        assertArrayEquals(relation.getRecords(), partitioned.toRelation().getRecords());
+        assertArrayEquals(relation.getRecords()[4321], partitioned.getRecord(4321));
+
+        for (int attribute = 0; attribute < relation.getAttributes().length; attribute++) {
+            assertArrayEquals(relation.getDictionaryColumn(attribute).getCodes(), partitioned.getDictionaryColumn(attribute).getCodes());
+            assertEquals(new HashSet<>(Arrays.asList(relation.getDictionaryColumn(attribute).getDictionary())), partitioned.getDistinctValues(attribute));
+            assertEquals(clustersOf(new PositionListIndex(null, relation.getDictionaryColumn(attribute))), clustersOf(partitioned.getPositionListIndex(attribute)));
+            assertArrayEquals(stableOrder(relation, attribute), partitioned.getSortedOrder(attribute, String.CASE_INSENSITIVE_ORDER));
+        }
+    }
+
+    @Test
+    public void testStableSortAndDuplicates() {
+        String[][] records = new String[][]{{"b", "x"}, {"A", "y"}, {"a", "y"}, {"B", "x"}, {"a", "z"}, {"c", "y"}, {"A", "x"}};
+        Relation relation = new Relation("letters", new String[]{"letter", "tag"}, records);
+        PartitionedRelation partitioned = PartitionedRelation.split(relation, 3);
+
+        // Case variants compare equal and must keep their record order across partitions
+        assertArrayEquals(new int[]{1, 2, 4, 6, 0, 3, 5}, partitioned.getSortedOrder(0, String.CASE_INSENSITIVE_ORDER));
+
+        RecordComparator comparator = new RecordComparator(List.of(new AttrSimWeight(1, new Levenshtein(false), 1)), 0.9);
+        SortedNeighborhood snm = new SortedNeighborhood();
+        assertEquals(pairsOf(snm.detectDuplicates(relation, new int[]{0, 1}, 3, comparator)),
+                pairsOf(snm.detectDuplicates(partitioned, new int[]{0, 1}, 3, comparator)));
+    }
+
+    @Test
+    public void testSplitColumnarStore() {
+        Relation relation = new ParallelCsvReader(true, ';', StandardCharsets.UTF_8, 4, ParallelCsvReader.DEFAULT_CHUNK_SIZE, 100, true).read(SUPPLIER);
+        relation.delete(0, 17, 4321);
+        PartitionedRelation partitioned = PartitionedRelation.split(relation, 5);
+
+        // Deleted records are left out, and every partition keeps the storage layout of the relation's columns
+        int[] liveRecords = relation.getLiveRecordIndexes();
+        assertEquals(liveRecords.length, partitioned.getNumRecords());
+        for (int i = 0; i < liveRecords.length; i += 97)
+            assertArrayEquals(relation.getRecord(liveRecords[i]), partitioned.getRecord(i));
+        for (Relation partition : partitioned.getPartitions()) {
+            for (int attribute = 0; attribute < relation.getAttributes().length; attribute++) {
+                assertEquals(relation.isDictionaryEncoded(attribute), partition.isDictionaryEncoded(attribute));
+                assertEquals(relation.isArenaBacked(attribute), partition.isArenaBacked(attribute));
+            }
+        }
+    }
+
+    @Test
+    public void testLoadShards() throws Exception {
+        Path shard1 = Files.createTempFile("shard", ".csv");
+        Path shard2 = Files.createTempFile("shard", ".csv");
+        try {
+            Files.write(shard1, "id;name\n1;a\n2;b\n".getBytes(StandardCharsets.UTF_8));
+            Files.write(shard2, "id;name\n3;c\n".getBytes(StandardCharsets.UTF_8));
+            PartitionedRelation partitioned = PartitionedRelation.load("shards", List.of(shard1, shard2), new ParallelCsvReader(true, ';', StandardCharsets.UTF_8));
+
+            assertEquals(2, partitioned.getNumPartitions());
+            assertEquals(1, partitioned.partitionOf(2));
+            assertArrayEquals(new String[][]{{"1", "a"}, {"2", "b"}, {"3", "c"}}, partitioned.toRelation().getRecords());
+
+            Files.write(shard2, "id;title\n3;c\n".getBytes(StandardCharsets.UTF_8));
+            assertThrows(IllegalArgumentException.class, () -> PartitionedRelation.load("shards", List.of(shard1, shard2), new ParallelCsvReader(true, ';', StandardCharsets.UTF_8)));
+        } finally {
+            Files.deleteIfExists(shard1);
+            Files.deleteIfExists(shard2);
+        }
+    }
+
+    private static Set<IntArrayList> clustersOf(PositionListIndex pli) {
+        return new HashSet<>(pli.getClusters());
+    }
+
+    private static int[] stableOrder(Relation relation, int attribute) {
+        Integer[] order = new Integer[relation.getNumRecords()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, Comparator.comparing(i -> relation.getRecords()[i][attribute], String.CASE_INSENSITIVE_ORDER));
+        return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Set<String> pairsOf(Set<Duplicate> duplicates) {
+        return duplicates.stream().map(duplicate -> duplicate.getIndex1() + "-" + duplicate.getIndex2()).collect(Collectors.toSet());
+    }
+}
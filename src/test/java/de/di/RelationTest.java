@@ -0,0 +1,83 @@
+package de.di;
+
+import de.di.structures.RelationChange;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RelationTest {
+
+    private static final String s = File.separator;
+
+    @Test
+    public void testColumnarViews() {
+        Relation relation = new Relation("data" + s + "data_profiling" + s + "tpch_region.csv");
+
+        assertEquals("tpch_region", relation.getName());
+        assertArrayEquals(new String[]{"R_REGIONKEY", "R_NAME", "R_COMMENT"}, relation.getAttributes());
+        assertEquals(5, relation.getNumRecords());
+        assertEquals(3, relation.getDictionaryColumns().length);
+        assertEquals(5, relation.getDictionaryColumns()[1].cardinality());
+
+        String[][] records = relation.getRecords();
+        String[][] columns = relation.getColumns();
+        assertSame(records, relation.getRecords());
+        assertSame(columns, relation.getColumns());
+        for (int j = 0; j < records.length; j++)
+            for (int i = 0; i < columns.length; i++)
+                assertEquals(records[j][i], columns[i][j]);
+        assertEquals("AFRICA", records[0][1].trim());
+    }
+
+    @Test
+    public void testEncodingOfPlainRecords() {
+        Relation relation = new Relation("R", new String[]{"A", "B"}, new String[][]{{"1", "x"}, {"2", "x"}, {"1", "y"}});
+
+        assertEquals(3, relation.getNumRecords());
+        assertEquals(2, relation.getDictionaryColumns()[0].cardinality());
+        assertArrayEquals(new int[]{0, 0, 1}, relation.getDictionaryColumns()[1].getCodes());
+        assertArrayEquals(new String[]{"x", "x", "y"}, relation.getColumns()[1]);
+    }
+
+    @Test
+    public void testChangeLog() {
+        Relation relation = new Relation("data" + s + "data_profiling" + s + "tpch_region.csv");
+        String[] column = relation.getColumn(1);
+        List<RelationChange> notified = new ArrayList<>();
+        relation.subscribe(notified::add);
+
+        RelationChange append = relation.append(new String[][]{{"5", "AFRICA                   ", "new"}, {"6", null}});
+        assertEquals(1, append.getVersion());
+        assertArrayEquals(new int[]{5, 6}, append.getInsertedRecords());
+        assertEquals(7, relation.getNumRecords());
+        assertArrayEquals(new String[]{"5", "AFRICA                   ", "new"}, relation.getRecords()[5]);
+        assertArrayEquals(new String[]{"6", "", ""}, relation.getRecords()[6]);
+        assertEquals(column[0], relation.getColumn(1)[0]);
+
+        // Existing values keep their codes, new values extend the dictionary
+        assertEquals(relation.getDictionaryColumn(1).getCodes()[0], relation.getDictionaryColumn(1).getCodes()[5]);
+        assertEquals(6, relation.getDictionaryColumn(1).cardinality());
+        assertEquals(7, relation.getColumnStatistics(0).getNumValues());
+
+        RelationChange delete = relation.delete(6, 2, 6);
+        assertArrayEquals(new int[]{2, 6}, delete.getDeletedRecords());
+        assertTrue(relation.isDeleted(2));
+        assertFalse(relation.isDeleted(5));
+        assertEquals(5, relation.getNumLiveRecords());
+        assertArrayEquals(new int[]{0, 1, 3, 4, 5}, relation.getLiveRecordIndexes());
+        assertEquals(5, relation.getLiveValueAccessor(1).size());
+        assertEquals(relation.getRecords()[3][1], relation.getLiveValueAccessor(1).get(2));
+        assertEquals(5, relation.getColumnStatistics(0).getNumValues());
+        assertEquals(0, relation.delete(2).getDeletedRecords().length);
+        assertThrows(IndexOutOfBoundsException.class, () -> relation.delete(7));
+
+        assertEquals(3, relation.getVersion());
+        assertEquals(List.of(append, delete, notified.get(2)), notified);
+        assertEquals(List.of(delete, notified.get(2)), relation.getChangesSince(1));
+        assertTrue(relation.getChangesSince(3).isEmpty());
+    }
+}
@@ -2,11 +2,17 @@ package de.di.data_profiling;
 
 import de.di.Relation;
 import de.di.data_profiling.structures.IND;
+import de.di.helper.ParallelCsvReader;
 import org.junit.Test;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 
@@ -25,4 +31,24 @@ public class INDProfilerTest {
         List<IND> inds = profiler.profile(relations, false);
         assertEquals(211, inds.size());
     }
+
+    @Test
+    public void testPlainColumnsStayPlain() {
+        INDProfiler profiler = new INDProfiler();
+        Path supplier = Paths.get("data" + File.separator + "data_profiling" + File.separator + "tpch_supplier.csv");
+        Path nation = Paths.get("data" + File.separator + "data_profiling" + File.separator + "tpch_nation.csv");
+        List<IND> expected = profiler.profile(List.of(new Relation(supplier.toString()), new Relation(nation.toString())), false);
+
+        // Only the nation key column of the suppliers has at most 25 distinct values
+        ParallelCsvReader reader = new ParallelCsvReader(true, ';', StandardCharsets.UTF_8, 4, 1000, 25);
+        Relation suppliers = reader.read(supplier);
+        List<IND> inds = profiler.profile(List.of(suppliers, reader.read(nation)), false);
+        assertEquals(toStrings(expected), toStrings(inds));
+        for (int i = 0; i < suppliers.getAttributes().length; i++)
+            assertEquals(i == 3, suppliers.isDictionaryEncoded(i));
+    }
+
+    private static Set<String> toStrings(List<IND> inds) {
+        return inds.stream().map(IND::toString).collect(Collectors.toSet());
+    }
 }
@@ -0,0 +1,64 @@
+package de.di.data_profiling;
+
+import de.di.Relation;
+import de.di.data_profiling.structures.IND;
+import de.di.helper.RelationSource;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingProfilerTest {
+
+    private static final String[] FILES = {"abcde.csv", "abcdefghi.csv", "tpch_nation.csv", "tpch_region.csv", "tpch_supplier.csv"};
+
+    private static Path pathOf(String file) {
+        return Paths.get("data" + File.separator + "data_profiling" + File.separator + file);
+    }
+
+    @Test
+    public void testINDCandidatesContainAllINDs() {
+        List<Relation> relations = new ArrayList<>();
+        List<RelationSource> sources = new ArrayList<>();
+        for (String file : FILES) {
+            relations.add(new Relation(pathOf(file), true, ';', StandardCharsets.UTF_8));
+            sources.add(new RelationSource(pathOf(file), true, ';', StandardCharsets.UTF_8, 16));
+        }
+
+        Set<IND> candidates = new HashSet<>(new StreamingProfiler().discoverINDCandidates(sources));
+        sources.forEach(RelationSource::close);
+
+        // The candidates reference the sources' schemata, so the INDs are compared as INDs over the same schemata
+        Map<String, Relation> schemata = new HashMap<>();
+        for (IND candidate : candidates) {
+            schemata.put(candidate.getLhsRelation().getName(), candidate.getLhsRelation());
+            schemata.put(candidate.getRhsRelation().getName(), candidate.getRhsRelation());
+        }
+        List<IND> inds = new INDProfiler().profile(relations, false);
+        for (IND ind : inds) {
+            IND expected = new IND(schemata.get(ind.getLhsRelation().getName()), ind.getLhsAttributes(),
+                    schemata.get(ind.getRhsRelation().getName()), ind.getRhsAttributes());
+            assertTrue(ind.toString(), candidates.contains(expected));
+        }
+        assertTrue(candidates.size() >= inds.size());
+    }
+
+    @Test
+    public void testDistinctCounts() {
+        for (String file : FILES) {
+            Relation relation = new Relation(pathOf(file), true, ';', StandardCharsets.UTF_8);
+            long[] expected = Arrays.stream(relation.getDictionaryColumns()).mapToLong(column -> column.cardinality()).toArray();
+            try (RelationSource source = new RelationSource(pathOf(file), true, ';', StandardCharsets.UTF_8)) {
+                long[] estimated = new StreamingProfiler().estimateDistinctCounts(source);
+                for (int i = 0; i < expected.length; i++)
+                    assertEquals(file, expected[i], estimated[i], 0.01 * expected[i]);
+            }
+        }
+    }
+}
@@ -76,4 +76,15 @@ public class UCCProfilerTest {
         expectedUccs.add(new UCC(relation, new AttributeList(new int[]{3})));
         assertEquals(expectedUccs, uccs);
     }
+
+    @Test
+    public void testDeletedRecords() {
+        UCCProfiler profiler = new UCCProfiler();
+        Relation relation = new Relation("R", new String[]{"A", "B"}, new String[][]{{"1", "x"}, {"2", "y"}, {"1", "z"}});
+        assertEquals(Set.of(new UCC(relation, new AttributeList(1))), new HashSet<>(profiler.profile(relation)));
+
+        // Without the record that duplicates its value, A is unique, too
+        relation.delete(2);
+        assertEquals(Set.of(new UCC(relation, new AttributeList(0)), new UCC(relation, new AttributeList(1))), new HashSet<>(profiler.profile(relation)));
+    }
 }
@@ -0,0 +1,36 @@
+package de.di.data_profiling.structures;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnSketchTest {
+
+    @Test
+    public void testDistinctCountBeyondBitmapSize() {
+        // A 2^16 bit bitmap is saturated long before the 10^6 distinct values are added
+        ColumnSketch sketch = new ColumnSketch(16);
+        for (int i = 0; i < 1_000_000; i++)
+            sketch.add("value" + i);
+        assertEquals(1_000_000, sketch.estimateDistinctCount(), 30_000);
+
+        ColumnSketch duplicates = new ColumnSketch(16);
+        for (int i = 0; i < 100_000; i++)
+            duplicates.add("value" + (i % 100));
+        assertEquals(100, duplicates.estimateDistinctCount(), 3);
+    }
+
+    @Test
+    public void testInclusion() {
+        ColumnSketch keys = new ColumnSketch(10);
+        ColumnSketch references = new ColumnSketch(10);
+        for (int i = 0; i < 50; i++) {
+            keys.add("key" + i);
+            references.add("key" + (i % 20));
+        }
+        assertTrue(references.mayBeIncludedIn(keys));
+        assertFalse(keys.mayBeIncludedIn(references));
+    }
+}
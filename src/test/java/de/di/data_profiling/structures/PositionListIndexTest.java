@@ -1,7 +1,11 @@
 package de.di.data_profiling.structures;
 
+import de.di.structures.DictionaryColumn;
 import org.junit.Test;
 
+import java.util.HashSet;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class PositionListIndexTest {
@@ -22,4 +26,14 @@ public class PositionListIndexTest {
         assertEquals(pli4.getClusters(), pli1.intersect(pli2).intersect(pli5).getClusters());
         assertEquals(pli7.getClusters(), pli1.intersect(pli6).intersect(pli3).getClusters());
     }
+
+    @Test
+    public void testDictionaryColumnConstruction() {
+        String[] values = new String[]{"a", "a", "a", "b", "b", "a", "c"};
+        PositionListIndex pliFromStrings = new PositionListIndex(new AttributeList(0), values);
+        PositionListIndex pliFromCodes = new PositionListIndex(new AttributeList(0), DictionaryColumn.encode(values));
+
+        assertEquals(new HashSet<>(pliFromStrings.getClusters()), new HashSet<>(pliFromCodes.getClusters()));
+        assertArrayEquals(new int[]{0, 0, 0, 1, 1, 0, -1}, pliFromCodes.getInvertedClusters());
+    }
 }
@@ -3,6 +3,9 @@ package de.di.duplicate_detection;
 import de.di.duplicate_detection.structures.AttrSimWeight;
 import de.di.similarity_measures.Jaccard;
 import de.di.similarity_measures.Levenshtein;
+import de.di.similarity_measures.LocalitySensitiveHashing;
+import de.di.similarity_measures.PreparedValue;
+import de.di.similarity_measures.SimilarityMeasure;
 import de.di.similarity_measures.helper.Tokenizer;
 import org.junit.Test;
 
@@ -72,6 +75,43 @@ public class RecordComparatorTest {
         assertEquals(0.6485968992248062, similarity, 0.0000000001);
     }
 
+    @Test
+    public void testCorrectnessBounded() {
+        List<AttrSimWeight> attrSimWeights = new ArrayList<>(5);
+        attrSimWeights.add(new AttrSimWeight(0, new Levenshtein(true), 0.4));
+        attrSimWeights.add(new AttrSimWeight(1, new Jaccard(new Tokenizer(2, false), false), 0.1));
+        attrSimWeights.add(new AttrSimWeight(2, new Levenshtein(false), 0.2));
+        attrSimWeights.add(new AttrSimWeight(3, new Jaccard(new Tokenizer(3, true), false), 0.1));
+        attrSimWeights.add(new AttrSimWeight(4, new Levenshtein(true), 0.2));
+
+        RecordComparator recordComparator = new RecordComparator(attrSimWeights, 1.0);
+        double similarity = recordComparator.compare(this.tuple1, this.tuple2);
+        assertEquals(similarity, recordComparator.compare(this.tuple1, this.tuple2, 0.5), 0.0000000001);
+        assertEquals(similarity, recordComparator.compare(this.tuple1, this.tuple2, similarity), 0.0000000001);
+        assertEquals(SimilarityMeasure.BELOW_THRESHOLD, recordComparator.compare(this.tuple1, this.tuple2, 0.9), 0.0000000001);
+        assertEquals(1.0, recordComparator.compare(this.tuple1, this.tuple1, 1.0), 0.0000000001);
+    }
+
+    @Test
+    public void testCorrectnessPrepared() {
+        List<AttrSimWeight> attrSimWeights = new ArrayList<>(6);
+        attrSimWeights.add(new AttrSimWeight(0, new Levenshtein(true), 0.4));
+        attrSimWeights.add(new AttrSimWeight(1, new Jaccard(new Tokenizer(2, false), true), 0.1));
+        attrSimWeights.add(new AttrSimWeight(2, new Levenshtein(false), 0.2));
+        attrSimWeights.add(new AttrSimWeight(3, new Jaccard(new Tokenizer(5, true), false), 0.1));
+        attrSimWeights.add(new AttrSimWeight(4, new Levenshtein(true), 0.2));
+        attrSimWeights.add(new AttrSimWeight(4, new LocalitySensitiveHashing(new Tokenizer(3, true), 16), 0.1));
+
+        RecordComparator recordComparator = new RecordComparator(attrSimWeights, 1.0);
+        PreparedValue[] prepared1 = recordComparator.prepare(this.tuple1);
+        PreparedValue[] prepared2 = recordComparator.prepare(this.tuple2);
+        double similarity = recordComparator.compare(this.tuple1, this.tuple2);
+        assertEquals(similarity, recordComparator.compare(prepared1, prepared2, 0), 0.0000000001);
+        assertEquals(similarity, recordComparator.compare(prepared1, prepared2, similarity), 0.0000000001);
+        assertEquals(SimilarityMeasure.BELOW_THRESHOLD, recordComparator.compare(prepared1, prepared2, 0.9), 0.0000000001);
+        assertEquals(recordComparator.compare(this.tuple1, this.tuple1), recordComparator.compare(prepared1, prepared1, 0.5), 0.0000000001);
+    }
+
     @Test
     public void testCorrectnessMixedOverweighted() {
         List<AttrSimWeight> attrSimWeights = new ArrayList<>(5);
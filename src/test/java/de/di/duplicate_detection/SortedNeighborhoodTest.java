@@ -3,6 +3,7 @@ package de.di.duplicate_detection;
 import de.di.Relation;
 import de.di.duplicate_detection.structures.AttrSimWeight;
 import de.di.duplicate_detection.structures.Duplicate;
+import de.di.helper.RelationSource;
 import de.di.similarity_measures.Jaccard;
 import de.di.similarity_measures.Levenshtein;
 import de.di.similarity_measures.helper.Tokenizer;
@@ -12,10 +13,12 @@ import org.junit.Test;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class SortedNeighborhoodTest {
@@ -46,6 +49,61 @@ public class SortedNeighborhoodTest {
         assertEquals(55, duplicatesDetected.size());
     }
 
+    @Test
+    public void testSortedOrdersFromSource() {
+        Path file = Paths.get("data" + File.separator + "data_profiling" + File.separator + "tpch_supplier.csv");
+        Relation relation = new Relation(file, true, ';', StandardCharsets.UTF_8);
+        int[] sortingKeys = {1, 3, 6};
+
+        int[][] orders;
+        try (RelationSource source = new RelationSource(file, true, ';', StandardCharsets.UTF_8, 7)) {
+            orders = SortedNeighborhood.extractSortedOrders(source, sortingKeys);
+        }
+
+        for (int k = 0; k < sortingKeys.length; k++) {
+            int sortingKey = sortingKeys[k];
+            Integer[] expected = new Integer[relation.getNumRecords()];
+            for (int j = 0; j < expected.length; j++)
+                expected[j] = j;
+            Arrays.sort(expected, Comparator.comparing(j -> relation.getRecords()[j][sortingKey], String.CASE_INSENSITIVE_ORDER));
+            assertArrayEquals(Arrays.stream(expected).mapToInt(Integer::intValue).toArray(), orders[k]);
+        }
+    }
+
+    @Test
+    public void testSortedOrdersFromSourceWithEqualKeys() throws Exception {
+        Path file = Files.createTempFile("sorted_neighborhood", ".csv");
+        try {
+            Files.write(file, "b;x\nA;x\na;x\nB;x\nA;x\n;x\n".getBytes(StandardCharsets.UTF_8));
+            Relation relation = new Relation(file, false, ';', StandardCharsets.UTF_8);
+
+            int[][] orders;
+            try (RelationSource source = new RelationSource(file, false, ';', StandardCharsets.UTF_8, 2)) {
+                orders = SortedNeighborhood.extractSortedOrders(source, new int[]{0});
+            }
+
+            // Keys that differ only in case share a rank, so that their records keep their input order
+            int[] expected = relation.getValueAccessor(0).sortedOrder(Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+            assertArrayEquals(new int[]{5, 1, 2, 4, 0, 3}, expected);
+            assertArrayEquals(expected, orders[0]);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testDeletedRecords() {
+        Relation relation = new Relation("R", new String[]{"A"}, new String[][]{{"anna smith"}, {"anna smith"}, {"anna smyth"}, {"zoe"}});
+        RecordComparator recordComparator = new RecordComparator(List.of(new AttrSimWeight(0, new Levenshtein(false), 1.0)), 0.8);
+        SortedNeighborhood snm = new SortedNeighborhood();
+        assertEquals(Set.of(new Duplicate(0, 1, 1.0, relation), new Duplicate(1, 2, 0.9, relation)),
+                snm.detectDuplicates(relation, new int[]{0}, 2, recordComparator));
+
+        // The deleted duplicate is no longer reported and no longer separates its neighbors in the window
+        relation.delete(1);
+        assertEquals(Set.of(new Duplicate(0, 2, 0.9, relation)), snm.detectDuplicates(relation, new int[]{0}, 2, recordComparator));
+    }
+
     private List<Duplicate> parseCDGoldstandard(Relation cdGold, Relation cd) {
         List<Duplicate> duplicatesGold = new ArrayList<>(cdGold.getRecords().length);
         for (String[] record : cdGold.getRecords()) {
@@ -0,0 +1,136 @@
+package de.di.helper;
+
+import com.opencsv.CSVParser;
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.enums.CSVReaderNullFieldIndicator;
+import de.di.Relation;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelCsvReaderTest {
+
+    private static final String s = File.separator;
+
+    @Test
+    public void testEquivalenceToOpencsvOnAllDataFiles() throws Exception {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(Paths.get("data"))) {
+            files = paths.filter(path -> path.toString().endsWith(".csv")).collect(Collectors.toList());
+        }
+
+        for (Path file : files) {
+            char separator = file.toString().contains("schema_matching") ? ',' : ';';
+            boolean hasHeader = !file.toString().contains("ground_truth");
+            Charset charset = file.toString().contains("duplicate_detection") ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8;
+
+            // Tiny chunks force many chunk borders, including borders inside quoted values
+            Relation relation = new ParallelCsvReader(hasHeader, separator, charset, 4, 97).read(file);
+            assertSameAsOpencsv(file, hasHeader, separator, charset, relation);
+        }
+    }
+
+    @Test
+    public void testQuotingEdgeCases() throws Exception {
+        Path file = Files.createTempFile("parallel_csv_reader", ".csv");
+        try {
+            String content = "a;b;c\r\n" +
+                    "\"multi\nline\";\"with \"\"double\"\" quotes\";plain\r\n" +
+                    "\"escaped \\\" quote\";;\"\"\n" +
+                    "embedded\"quo\"te;\"x;y\";\\;\n" +
+                    "\n" +
+                    "\"a\r\nb\";short\r" +
+                    "last;line;\"without\nbreak\"";
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+            for (int chunkSize = 1; chunkSize < 40; chunkSize++) {
+                Relation relation = new ParallelCsvReader(true, ';', StandardCharsets.UTF_8, 3, chunkSize).read(file);
+                assertSameAsOpencsv(file, true, ';', StandardCharsets.UTF_8, relation);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testCardinalityCutoff() {
+        Path file = Paths.get("data" + s + "data_profiling" + s + "tpch_supplier.csv");
+        Relation interned = new ParallelCsvReader(true, ';', StandardCharsets.UTF_8).read(file);
+
+        // Only the nation key column has at most 25 distinct values
+        Relation relation = new ParallelCsvReader(true, ';', StandardCharsets.UTF_8, 4, 1000, 25).read(file);
+        for (int i = 0; i < relation.getAttributes().length; i++)
+            assertEquals(i == 3, relation.isDictionaryEncoded(i));
+        assertArrayEquals(interned.getRecords(), relation.getRecords());
+        assertEquals(interned.getDictionaryColumn(5).cardinality(), relation.getDictionaryColumn(5).cardinality());
+    }
+
+    @Test
+    public void testByteValues() {
+        Path file = Paths.get("data" + s + "data_profiling" + s + "tpch_supplier.csv");
+        Relation strings = new ParallelCsvReader(true, ';', StandardCharsets.UTF_8).read(file);
+
+        // Tiny chunks force many chunk arenas that have to be merged; only the nation key column has at most 25
+        // distinct values and is dictionary-encoded, all other columns stay byte-encoded
+        Relation bytes = new ParallelCsvReader(true, ';', StandardCharsets.UTF_8, 4, 97, 25, true).read(file);
+        for (int i = 0; i < bytes.getAttributes().length; i++) {
+            assertEquals(i != 3, bytes.isArenaBacked(i));
+            assertEquals(i == 3, bytes.isDictionaryEncoded(i));
+            assertEquals(i == 3, bytes.getColumnStatistics(i).isDistinctCountExact());
+            assertEquals(strings.getColumnStatistics(i).getMax(), bytes.getColumnStatistics(i).getMax());
+        }
+        assertArrayEquals(strings.getRecords(), bytes.getRecords());
+        for (int i = 0; i < bytes.getAttributes().length; i++)
+            assertArrayEquals(strings.getDictionaryColumn(i).getCodes(), bytes.getDictionaryColumn(i).getCodes());
+    }
+
+    private static void assertSameAsOpencsv(Path file, boolean hasHeader, char separator, Charset charset, Relation relation) throws Exception {
+        CSVParser parser = new CSVParserBuilder()
+                .withSeparator(separator)
+                .withQuoteChar('"')
+                .withEscapeChar('\\')
+                .withStrictQuotes(false)
+                .withIgnoreLeadingWhiteSpace(false)
+                .withFieldAsNull(CSVReaderNullFieldIndicator.EMPTY_SEPARATORS)
+                .build();
+
+        List<String[]> expected = new ArrayList<>();
+        String[] attributes = null;
+        try (BufferedReader buffer = Files.newBufferedReader(file, charset);
+             CSVReader reader = new CSVReaderBuilder(buffer).withCSVParser(parser).build()) {
+            if (hasHeader)
+                attributes = reader.readNext();
+            String[] line;
+            while ((line = reader.readNext()) != null)
+                expected.add(line);
+        }
+
+        if (hasHeader)
+            assertArrayEquals(file.toString(), attributes, relation.getAttributes());
+        assertEquals(file.toString(), expected.size(), relation.getNumRecords());
+        String[][] records = relation.getRecords();
+        for (int j = 0; j < expected.size(); j++) {
+            String[] record = new String[relation.getAttributes().length];
+            for (int i = 0; i < record.length; i++)
+                record[i] = (i < expected.get(j).length && expected.get(j)[i] != null) ? expected.get(j)[i] : "";
+            assertArrayEquals(file + " record " + j, record, records[j]);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package de.di.helper;
+
+import de.di.Relation;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class RelationFolderLoaderTest {
+
+    @Test
+    public void testConcurrentLoadingKeepsFolderOrder() throws Exception {
+        String folder = "data" + File.separator + "data_profiling";
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(Paths.get(folder))) {
+            files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+
+        // A budget of one unit forces the loads to run one after the other; a large budget lets them overlap
+        for (long memoryBudget : new long[]{1, Long.MAX_VALUE}) {
+            RelationFolderLoader loader = new RelationFolderLoader(true, ';', StandardCharsets.UTF_8, false, 3, memoryBudget);
+            List<Relation> relations = loader.loadAll(folder);
+
+            assertEquals(files.size(), relations.size());
+            assertEquals(files.size(), loader.getFileLoads().size());
+            for (int i = 0; i < files.size(); i++) {
+                Relation expected = new Relation(files.get(i), true, ';', StandardCharsets.UTF_8);
+                assertEquals(expected.getName(), relations.get(i).getName());
+                assertArrayEquals(expected.getRecords(), relations.get(i).getRecords());
+
+                RelationFolderLoader.FileLoad fileLoad = loader.getFileLoads().get(i);
+                assertEquals(files.get(i), fileLoad.getPath());
+                assertEquals(Files.size(files.get(i)), fileLoad.getNumBytes());
+                assertEquals(expected.getNumRecords(), fileLoad.getNumRecords());
+                assertTrue(fileLoad.getMillis() >= 0);
+            }
+        }
+    }
+}
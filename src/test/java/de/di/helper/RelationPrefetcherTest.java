@@ -0,0 +1,57 @@
+package de.di.helper;
+
+import de.di.Relation;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class RelationPrefetcherTest {
+
+    @Test
+    public void testLoadsEveryFileOnce() throws Exception {
+        AtomicInteger numLoads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Function<Path, Relation> loader = path -> {
+            numLoads.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return new Relation(path.toString(), new String[]{"A"}, new String[][]{{"1"}});
+        };
+
+        try (RelationPrefetcher prefetcher = new RelationPrefetcher(2)) {
+            Path a = Path.of("a.csv");
+            prefetcher.prefetch(a, loader);
+            prefetcher.prefetch(a, loader);
+            assertTrue(prefetcher.isCached(a));
+
+            release.countDown();
+            Relation relation = prefetcher.get(a, loader);
+            assertSame(relation, prefetcher.get(a, loader));
+            assertEquals(1, numLoads.get());
+
+            prefetcher.evict(a);
+            assertFalse(prefetcher.isCached(a));
+            assertNotSame(relation, prefetcher.get(a, loader));
+            assertEquals(2, numLoads.get());
+        }
+    }
+
+    @Test
+    public void testFailedLoad() {
+        try (RelationPrefetcher prefetcher = new RelationPrefetcher(1)) {
+            Path missing = Path.of("missing.csv");
+            assertThrows(IllegalStateException.class, () -> prefetcher.get(missing, path -> {
+                throw new IllegalStateException("missing");
+            }));
+            assertFalse(prefetcher.isCached(missing));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package de.di.helper;
+
+import de.di.Relation;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class RelationSamplerTest {
+
+    private static Path writeNumbers(int numRecords) throws Exception {
+        Path file = Files.createTempFile("relation_sampler", ".csv");
+        StringBuilder content = new StringBuilder("number;parity\n");
+        for (int i = 0; i < numRecords; i++)
+            content.append(i).append(';').append(i % 2 == 0 ? "even" : "odd").append('\n');
+        Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void testFixedSizeSample() throws Exception {
+        Path file = writeNumbers(20000);
+        try {
+            Relation sample = RelationSampler.ofSize(500, 7).sample(file, true, ';', StandardCharsets.UTF_8);
+            assertArrayEquals(new String[]{"number", "parity"}, sample.getAttributes());
+            assertEquals(500, sample.getNumRecords());
+
+            // The sampled records are distinct, unchanged, and in file order
+            int previous = -1;
+            for (String[] record : sample.getRecords()) {
+                int number = Integer.parseInt(record[0]);
+                assertTrue(number > previous);
+                assertEquals(number % 2 == 0 ? "even" : "odd", record[1]);
+                previous = number;
+            }
+
+            // The same seed yields the same sample, another seed another one
+            assertArrayEquals(sample.getRecords(), RelationSampler.ofSize(500, 7).sample(file, true, ';', StandardCharsets.UTF_8).getRecords());
+            assertFalse(Arrays.deepEquals(sample.getRecords(), RelationSampler.ofSize(500, 8).sample(file, true, ';', StandardCharsets.UTF_8).getRecords()));
+
+            // Small relations are sampled completely
+            assertEquals(20000, RelationSampler.ofSize(30000, 7).sample(file, true, ';', StandardCharsets.UTF_8).getNumRecords());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testUniformity() throws Exception {
+        Path file = writeNumbers(20000);
+        try {
+            // Every tenth of the file should receive about a tenth of the sampled records
+            long[] histogram = new long[10];
+            for (int seed = 0; seed < 20; seed++)
+                for (String[] record : RelationSampler.ofSize(1000, seed).sample(file, true, ';', StandardCharsets.UTF_8).getRecords())
+                    histogram[Integer.parseInt(record[0]) / 2000]++;
+            for (long count : histogram)
+                assertEquals(2000, count, 200);
+
+            Relation fraction = RelationSampler.ofFraction(0.1, 3).sample(file, true, ';', StandardCharsets.UTF_8);
+            assertEquals(2000, fraction.getNumRecords(), 200);
+            assertEquals(0, RelationSampler.ofFraction(0, 3).sample(file, true, ';', StandardCharsets.UTF_8).getNumRecords());
+            assertEquals(20000, RelationSampler.ofFraction(1, 3).sample(file, true, ';', StandardCharsets.UTF_8).getNumRecords());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package de.di.helper;
+
+import de.di.Relation;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class RelationSnapshotTest {
+
+    private static final String s = File.separator;
+
+    @Test
+    public void testSnapshotRoundTrip() throws Exception {
+        Path folder = Files.createTempDirectory("relation_snapshot");
+        Path file = folder.resolve("tpch_nation.csv");
+        Path snapshot = RelationSnapshot.snapshotPathOf(file);
+        try {
+            Files.copy(Paths.get("data" + s + "data_profiling" + s + "tpch_nation.csv"), file);
+
+            Relation parsed = new Relation(file, true, ';', StandardCharsets.UTF_8, true);
+            assertTrue(Files.exists(snapshot));
+
+            Relation loaded = RelationSnapshot.read(snapshot, RelationSnapshot.checksumOf(file), new ParallelCsvReader(true, ';', StandardCharsets.UTF_8));
+            assertNotNull(loaded);
+            assertEquals(parsed.getName(), loaded.getName());
+            assertArrayEquals(parsed.getAttributes(), loaded.getAttributes());
+            assertArrayEquals(parsed.getRecords(), loaded.getRecords());
+            assertArrayEquals(parsed.getRecords(), new Relation(file, true, ';', StandardCharsets.UTF_8, true).getRecords());
+
+            // Snapshots are not relations of their own
+            assertEquals(1, Relation.readAllRelationsIn(folder.toString(), true, ';', StandardCharsets.UTF_8).size());
+        } finally {
+            Files.deleteIfExists(snapshot);
+            Files.deleteIfExists(file);
+            Files.delete(folder);
+        }
+    }
+
+    @Test
+    public void testOutdatedSnapshotsAreIgnored() throws Exception {
+        Path folder = Files.createTempDirectory("relation_snapshot");
+        Path file = folder.resolve("people.csv");
+        Path snapshot = RelationSnapshot.snapshotPathOf(file);
+        try {
+            Files.write(file, "name;age\nAnna;34\n".getBytes(StandardCharsets.UTF_8));
+            new Relation(file, true, ';', StandardCharsets.UTF_8, true);
+
+            // Different parsing options must not reuse the snapshot
+            assertNull(RelationSnapshot.read(snapshot, RelationSnapshot.checksumOf(file), new ParallelCsvReader(false, ';', StandardCharsets.UTF_8)));
+
+            // A changed file must not reuse the snapshot
+            Files.write(file, "Bob;27\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            assertNull(RelationSnapshot.read(snapshot, RelationSnapshot.checksumOf(file), new ParallelCsvReader(true, ';', StandardCharsets.UTF_8)));
+
+            Relation relation = new Relation(file, true, ';', StandardCharsets.UTF_8, true);
+            assertEquals(2, relation.getNumRecords());
+            assertEquals("Bob", relation.getRecords()[1][0]);
+            assertNotNull(RelationSnapshot.read(snapshot, RelationSnapshot.checksumOf(file), new ParallelCsvReader(true, ';', StandardCharsets.UTF_8)));
+        } finally {
+            Files.deleteIfExists(snapshot);
+            Files.deleteIfExists(file);
+            Files.delete(folder);
+        }
+    }
+
+    @Test
+    public void testFailedSnapshotWritesKeepTheParsedRelation() throws Exception {
+        Path folder = Files.createTempDirectory("relation_snapshot");
+        Path file = folder.resolve("people.csv");
+        Path snapshot = RelationSnapshot.snapshotPathOf(file);
+        Path blocker = snapshot.resolve("blocker");
+        try {
+            Files.write(file, "name;age\nAnna;34\n".getBytes(StandardCharsets.UTF_8));
+            // A non-empty directory in place of the snapshot makes moving the written snapshot fail
+            Files.createDirectories(snapshot);
+            Files.createFile(blocker);
+
+            Relation relation = new Relation(file, true, ';', StandardCharsets.UTF_8, true);
+            assertEquals(1, relation.getNumRecords());
+            assertEquals("Anna", relation.getRecords()[0][0]);
+
+            // The temporary snapshot is removed again
+            try (Stream<Path> files = Files.list(folder)) {
+                assertEquals(2, files.count());
+            }
+        } finally {
+            Files.deleteIfExists(blocker);
+            Files.deleteIfExists(snapshot);
+            Files.deleteIfExists(file);
+            Files.delete(folder);
+        }
+    }
+}
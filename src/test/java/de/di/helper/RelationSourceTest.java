@@ -0,0 +1,71 @@
+package de.di.helper;
+
+import de.di.Relation;
+import de.di.structures.RecordBatch;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RelationSourceTest {
+
+    private static final String s = File.separator;
+
+    @Test
+    public void testBatchesMatchLoadedRelation() {
+        Path file = Paths.get("data" + s + "data_profiling" + s + "tpch_supplier.csv");
+        Relation relation = new Relation(file, true, ';', StandardCharsets.UTF_8);
+
+        // Tiny windows force many window moves, including moves in the middle of records
+        for (int windowSize : new int[]{1, 7, 100, 1 << 20}) {
+            try (RelationSource source = new RelationSource(file, true, ';', StandardCharsets.UTF_8, 3, windowSize)) {
+                assertEquals(relation.getName(), source.getName());
+                assertArrayEquals(relation.getAttributes(), source.getAttributes());
+
+                List<String[]> records = new ArrayList<>();
+                while (source.hasNext()) {
+                    RecordBatch batch = source.next();
+                    assertTrue(batch.size() <= 3);
+                    assertEquals(records.size(), batch.getFirstRecordIndex());
+                    for (int j = 0; j < batch.size(); j++)
+                        for (int i = 0; i < relation.getAttributes().length; i++)
+                            assertSame(batch.getRecords()[j][i], batch.getColumns()[i][j]);
+                    records.addAll(List.of(batch.getRecords()));
+                }
+                assertArrayEquals(relation.getRecords(), records.toArray(new String[0][]));
+                assertEquals(relation.getNumRecords(), source.getNumRecordsRead());
+            }
+        }
+    }
+
+    @Test
+    public void testQuotedRecordsAcrossWindows() throws Exception {
+        Path file = Files.createTempFile("relation_source", ".csv");
+        try {
+            String content = "\"multi\nline\";\"with \"\"double\"\" quotes\";plain\r\n" +
+                    "\"escaped \\\" quote\";;\"\"\n" +
+                    "\n" +
+                    "last;line;\"without\nbreak\"";
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+            Relation relation = new Relation(file, false, ';', StandardCharsets.UTF_8);
+
+            for (int windowSize = 1; windowSize < 20; windowSize++) {
+                try (RelationSource source = new RelationSource(file, false, ';', StandardCharsets.UTF_8, 2, windowSize)) {
+                    List<String[]> records = new ArrayList<>();
+                    while (source.hasNext())
+                        records.addAll(List.of(source.next().getRecords()));
+                    assertArrayEquals(relation.getRecords(), records.toArray(new String[0][]));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package de.di.helper;
+
+import de.di.Relation;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class RowOffsetIndexTest {
+
+    @Test
+    public void testRecordsFromFile() throws Exception {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(Paths.get("data"))) {
+            files = paths.filter(path -> path.toString().endsWith(".csv")).collect(Collectors.toList());
+        }
+
+        for (Path file : files) {
+            char separator = file.toString().contains("schema_matching") ? ',' : ';';
+            boolean hasHeader = !file.toString().contains("ground_truth");
+            Charset charset = file.toString().contains("duplicate_detection") ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8;
+
+            // Tiny chunks force many chunk borders, including borders inside quoted values
+            Relation relation = new ParallelCsvReader(hasHeader, separator, charset, 4, 97).withRowOffsets(true).read(file);
+            RowOffsetIndex built = RowOffsetIndex.build(file, hasHeader, separator, charset);
+            RowOffsetIndex collected = relation.getRowOffsetIndex();
+            assertNotNull(collected);
+            assertEquals(relation.getNumRecords(), collected.size());
+            assertEquals(collected.size(), built.size());
+
+            String[][] records = relation.getRecords();
+            relation.releaseRecords();
+            int step = Math.max(1, records.length / 50);
+            for (int recordIndex = 0; recordIndex < records.length; recordIndex += step) {
+                assertEquals(collected.readLine(recordIndex), built.readLine(recordIndex));
+                assertArrayEquals(file + ":" + recordIndex, records[recordIndex], relation.getRecord(recordIndex));
+            }
+        }
+    }
+
+    @Test
+    public void testRawLines() throws Exception {
+        Path file = Files.createTempFile("row_offsets", ".csv");
+        try {
+            Files.write(file, "A;B\n1;\"multi\nline\"\r\n2;x\n3\n".getBytes(StandardCharsets.UTF_8));
+            RowOffsetIndex index = RowOffsetIndex.build(file, true, ';', StandardCharsets.UTF_8);
+
+            assertEquals(3, index.size());
+            assertEquals("1;\"multi\nline\"", index.readLine(0));
+            assertArrayEquals(new String[]{"1", "multi\nline"}, index.readRecord(0));
+            assertArrayEquals(new String[]{"2", "x"}, index.readRecord(1));
+            assertEquals("3", index.readLine(2));
+
+            Relation relation = new ParallelCsvReader(true, ';', StandardCharsets.UTF_8).withRowOffsets(true).read(file);
+            relation.releaseRecords();
+            assertArrayEquals(new String[]{"3", ""}, relation.getRecord(2));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
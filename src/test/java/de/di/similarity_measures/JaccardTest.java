@@ -1,8 +1,14 @@
 package de.di.similarity_measures;
 
 import de.di.similarity_measures.helper.Tokenizer;
+import de.di.structures.ArenaColumn;
+import de.di.structures.ByteArena;
+import de.di.structures.ValueAccessor;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
 import static org.junit.Assert.assertEquals;
 
 public class JaccardTest {
@@ -76,4 +82,86 @@ public class JaccardTest {
         result = jaccard.calculate(new String[]{"a", "", "a", "b", "c", "", "d"}, new String[]{"a", "b", "", "b", "c", "f", ""});
         assertEquals((double) 4 / 6, result, 0.000001);
     }
+
+    @Test
+    public void testCorrectnessTokenCodes() {
+        Random random = new Random(3);
+        String alphabet = "abcab $äö中";
+        for (int tokenSize = 1; tokenSize <= 6; tokenSize++) {
+            for (boolean usePadding : new boolean[]{false, true}) {
+                Tokenizer tokenizer = new Tokenizer(tokenSize, usePadding);
+                for (boolean bagSemantics : new boolean[]{false, true}) {
+                    Jaccard jaccard = new Jaccard(tokenizer, bagSemantics);
+                    for (int run = 0; run < 50; run++) {
+                        String string1 = randomString(random, random.nextInt(12), alphabet);
+                        String string2 = randomString(random, random.nextInt(12), alphabet);
+                        assertEquals(string1 + " / " + string2,
+                                jaccard.calculate(tokenizer.tokenize(string1), tokenizer.tokenize(string2)),
+                                jaccard.calculate(string1, string2), 0.000001);
+                    }
+                }
+            }
+        }
+    }
+
+    private static String randomString(Random random, int length, String alphabet) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return builder.toString();
+    }
+
+    @Test
+    public void testCorrectnessColumns() {
+        String[] values1 = {"Tim", "Tim", "Tina", ""};
+        String[] values2 = {"Tina", "Tim", "Tom", "Tom", "Tina"};
+        ValueAccessor column1 = columnOf(new ByteArena(4, true), values1);
+        ValueAccessor column2 = columnOf(new ByteArena(), values2);
+
+        Jaccard bag = new Jaccard(new Tokenizer(1, false), true);
+        assertEquals(bag.calculate(values1, values2), bag.calculate(column1, column2), 0.000001);
+        assertEquals((double) 2 / 9, bag.calculate(column1, column2), 0.000001);
+
+        Jaccard set = new Jaccard(new Tokenizer(1, false), false);
+        assertEquals(set.calculate(values1, values2), set.calculate(column1, column2), 0.000001);
+        assertEquals((double) 2 / 4, set.calculate(column1, ValueAccessor.of(values2)), 0.000001);
+    }
+
+    private static ArenaColumn columnOf(ByteArena arena, String... values) {
+        long[] addresses = new long[values.length];
+        int[] lengths = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            byte[] bytes = values[i].getBytes(StandardCharsets.UTF_8);
+            lengths[i] = bytes.length;
+            addresses[i] = arena.add(bytes, 0, bytes.length);
+        }
+        return new ArenaColumn(arena, StandardCharsets.UTF_8, addresses, lengths);
+    }
+
+    @Test
+    public void testCorrectnessBatch() {
+        String[] strings1 = {"Big Data", "", null, "Datenbanksysteme"};
+        String[] strings2 = {"Data Integration", "Big Data", "", "Datenintegration"};
+        String[][] lists1 = {{"a", "b", "b", "c"}, {}, {"x", "y"}};
+        String[][] lists2 = {{"b", "c", "d"}, {"a", "b", "b", "c"}, {}, {"z"}};
+        for (boolean bagSemantics : new boolean[]{false, true}) {
+            Jaccard jaccard = new Jaccard(new Tokenizer(2, true), bagSemantics);
+            double[] row = new double[strings2.length];
+            double[] matrix = new double[strings1.length * strings2.length];
+            jaccard.calculateManyToMany(strings1, strings2, matrix);
+            for (int i = 0; i < strings1.length; i++) {
+                jaccard.calculateOneToMany(strings1[i], strings2, row);
+                for (int j = 0; j < strings2.length; j++) {
+                    assertEquals(jaccard.calculate(strings1[i], strings2[j]), row[j], 0.000001);
+                    assertEquals(jaccard.calculate(strings1[i], strings2[j]), matrix[i * strings2.length + j], 0.000001);
+                }
+            }
+
+            double[] listMatrix = new double[lists1.length * lists2.length];
+            jaccard.calculateManyToMany(lists1, lists2, listMatrix);
+            for (int i = 0; i < lists1.length; i++)
+                for (int j = 0; j < lists2.length; j++)
+                    assertEquals(jaccard.calculate(lists1[i], lists2[j]), listMatrix[i * lists2.length + j], 0.000001);
+        }
+    }
 }
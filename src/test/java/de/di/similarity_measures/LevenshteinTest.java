@@ -54,6 +54,36 @@ public class LevenshteinTest {
         assertEquals(0, result, 0.000001);
     }
 
+    @Test
+    public void testCorrectnessStringsBounded() {
+        Levenshtein levenshtein = new Levenshtein(true);
+
+        assertEquals(1 - (double) 2 / 12, levenshtein.calculate("Integrations", "Itnegratoins", 0.8), 0.000001);
+        assertEquals(1 - (double) 2 / 12, levenshtein.calculate("Integrations", "Itnegratoins", 1 - (double) 2 / 12), 0.000001);
+        assertEquals(SimilarityMeasure.BELOW_THRESHOLD, levenshtein.calculate("Integrations", "Itnegratoins", 0.9), 0.000001);
+        assertEquals(SimilarityMeasure.BELOW_THRESHOLD, levenshtein.calculate("Big Data", "Big Data Systems", 0.6), 0.000001);
+        assertEquals(1 - (double) 10 / 19, levenshtein.calculate("Database Systems", "VL Datenbanksysteme", 0.4), 0.000001);
+        assertEquals(1, levenshtein.calculate("", "", 1), 0.000001);
+        assertEquals(SimilarityMeasure.BELOW_THRESHOLD, levenshtein.calculate("Integrations", "", 0.5), 0.000001);
+    }
+
+    @Test
+    public void testNonPositiveThresholds() {
+        // Thresholds of at most 0 accept every pair, however far their maximum distance exceeds the strings' lengths
+        String[][] pairs = {{"abcdefghij", "abcdefghiz"}, {"abc", "xyz"}, {"Big Data", "Data Integration"}, {"Integrations", ""}};
+        double[] thresholds = {0, -0.5, -1e12, Double.NEGATIVE_INFINITY};
+        for (boolean withDamerau : new boolean[]{false, true}) {
+            Levenshtein levenshtein = new Levenshtein(withDamerau);
+            for (String[] pair : pairs) {
+                double expected = levenshtein.calculate(pair[0], pair[1]);
+                for (double threshold : thresholds) {
+                    assertEquals(expected, levenshtein.calculate(pair[0], pair[1], threshold), 0.000001);
+                    assertEquals(expected, levenshtein.calculate(levenshtein.prepare(pair[0]), levenshtein.prepare(pair[1]), threshold), 0.000001);
+                }
+            }
+        }
+    }
+
     @Test
     public void testCorrectnessStringLists() {
         Levenshtein levenshtein = null;
@@ -70,4 +100,23 @@ public class LevenshteinTest {
         result = levenshtein.calculate(new String[]{"a", "", "a", "b", "c", "c", ""}, new String[]{"a", "", "a", "b", "c", "f", "e"});
         assertEquals(1 - (double) 2 / 7, result, 0.000001);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCorrectnessBatch() {
+        String[] strings1 = {"Big Data", "", null, "Integrations", "Datenbanksysteme für Datenintegration und Big Data Analytics in der Praxis"};
+        String[] strings2 = {"Data Integration", "Itnegratoins", "", null, "Datenbanksysteme und Datenintegration für Big Data Analytics in Praxis"};
+        for (boolean withDamerau : new boolean[]{false, true}) {
+            Levenshtein levenshtein = new Levenshtein(withDamerau);
+            double[] matrix = new double[strings1.length * strings2.length];
+            levenshtein.calculateManyToMany(strings1, strings2, matrix);
+            double[] row = new double[strings2.length];
+            for (int i = 0; i < strings1.length; i++) {
+                levenshtein.calculateOneToMany(strings1[i], strings2, row);
+                for (int j = 0; j < strings2.length; j++) {
+                    assertEquals(levenshtein.calculate(strings1[i], strings2[j]), matrix[i * strings2.length + j], 0.000001);
+                    assertEquals(levenshtein.calculate(strings1[i], strings2[j]), row[j], 0.000001);
+                }
+            }
+        }
+    }
+}
@@ -3,6 +3,8 @@ package de.di.similarity_measures;
 import de.di.similarity_measures.helper.Tokenizer;
 import org.junit.Test;
 
+import java.util.Random;
+
 import static org.junit.Assert.assertEquals;
 
 public class LocalitySensitiveHashingTest {
@@ -36,4 +38,46 @@ public class LocalitySensitiveHashingTest {
         result = lsh.calculate(new String[]{"aa", "", "ab", "ba", "cb", "", "da", "tt", "at"}, new String[]{"", "bb", "ab", "ba", "cb", "fa", "eb", "tt", "at"});
         assertEquals((double) 4 / 20, result, 0.000001);
     }
+
+    @Test
+    public void testCorrectnessTokenCodes() {
+        Random random = new Random(5);
+        String alphabet = "abcdefgh XYZ$äö中";
+        for (int tokenSize = 1; tokenSize <= Tokenizer.MAX_PACKED_TOKEN_SIZE; tokenSize++) {
+            Tokenizer tokenizer = new Tokenizer(tokenSize, tokenSize % 2 == 0);
+            LocalitySensitiveHashing lsh = new LocalitySensitiveHashing(tokenizer, 20);
+            for (int run = 0; run < 50; run++) {
+                String string1 = randomString(random, random.nextInt(15), alphabet);
+                String string2 = randomString(random, random.nextInt(15), alphabet);
+                assertEquals(string1 + " / " + string2,
+                        lsh.calculate(tokenizer.tokenize(string1), tokenizer.tokenize(string2)),
+                        lsh.calculate(string1, string2), 0.000001);
+            }
+        }
+    }
+
+    private static String randomString(Random random, int length, String alphabet) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return builder.toString();
+    }
+
+    @Test
+    public void testCorrectnessBatch() {
+        String[][] lists1 = {{"a", "b", "b", "c"}, {"x", "y"}};
+        String[][] lists2 = {{"b", "c", "d"}, {"a", "b", "b", "c"}, {"z"}};
+        LocalitySensitiveHashing lsh = new LocalitySensitiveHashing(new Tokenizer(2, true), 20);
+        double[] matrix = new double[lists1.length * lists2.length];
+        lsh.calculateManyToMany(lists1, lists2, matrix);
+        for (int i = 0; i < lists1.length; i++)
+            for (int j = 0; j < lists2.length; j++)
+                assertEquals(lsh.calculate(lists1[i], lists2[j]), matrix[i * lists2.length + j], 0.000001);
+
+        String[] strings = {"Big Data", "Data Integration", "Datenbanksysteme"};
+        double[] row = new double[strings.length];
+        lsh.calculateOneToMany("Big Data Systems", strings, row);
+        for (int j = 0; j < strings.length; j++)
+            assertEquals(lsh.calculate("Big Data Systems", strings[j]), row[j], 0.000001);
+    }
 }
@@ -0,0 +1,54 @@
+package de.di.similarity_measures.helper;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class BBitSignatureStoreTest {
+
+    // A token set of 3000 tokens that shares the given number of tokens with the set of tokens 0 to 2999
+    private static long[] tokens(int shared) {
+        long[] codes = new long[3000];
+        for (int i = 0; i < 3000; i++)
+            codes[i] = (i < shared) ? i : 100000 + i;
+        return codes;
+    }
+
+    @Test
+    public void testEstimates() {
+        NumericMinHash minHash = new NumericMinHash(512, true, 11);
+        int[] signature1 = minHash.signature(tokens(3000), 3000);
+        int[] signature2 = minHash.signature(tokens(2000), 3000); // Jaccard 2000 / 4000 = 0.5
+        int[] signature3 = minHash.signature(tokens(0), 3000);    // Jaccard 0
+
+        for (int bits : new int[]{1, 2, 4, 8}) {
+            BBitSignatureStore store = new BBitSignatureStore(512, bits);
+            assertEquals(0, store.add(signature1));
+            assertEquals(1, store.add(signature2));
+            assertEquals(2, store.add(signature3));
+            assertEquals(3, store.size());
+            assertEquals((512 * bits) / 64, store.getWordsPerSignature());
+
+            assertEquals(1.0, store.estimate(0, 0), 0.000001);
+            assertEquals(0.5, store.estimate(0, 1), 0.1);
+            assertEquals(0.0, store.estimate(0, 2), 0.1);
+            assertEquals(store.estimate(0, 1), store.estimate(signature2, 0), 0.000001);
+        }
+    }
+
+    @Test
+    public void testPartialWords() {
+        NumericMinHash minHash = new NumericMinHash(100, false, 5);
+        int[] signature = minHash.signature(tokens(3000), 3000);
+        BBitSignatureStore store = new BBitSignatureStore(100, 4);
+        store.add(signature);
+        store.add(signature);
+        assertEquals(7, store.getWordsPerSignature());
+        assertEquals(1.0, store.estimate(0, 1), 0.000001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedBits() {
+        new BBitSignatureStore(64, 3);
+    }
+}
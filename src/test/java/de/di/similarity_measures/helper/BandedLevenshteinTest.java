@@ -0,0 +1,72 @@
+package de.di.similarity_measures.helper;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class BandedLevenshteinTest {
+
+    private static String randomString(Random random, int length, String alphabet) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return builder.toString();
+    }
+
+    private static String mutate(Random random, String string, String alphabet, int numEdits) {
+        StringBuilder builder = new StringBuilder(string);
+        for (int e = 0; e < numEdits && builder.length() > 1; e++) {
+            int position = random.nextInt(builder.length() - 1);
+            switch (random.nextInt(4)) {
+                case 0: builder.deleteCharAt(position); break;
+                case 1: builder.insert(position, alphabet.charAt(random.nextInt(alphabet.length()))); break;
+                case 2: builder.setCharAt(position, alphabet.charAt(random.nextInt(alphabet.length()))); break;
+                default:
+                    char c = builder.charAt(position);
+                    builder.setCharAt(position, builder.charAt(position + 1));
+                    builder.setCharAt(position + 1, c);
+            }
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testEquivalenceToExactDistance() {
+        Random random = new Random(7);
+        String[] alphabets = {"ab", "abcdefghijklmnopqrstuvwxyz "};
+        int[] lengths = {1, 5, 30, 100};
+        for (String alphabet : alphabets) {
+            for (int length : lengths) {
+                for (int run = 0; run < 30; run++) {
+                    String string1 = randomString(random, length, alphabet);
+                    String string2 = mutate(random, string1, alphabet, random.nextInt(length / 3 + 2));
+                    for (boolean withTranspositions : new boolean[]{false, true}) {
+                        int exact = BitParallelLevenshtein.distance(string1, string2, withTranspositions);
+                        for (int maxDistance = 0; maxDistance <= exact + 2; maxDistance++)
+                            assertEquals(string1 + " / " + string2 + " / " + maxDistance,
+                                    Math.min(exact, maxDistance + 1),
+                                    BandedLevenshtein.distance(string1, string2, maxDistance, withTranspositions));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEarlyTermination() {
+        assertEquals(3, BandedLevenshtein.distance("abcdefgh", "a", 2, false));
+        assertEquals(2, BandedLevenshtein.distance("aaaaaaaaaa", "bbbbbbbbbb", 1, true));
+        assertEquals(1, BandedLevenshtein.distance("Integrations", "Itnegrations", 1, true));
+        assertEquals(0, BandedLevenshtein.distance("", "", 0, false));
+    }
+
+    @Test
+    public void testUnboundedDistance() {
+        // Bounds beyond the longer length must not overflow the band or the cap of the cells
+        assertEquals(1, BandedLevenshtein.distance("abcdefghij", "abcdefghiz", Integer.MAX_VALUE, false));
+        assertEquals(2, BandedLevenshtein.distance("Integrations", "Itnegratoins", Integer.MAX_VALUE, true));
+        assertEquals(3, BandedLevenshtein.distance("abc", "xyz", 1000, false));
+    }
+}
@@ -0,0 +1,95 @@
+package de.di.similarity_measures.helper;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class BitParallelLevenshteinTest {
+
+    private static int dynamicProgram(String string1, String string2, boolean withTranspositions) {
+        int[][] d = new int[string1.length() + 1][string2.length() + 1];
+        for (int i = 0; i <= string1.length(); i++)
+            d[i][0] = i;
+        for (int j = 0; j <= string2.length(); j++)
+            d[0][j] = j;
+        for (int i = 1; i <= string1.length(); i++) {
+            for (int j = 1; j <= string2.length(); j++) {
+                int cost = (string1.charAt(i - 1) == string2.charAt(j - 1)) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (withTranspositions && i > 1 && j > 1 && string1.charAt(i - 1) == string2.charAt(j - 2) && string1.charAt(i - 2) == string2.charAt(j - 1))
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+            }
+        }
+        return d[string1.length()][string2.length()];
+    }
+
+    private static String randomString(Random random, int length, String alphabet) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        return builder.toString();
+    }
+
+    private static String mutate(Random random, String string, String alphabet) {
+        StringBuilder builder = new StringBuilder(string);
+        int numEdits = random.nextInt(Math.max(1, string.length() / 4) + 1);
+        for (int e = 0; e < numEdits && builder.length() > 1; e++) {
+            int position = random.nextInt(builder.length() - 1);
+            switch (random.nextInt(4)) {
+                case 0: builder.deleteCharAt(position); break;
+                case 1: builder.insert(position, alphabet.charAt(random.nextInt(alphabet.length()))); break;
+                case 2: builder.setCharAt(position, alphabet.charAt(random.nextInt(alphabet.length()))); break;
+                default:
+                    char c = builder.charAt(position);
+                    builder.setCharAt(position, builder.charAt(position + 1));
+                    builder.setCharAt(position + 1, c);
+            }
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testEquivalenceToDynamicProgram() {
+        Random random = new Random(42);
+        String[] alphabets = {"ab", "abcd", "abcdefghijklmnopqrstuvwxyz ", "aäöü€中文"};
+        // Lengths around the word size exercise single words, word borders, and several blocks
+        int[] lengths = {1, 2, 7, 63, 64, 65, 127, 128, 129, 200};
+        for (String alphabet : alphabets) {
+            for (int length : lengths) {
+                for (int run = 0; run < 20; run++) {
+                    String string1 = randomString(random, length, alphabet);
+                    String string2 = (run % 2 == 0) ? mutate(random, string1, alphabet) : randomString(random, random.nextInt(2 * length) + 1, alphabet);
+                    for (boolean withTranspositions : new boolean[]{false, true})
+                        assertEquals(string1 + " / " + string2 + " / " + withTranspositions,
+                                dynamicProgram(string1, string2, withTranspositions),
+                                BitParallelLevenshtein.distance(string1, string2, withTranspositions));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompiledPatterns() {
+        Random random = new Random(17);
+        String alphabet = "abcdefghijklmnopqrstuvwxyz äö中";
+        for (int length : new int[]{1, 30, 64, 65, 150}) {
+            for (int run = 0; run < 20; run++) {
+                String string1 = randomString(random, length, alphabet);
+                String string2 = mutate(random, string1, alphabet);
+                BitParallelLevenshtein pattern = BitParallelLevenshtein.compile(string1);
+                for (boolean withTranspositions : new boolean[]{false, true})
+                    assertEquals(dynamicProgram(string1, string2, withTranspositions), pattern.distance(string2, withTranspositions));
+            }
+        }
+        assertEquals(3, BitParallelLevenshtein.compile("").distance("abc", true));
+    }
+
+    @Test
+    public void testEmptyStrings() {
+        assertEquals(0, BitParallelLevenshtein.distance("", "", true));
+        assertEquals(3, BitParallelLevenshtein.distance("abc", "", false));
+        assertEquals(3, BitParallelLevenshtein.distance("", "abc", true));
+    }
+}
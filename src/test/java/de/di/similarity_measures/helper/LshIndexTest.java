@@ -0,0 +1,60 @@
+package de.di.similarity_measures.helper;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LshIndexTest {
+
+    @Test
+    public void testOptimalBandsAndRows() {
+        for (double threshold : new double[]{0.3, 0.5, 0.8}) {
+            int[] bandsAndRows = LshIndex.optimalBandsAndRows(threshold, 128, 0.5, 0.5);
+            assertTrue(bandsAndRows[0] * bandsAndRows[1] <= 128);
+            // The steepest point of the S-curve lies near the threshold
+            assertEquals(threshold, Math.pow(1.0 / bandsAndRows[0], 1.0 / bandsAndRows[1]), 0.15);
+        }
+    }
+
+    @Test
+    public void testNearDuplicates() {
+        Random random = new Random(9);
+        NumericMinHash minHash = new NumericMinHash(128, true, 1);
+        LshIndex index = LshIndex.forThreshold(0.6, 128);
+
+        // 200 items as 100 pairs of near-duplicates with 200 tokens each, of which 180 are shared
+        int numPairs = 100;
+        int[][] signatures = new int[2 * numPairs][];
+        for (int pair = 0; pair < numPairs; pair++) {
+            long[] codes1 = new long[200];
+            long[] codes2 = new long[200];
+            for (int i = 0; i < 200; i++) {
+                long token = random.nextLong();
+                codes1[i] = token;
+                codes2[i] = (i < 180) ? token : random.nextLong();
+            }
+            signatures[2 * pair] = minHash.signature(codes1, codes1.length);
+            signatures[2 * pair + 1] = minHash.signature(codes2, codes2.length);
+        }
+        for (int[] signature : signatures)
+            index.add(signature);
+        assertEquals(2 * numPairs, index.size());
+
+        LongOpenHashSet pairs = index.candidatePairs(0.6);
+        for (int pair = 0; pair < numPairs; pair++)
+            assertTrue(pairs.contains(LshIndex.pairOf(2 * pair + 1, 2 * pair)));
+        assertEquals(numPairs, pairs.size());
+
+        IntArrayList neighbours = index.query(signatures[10], 0.6);
+        assertEquals(2, neighbours.size());
+        assertTrue(neighbours.contains(10) && neighbours.contains(11));
+
+        long pair = LshIndex.pairOf(7, 3);
+        assertEquals(3, LshIndex.firstOf(pair));
+        assertEquals(7, LshIndex.secondOf(pair));
+    }
+}
@@ -0,0 +1,75 @@
+package de.di.similarity_measures.helper;
+
+import de.di.similarity_measures.LocalitySensitiveHashing;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class NumericMinHashTest {
+
+    // Two token sets of 3000 tokens each that share 2000 tokens, i.e., whose Jaccard similarity is 2000 / 4000 = 0.5
+    private static long[][] overlappingSets(Random random) {
+        long[] codes1 = new long[3000];
+        long[] codes2 = new long[3000];
+        for (int i = 0; i < 3000; i++) {
+            codes1[i] = (i < 2000) ? i : 10000 + i;
+            codes2[i] = (i < 2000) ? i : 20000 + i;
+        }
+        // Shuffle, because the signatures must not depend on the token order
+        for (int i = codes2.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long temp = codes2[i];
+            codes2[i] = codes2[j];
+            codes2[j] = temp;
+        }
+        return new long[][]{codes1, codes2};
+    }
+
+    @Test
+    public void testEstimates() {
+        long[][] sets = overlappingSets(new Random(1));
+        for (boolean onePermutation : new boolean[]{false, true}) {
+            NumericMinHash minHash = new NumericMinHash(256, onePermutation, 42);
+            int[] signature1 = minHash.signature(sets[0], sets[0].length);
+            int[] signature2 = minHash.signature(sets[1], sets[1].length);
+            assertEquals(256, signature1.length);
+            assertEquals(0.5, NumericMinHash.estimate(signature1, signature2), 0.1);
+            assertEquals(1.0, NumericMinHash.estimate(signature1, minHash.signature(sets[0], sets[0].length)), 0.000001);
+        }
+    }
+
+    @Test
+    public void testDensification() {
+        NumericMinHash minHash = new NumericMinHash(256, true, 7);
+        // A few tokens fill only a few bins; all other bins borrow their values
+        int[] signature = minHash.signature(new long[]{5, 9, 13}, 3);
+        for (int value : signature)
+            assertNotEquals(NumericMinHash.EMPTY, value);
+        assertArrayEquals(signature, minHash.signature(new long[]{13, 5, 9, 5}, 4));
+
+        int[] single = minHash.signature(new long[]{5}, 1);
+        for (int value : single)
+            assertEquals(single[0], value);
+
+        int[] empty = minHash.signature(new long[0], 0);
+        assertEquals(1.0, NumericMinHash.estimate(empty, minHash.signature(new long[8], 0)), 0.000001);
+        assertEquals(0.0, NumericMinHash.estimate(empty, single), 0.000001);
+    }
+
+    @Test
+    public void testLocalitySensitiveHashing() {
+        for (int tokenSize : new int[]{2, 5}) {
+            Tokenizer tokenizer = new Tokenizer(tokenSize, true);
+            LocalitySensitiveHashing lsh = new LocalitySensitiveHashing(tokenizer, new NumericMinHash(64, true, 3));
+            String string1 = "Datenbanksysteme für Datenintegration 中文";
+            String string2 = "Datenintegration für Datenbanksysteme";
+            assertEquals(lsh.calculate(tokenizer.tokenize(string1), tokenizer.tokenize(string2)), lsh.calculate(string1, string2), 0.000001);
+            assertEquals(lsh.calculate(string1, string2), lsh.calculate(lsh.prepare(string1), lsh.prepare(string2)), 0.000001);
+            assertEquals(1.0, lsh.calculate(string1, string1), 0.000001);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package de.di.similarity_measures.helper;
+
+import de.di.similarity_measures.Levenshtein;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class QGramIndexTest {
+
+    // Values of few distinct characters with typos of each other, an empty value and a null value
+    private static String[] values(Random random, int count) {
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            if (i % 5 == 4) {
+                // A typo of the previous value: a swap of two adjacent characters or a replaced character
+                char[] chars = values[i - 1].toCharArray();
+                int position = random.nextInt(chars.length - 1);
+                char swap = chars[position];
+                chars[position] = (i % 10 == 4) ? chars[position + 1] : 'z';
+                chars[position + 1] = (i % 10 == 4) ? swap : chars[position + 1];
+                values[i] = new String(chars);
+                continue;
+            }
+            StringBuilder builder = new StringBuilder();
+            int length = 2 + random.nextInt(14);
+            for (int c = 0; c < length; c++)
+                builder.append((char) ('a' + random.nextInt(5)));
+            values[i] = builder.toString();
+        }
+        values[7] = "";
+        values[13] = null;
+        return values;
+    }
+
+    private static void assertMatches(List<QGramIndex.Match> expected, List<QGramIndex.Match> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getSimilarity(), actual.get(i).getSimilarity(), 0.000001);
+        }
+    }
+
+    private static List<QGramIndex.Match> scan(Levenshtein levenshtein, String[] values, String query) {
+        List<QGramIndex.Match> matches = new ArrayList<>();
+        for (int id = 0; id < values.length; id++)
+            matches.add(new QGramIndex.Match(id, levenshtein.calculate(query, values[id])));
+        matches.sort((match1, match2) -> (match1.getSimilarity() != match2.getSimilarity()) ?
+                Double.compare(match2.getSimilarity(), match1.getSimilarity()) : Integer.compare(match1.getId(), match2.getId()));
+        return matches;
+    }
+
+    @Test
+    public void testThresholdQueries() {
+        Random random = new Random(17);
+        String[] values = values(random, 300);
+        String[] queries = {values[3], values[4], values[20], "abcab", "", "zzzz", values[57] + "e"};
+        for (boolean withDamerau : new boolean[]{false, true}) {
+            for (int tokenSize : new int[]{2, 3}) {
+                Levenshtein levenshtein = new Levenshtein(withDamerau);
+                QGramIndex index = new QGramIndex(new Tokenizer(tokenSize, true), withDamerau, values);
+                assertEquals(values.length, index.size());
+                for (String query : queries) {
+                    for (double threshold : new double[]{-1e12, 0, 0.5, 0.7, 0.8, 1.0}) {
+                        List<QGramIndex.Match> expected = new ArrayList<>();
+                        for (QGramIndex.Match match : scan(levenshtein, values, query))
+                            if (match.getSimilarity() >= threshold)
+                                expected.add(match);
+                        assertMatches(expected, index.query(query, threshold));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTopK() {
+        Random random = new Random(23);
+        String[] values = values(random, 200);
+        for (boolean withDamerau : new boolean[]{false, true}) {
+            Levenshtein levenshtein = new Levenshtein(withDamerau);
+            QGramIndex index = new QGramIndex(new Tokenizer(2, true), withDamerau, values);
+            for (String query : new String[]{values[9], "abcde", ""}) {
+                for (int k : new int[]{1, 5, 40, 250}) {
+                    List<QGramIndex.Match> all = scan(levenshtein, values, query);
+                    assertMatches(all.subList(0, Math.min(k, all.size())), index.query(query, k));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package de.di.similarity_measures.helper;
+
+import de.di.similarity_measures.Jaccard;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SetSimilarityJoinTest {
+
+    // Strings of few distinct characters that share many tokens, with some near-duplicates and empty strings
+    private static String[] strings(Random random, int count) {
+        String[] strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            if (i % 10 == 9) {
+                strings[i] = (i % 20 == 19) ? "" : strings[i - 1] + "x";
+                continue;
+            }
+            StringBuilder builder = new StringBuilder();
+            int length = 3 + random.nextInt(12);
+            for (int c = 0; c < length; c++)
+                builder.append((char) ('a' + random.nextInt(6)));
+            strings[i] = builder.toString();
+        }
+        return strings;
+    }
+
+    private static String[][] stringLists(Random random, int count) {
+        String[][] lists = new String[count][];
+        for (int i = 0; i < count; i++) {
+            lists[i] = new String[1 + random.nextInt(8)];
+            for (int t = 0; t < lists[i].length; t++)
+                lists[i][t] = "v" + random.nextInt(10);
+        }
+        return lists;
+    }
+
+    private static void assertMatches(List<SetSimilarityJoin.Match> expected, List<SetSimilarityJoin.Match> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getIndex1(), actual.get(i).getIndex1());
+            assertEquals(expected.get(i).getIndex2(), actual.get(i).getIndex2());
+            assertEquals(expected.get(i).getSimilarity(), actual.get(i).getSimilarity(), 0.000001);
+        }
+    }
+
+    @Test
+    public void testStrings() {
+        Random random = new Random(3);
+        String[] strings1 = strings(random, 200);
+        String[] strings2 = strings(random, 150);
+        for (boolean bagSemantics : new boolean[]{false, true}) {
+            Tokenizer tokenizer = new Tokenizer(2, true);
+            Jaccard jaccard = new Jaccard(tokenizer, bagSemantics);
+            SetSimilarityJoin join = new SetSimilarityJoin(tokenizer, bagSemantics);
+            for (double threshold : bagSemantics ? new double[]{0.2, 0.35, 0.5} : new double[]{0.3, 0.6, 1.0}) {
+                List<SetSimilarityJoin.Match> expectedSelf = new ArrayList<>();
+                for (int i = 0; i < strings1.length; i++)
+                    for (int j = i + 1; j < strings1.length; j++)
+                        if (jaccard.calculate(strings1[i], strings1[j]) >= threshold)
+                            expectedSelf.add(new SetSimilarityJoin.Match(i, j, jaccard.calculate(strings1[i], strings1[j])));
+                assertMatches(expectedSelf, join.selfJoin(strings1, threshold));
+
+                List<SetSimilarityJoin.Match> expected = new ArrayList<>();
+                for (int i = 0; i < strings1.length; i++)
+                    for (int j = 0; j < strings2.length; j++)
+                        if (jaccard.calculate(strings1[i], strings2[j]) >= threshold)
+                            expected.add(new SetSimilarityJoin.Match(i, j, jaccard.calculate(strings1[i], strings2[j])));
+                assertMatches(expected, join.join(strings1, strings2, threshold));
+            }
+        }
+    }
+
+    @Test
+    public void testStringLists() {
+        Random random = new Random(5);
+        String[][] lists1 = stringLists(random, 120);
+        String[][] lists2 = stringLists(random, 80);
+        for (boolean bagSemantics : new boolean[]{false, true}) {
+            Jaccard jaccard = new Jaccard(new Tokenizer(1, false), bagSemantics);
+            SetSimilarityJoin join = new SetSimilarityJoin(new Tokenizer(1, false), bagSemantics);
+            double threshold = bagSemantics ? 0.3 : 0.5;
+
+            List<SetSimilarityJoin.Match> expectedSelf = new ArrayList<>();
+            for (int i = 0; i < lists1.length; i++)
+                for (int j = i + 1; j < lists1.length; j++)
+                    if (jaccard.calculate(lists1[i], lists1[j]) >= threshold)
+                        expectedSelf.add(new SetSimilarityJoin.Match(i, j, jaccard.calculate(lists1[i], lists1[j])));
+            assertMatches(expectedSelf, join.selfJoin(lists1, threshold));
+
+            List<SetSimilarityJoin.Match> expected = new ArrayList<>();
+            for (int i = 0; i < lists1.length; i++)
+                for (int j = 0; j < lists2.length; j++)
+                    if (jaccard.calculate(lists1[i], lists2[j]) >= threshold)
+                        expected.add(new SetSimilarityJoin.Match(i, j, jaccard.calculate(lists1[i], lists2[j])));
+            assertMatches(expected, join.join(lists1, lists2, threshold));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveThreshold() {
+        new SetSimilarityJoin(new Tokenizer(2, true), false).selfJoin(new String[]{"a", "b"}, 0);
+    }
+}
@@ -0,0 +1,59 @@
+package de.di.similarity_measures.helper;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SortedTokensTest {
+
+    private static int naiveIntersection(long[] tokens1, long[] tokens2, boolean bagSemantics) {
+        Long2IntOpenHashMap counts1 = new Long2IntOpenHashMap();
+        Long2IntOpenHashMap counts2 = new Long2IntOpenHashMap();
+        for (long token : tokens1)
+            counts1.addTo(token, 1);
+        for (long token : tokens2)
+            counts2.addTo(token, 1);
+        int intersection = 0;
+        for (long token : counts1.keySet())
+            if (counts2.containsKey(token))
+                intersection += bagSemantics ? Math.min(counts1.get(token), counts2.get(token)) : 1;
+        return intersection;
+    }
+
+    private static long[] randomTokens(Random random, int size, int numDistinct) {
+        long[] tokens = new long[size];
+        for (int i = 0; i < size; i++)
+            tokens[i] = random.nextInt(numDistinct) - numDistinct / 2;
+        Arrays.sort(tokens);
+        return tokens;
+    }
+
+    @Test
+    public void testMergeAndGalloping() {
+        Random random = new Random(11);
+        // Similar sizes use the merge; very unequal sizes use galloping
+        int[][] sizes = {{0, 0}, {0, 5}, {1, 1}, {10, 12}, {50, 40}, {3, 200}, {1, 1000}, {20, 5000}, {700, 6}};
+        for (int[] size : sizes) {
+            for (int numDistinct : new int[]{2, 20, 10000}) {
+                for (int run = 0; run < 10; run++) {
+                    long[] tokens1 = randomTokens(random, size[0], numDistinct);
+                    long[] tokens2 = randomTokens(random, size[1], numDistinct);
+                    for (boolean bagSemantics : new boolean[]{false, true})
+                        assertEquals(naiveIntersection(tokens1, tokens2, bagSemantics),
+                                SortedTokens.intersection(tokens1, tokens1.length, tokens2, tokens2.length, bagSemantics));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDistinct() {
+        assertEquals(0, SortedTokens.distinct(new long[0], 0));
+        assertEquals(3, SortedTokens.distinct(new long[]{-4, -4, 1, 7, 7, 7}, 6));
+        assertEquals(2, SortedTokens.distinct(new long[]{-4, -4, 1, 7, 7, 7}, 3));
+    }
+}
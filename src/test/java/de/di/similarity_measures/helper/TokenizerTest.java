@@ -1,5 +1,6 @@
 package de.di.similarity_measures.helper;
 
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import org.junit.Test;
 
 import static org.junit.Assert.assertArrayEquals;
@@ -75,4 +76,30 @@ public class TokenizerTest {
         test = new String[]{p + p + p, p + p + p};
         assertArrayEquals(test, result);
     }
+
+    @Test
+    public void testTokenCodes() {
+        String[] strings = {"Integration", "", "I", "Big Data Systems", "Datenbanksysteme für Datenintegration 中文"};
+        LongArrayList codes = new LongArrayList();
+        LongArrayList tokenCodes = new LongArrayList();
+        for (int tokenSize = 1; tokenSize <= 7; tokenSize++) {
+            for (boolean usePadding : new boolean[]{false, true}) {
+                Tokenizer tokenizer = new Tokenizer(tokenSize, usePadding);
+                Tokenizer unpadded = new Tokenizer(tokenSize, false);
+                for (String string : strings) {
+                    String[] tokens = tokenizer.tokenize(string);
+                    tokenizer.tokenizeCodes(string, codes);
+                    assertEquals(tokens.length, codes.size());
+                    for (int i = 0; i < tokens.length; i++) {
+                        // Every token's code is the code of the token on its own
+                        assertEquals(1, unpadded.tokenizeCodes(tokens[i], tokenCodes).size());
+                        assertEquals(tokenCodes.getLong(0), codes.getLong(i));
+                        if (tokenizer.isPacked())
+                            for (int position = 0; position < tokenSize; position++)
+                                assertEquals(tokens[i].charAt(position), tokenizer.charOf(codes.getLong(i), position));
+                    }
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,112 @@
+package de.di.structures;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class ArenaColumnTest {
+
+    private static ArenaColumn columnOf(ByteArena arena, String... values) {
+        long[] addresses = new long[values.length];
+        int[] lengths = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            byte[] bytes = values[i].getBytes(StandardCharsets.UTF_8);
+            lengths[i] = bytes.length;
+            addresses[i] = bytes.length == 0 ? 0 : arena.add(bytes, 0, bytes.length);
+        }
+        return new ArenaColumn(arena, StandardCharsets.UTF_8, addresses, lengths);
+    }
+
+    @Test
+    public void testByteComparisons() {
+        // Small pages force values into different pages
+        ArenaColumn column = columnOf(new ByteArena(4), "abc", "", "abc", "abd", "ab", "é", "");
+
+        assertEquals(7, column.size());
+        assertArrayEquals(new String[]{"abc", "", "abc", "abd", "ab", "é", ""}, column.toArray());
+        assertTrue(column.valueEquals(0, 2));
+        assertTrue(column.valueEquals(1, 6));
+        assertFalse(column.valueEquals(0, 3));
+        assertEquals(column.hashValue(0), column.hashValue(2));
+        assertTrue(column.compareValues(0, 3) < 0);
+        assertTrue(column.compareValues(4, 0) < 0);
+        assertTrue(column.compareValues(1, 4) < 0);
+        assertTrue(column.compareValues(5, 3) > 0);
+        assertEquals(0, column.compareValues(1, 6));
+    }
+
+    @Test
+    public void testDictionaryEncoding() {
+        String[] values = new String[1000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = (i % 3 == 0) ? "" : "value" + (i * 7 % 101);
+        ArenaColumn column = columnOf(new ByteArena(), values);
+
+        DictionaryColumn expected = DictionaryColumn.encode(values);
+        DictionaryColumn actual = column.toDictionaryColumn();
+        assertArrayEquals(expected.getDictionary(), actual.getDictionary());
+        assertArrayEquals(expected.getCodes(), actual.getCodes());
+    }
+
+    @Test
+    public void testAppend() {
+        ByteArena arena = new ByteArena(8);
+        long first = arena.add("first".getBytes(StandardCharsets.UTF_8), 0, 5);
+        ByteArena other = new ByteArena(8);
+        long second = other.add("second".getBytes(StandardCharsets.UTF_8), 0, 6);
+
+        long shift = arena.append(other);
+        long third = arena.add("x".getBytes(StandardCharsets.UTF_8), 0, 1);
+        assertEquals("first", arena.toString(first, 5, StandardCharsets.UTF_8));
+        assertEquals("second", arena.toString(second + shift, 6, StandardCharsets.UTF_8));
+        assertEquals("x", arena.toString(third, 1, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testOffHeap() {
+        String[] values = {"abc", "", "abc", "abd", "ab", "é", ""};
+        ArenaColumn heapColumn = columnOf(new ByteArena(4), values);
+        ArenaColumn offHeapColumn = columnOf(new ByteArena(4, true), values);
+
+        assertTrue(offHeapColumn.getArena().isOffHeap());
+        assertArrayEquals(values, offHeapColumn.toArray());
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(heapColumn.hashValue(i), offHeapColumn.hashValue(i));
+            assertTrue(ByteArena.equals(heapColumn.getArena(), heapColumn.getAddresses()[i], heapColumn.getLengths()[i],
+                    offHeapColumn.getArena(), offHeapColumn.getAddresses()[i], offHeapColumn.getLengths()[i]));
+            for (int j = 0; j < values.length; j++) {
+                assertEquals(heapColumn.valueEquals(i, j), offHeapColumn.valueEquals(i, j));
+                assertEquals(Integer.signum(heapColumn.compareValues(i, j)), Integer.signum(offHeapColumn.compareValues(i, j)));
+            }
+        }
+        assertArrayEquals(heapColumn.encode(), offHeapColumn.encode());
+    }
+
+    @Test
+    public void testSortedOrder() {
+        ArenaColumn column = columnOf(new ByteArena(4, true), "b", "A", "a", "", "B", "a");
+        assertArrayEquals(new int[]{3, 1, 2, 5, 0, 4}, column.sortedOrder(String.CASE_INSENSITIVE_ORDER));
+        assertArrayEquals(new int[]{3, 1, 4, 2, 5, 0}, column.sortedOrder(String::compareTo));
+    }
+
+    @Test
+    public void testSelect() {
+        ArenaColumn column = columnOf(new ByteArena(4), "b", "a", "", "c");
+        ArenaColumn selected = column.select(new int[]{3, 0, 2});
+
+        assertSame(column.getArena(), selected.getArena());
+        assertArrayEquals(new String[]{"c", "b", ""}, selected.toArray());
+    }
+
+    @Test
+    public void testCardinalityCutoff() {
+        ArenaColumn column = columnOf(new ByteArena(4), "b", "a", "b", "", "c");
+
+        assertNull(column.toDictionaryColumn(3));
+        DictionaryColumn encoded = column.toDictionaryColumn(4);
+        assertArrayEquals(new String[]{"b", "a", "", "c"}, encoded.getDictionary());
+        assertArrayEquals(new int[]{0, 1, 0, 2, 3}, encoded.getCodes());
+    }
+}
@@ -0,0 +1,110 @@
+package de.di.structures;
+
+import de.di.Relation;
+import de.di.helper.ParallelCsvReader;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ColumnStatisticsTest {
+
+    private static final String s = File.separator;
+
+    @Test
+    public void testStatistics() {
+        String[] values = new String[]{"12", "", "-3", "12", "7", null};
+        ColumnStatistics exact = ColumnStatistics.of(DictionaryColumn.encode(values));
+        ColumnStatistics estimated = ColumnStatistics.of(values);
+
+        for (ColumnStatistics statistics : new ColumnStatistics[]{exact, estimated}) {
+            assertEquals(6, statistics.getNumValues());
+            assertEquals(2, statistics.getNumEmptyValues());
+            assertEquals("-3", statistics.getMin());
+            assertEquals("7", statistics.getMax());
+            assertEquals(1, statistics.getMinLength());
+            assertEquals(2, statistics.getMaxLength());
+            assertEquals(ColumnStatistics.DataType.INTEGER, statistics.getDataType());
+            assertEquals(4, statistics.getDistinctCount());
+            assertArrayEquals(new long[]{2, 1, 3, 0}, Arrays.copyOf(statistics.getLengthHistogram(), 4));
+        }
+        assertTrue(exact.isDistinctCountExact());
+        assertFalse(estimated.isDistinctCountExact());
+    }
+
+    @Test
+    public void testDataTypes() {
+        assertEquals(ColumnStatistics.DataType.INTEGER, ColumnStatistics.DataType.of("+007"));
+        assertEquals(ColumnStatistics.DataType.DECIMAL, ColumnStatistics.DataType.of("-.5"));
+        assertEquals(ColumnStatistics.DataType.DECIMAL, ColumnStatistics.DataType.of("1.5e-3"));
+        assertEquals(ColumnStatistics.DataType.STRING, ColumnStatistics.DataType.of("1e"));
+        assertEquals(ColumnStatistics.DataType.STRING, ColumnStatistics.DataType.of("."));
+        assertEquals(ColumnStatistics.DataType.STRING, ColumnStatistics.DataType.of("12a"));
+        assertEquals(ColumnStatistics.DataType.DECIMAL, ColumnStatistics.of(new String[]{"1", "2.5"}).getDataType());
+        assertEquals(ColumnStatistics.DataType.EMPTY, ColumnStatistics.of(new String[]{"", ""}).getDataType());
+    }
+
+    @Test
+    public void testPruning() {
+        ColumnStatistics keys = ColumnStatistics.of(DictionaryColumn.encode(new String[]{"1", "2", "3", "4"}));
+        ColumnStatistics references = ColumnStatistics.of(DictionaryColumn.encode(new String[]{"2", "3", "2"}));
+        ColumnStatistics names = ColumnStatistics.of(DictionaryColumn.encode(new String[]{"x", "y", ""}));
+
+        assertTrue(references.mayBeIncludedIn(keys));
+        assertFalse(keys.mayBeIncludedIn(references));
+        assertFalse(names.mayBeIncludedIn(keys));
+        assertFalse(keys.mayOverlap(names));
+        assertTrue(keys.mayOverlap(references));
+    }
+
+    @Test
+    public void testArenaStatistics() {
+        // The supplementary character sorts after U+FF21 in UTF-8, but before it in the UTF-16 order of Strings
+        String[][] columns = {{"12", "", "-3.5", "12", "1e5"}, {"zebra", "Ätna", "", "abc", "7"}, {"\uFF21", "\uD83D\uDE00x", "b"}};
+        Charset[] charsets = {StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.UTF_8};
+        for (int c = 0; c < columns.length; c++) {
+            ByteArena arena = new ByteArena(4);
+            long[] addresses = new long[columns[c].length];
+            int[] lengths = new int[columns[c].length];
+            for (int i = 0; i < columns[c].length; i++) {
+                byte[] bytes = columns[c][i].getBytes(charsets[c]);
+                lengths[i] = bytes.length;
+                addresses[i] = (bytes.length == 0) ? 0 : arena.add(bytes, 0, bytes.length);
+            }
+            ColumnStatistics expected = ColumnStatistics.of(columns[c]);
+            ColumnStatistics actual = ColumnStatistics.of(new ArenaColumn(arena, charsets[c], addresses, lengths));
+            assertEquals(expected.getNumValues(), actual.getNumValues());
+            assertEquals(expected.getNumEmptyValues(), actual.getNumEmptyValues());
+            assertEquals(expected.getMin(), actual.getMin());
+            assertEquals(expected.getMax(), actual.getMax());
+            assertEquals(expected.getMinLength(), actual.getMinLength());
+            assertEquals(expected.getMaxLength(), actual.getMaxLength());
+            assertArrayEquals(expected.getLengthHistogram(), actual.getLengthHistogram());
+            assertEquals(expected.getDataType(), actual.getDataType());
+            assertEquals(expected.getDistinctCount(), actual.getDistinctCount());
+        }
+    }
+
+    @Test
+    public void testLoaderStatistics() {
+        Relation relation = new ParallelCsvReader(true, ';', StandardCharsets.UTF_8, 4, 1000, 25)
+                .read(Paths.get("data" + s + "data_profiling" + s + "tpch_supplier.csv"));
+
+        // Statistics are computed while loading and agree with the exact ones of the encoded columns
+        for (int i = 0; i < relation.getAttributes().length; i++) {
+            ColumnStatistics loaded = relation.getColumnStatistics(i);
+            ColumnStatistics exact = ColumnStatistics.of(relation.getDictionaryColumn(i));
+            assertEquals(i == 3, loaded.isDistinctCountExact());
+            assertEquals(exact.getMin(), loaded.getMin());
+            assertEquals(exact.getMax(), loaded.getMax());
+            assertEquals(exact.getDataType(), loaded.getDataType());
+            assertArrayEquals(exact.getLengthHistogram(), loaded.getLengthHistogram());
+            assertEquals(exact.getDistinctCount(), loaded.getDistinctCount(), 0.02 * exact.getDistinctCount());
+        }
+    }
+}
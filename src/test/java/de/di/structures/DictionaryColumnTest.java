@@ -0,0 +1,69 @@
+package de.di.structures;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DictionaryColumnTest {
+
+    @Test
+    public void testEncoding() {
+        DictionaryColumn column = DictionaryColumn.encode(new String[]{"b", "a", "b", null, "c", "a"});
+
+        assertEquals(6, column.size());
+        assertEquals(4, column.cardinality());
+        assertFalse(column.isUnique());
+        assertArrayEquals(new String[]{"b", "a", "", "c"}, column.getDictionary());
+        assertArrayEquals(new int[]{0, 1, 0, 2, 3, 1}, column.getCodes());
+        assertArrayEquals(new String[]{"b", "a", "b", "", "c", "a"}, column.toArray());
+        assertEquals("c", column.get(4));
+    }
+
+    @Test
+    public void testSharedInstances() {
+        DictionaryColumn column = DictionaryColumn.encode(new String[]{new String("x"), new String("x")});
+        String[] values = column.toArray();
+
+        assertFalse(column.isUnique());
+        assertSame(values[0], values[1]);
+    }
+
+    @Test
+    public void testCardinalityCutoff() {
+        DictionaryColumn.Encoder encoder = new DictionaryColumn.Encoder(4, 2);
+        assertEquals(0, encoder.add(new String("x")));
+        assertEquals(1, encoder.add("y"));
+        assertEquals(0, encoder.add(new String("x")));
+        assertTrue(encoder.isInterning());
+
+        assertEquals(-1, encoder.add("z"));
+        assertEquals(-1, encoder.add(null));
+        assertFalse(encoder.isInterning());
+        assertEquals(5, encoder.size());
+
+        String[] values = encoder.buildValues();
+        assertArrayEquals(new String[]{"x", "y", "x", "z", ""}, values);
+        assertSame(values[0], values[2]);
+    }
+
+    @Test
+    public void testAppend() {
+        DictionaryColumn column = DictionaryColumn.encode(new String[]{"a", "b", "a"});
+        DictionaryColumn appended = column.append(new String[]{"c", "a", null}).append(new String[]{"c", "d"});
+
+        assertArrayEquals(new String[]{"a", "b", "a"}, column.toArray());
+        assertArrayEquals(new String[]{"a", "b", "c", "", "d"}, appended.getDictionary());
+        assertArrayEquals(new int[]{0, 1, 0, 2, 0, 3, 2, 4}, appended.getCodes());
+        assertArrayEquals(new int[]{0, 1, 0, 2}, column.append(new String[]{"x"}).getCodes());
+    }
+
+    @Test
+    public void testSelect() {
+        DictionaryColumn column = DictionaryColumn.encode(new String[]{"a", "b", "c", "b", "a"});
+        DictionaryColumn selected = column.select(new int[]{1, 3, 4});
+
+        assertArrayEquals(new String[]{"b", "a"}, selected.getDictionary());
+        assertArrayEquals(new int[]{0, 0, 1}, selected.getCodes());
+        assertFalse(selected.isUnique());
+    }
+}
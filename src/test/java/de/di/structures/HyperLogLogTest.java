@@ -0,0 +1,33 @@
+package de.di.structures;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class HyperLogLogTest {
+
+    @Test
+    public void testEstimates() {
+        for (int numValues : new int[]{10, 1000, 100000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < numValues; i++) {
+                sketch.add("value" + i);
+                sketch.add("value" + i);
+            }
+            assertEquals(numValues, sketch.estimate(), Math.max(1, 0.03 * numValues));
+        }
+    }
+
+    @Test
+    public void testMerge() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+        for (int i = 0; i < 60000; i++)
+            first.add("value" + i);
+        for (int i = 40000; i < 100000; i++)
+            second.add("value" + i);
+
+        first.merge(second);
+        assertEquals(100000, first.estimate(), 3000);
+    }
+}